@@ -0,0 +1,101 @@
+package com.automation.core.matching;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorPixelKernels implements the pixel kernels with the incubating JDK
+ * Vector API, processing one preferred-width vector of pixels per step
+ * (8 pixels on AVX2, 16 on AVX-512) and finishing the tail with the scalar
+ * loops.
+ *
+ * This class lives in a separate source root that is only compiled by the
+ * {@code vector-api} Maven profile; {@link PixelKernels} loads it reflectively
+ * when {@code jdk.incubator.vector} is in the boot layer.
+ */
+final class VectorPixelKernels implements PixelKernelSet {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    // Per-lane SAD is at most 765 per pixel; flushing the int accumulator every
+    // 2^20 steps keeps each lane far below Integer.MAX_VALUE
+    private static final int SAD_FLUSH_STEPS = 1 << 20;
+
+    @Override
+    public long countEqual(int[] a, int opaqueA, int[] b, int opaqueB, int length) {
+        int bound = SPECIES.loopBound(length);
+        long count = 0;
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector p = IntVector.fromArray(SPECIES, a, i).or(opaqueA);
+            IntVector q = IntVector.fromArray(SPECIES, b, i).or(opaqueB);
+            count += p.eq(q).trueCount();
+        }
+        return count + ScalarPixelKernels.countEqual(a, opaqueA, b, opaqueB, i, length);
+    }
+
+    @Override
+    public long countWithinTolerance(int[] a, int[] b, int length, int tolerance) {
+        int bound = SPECIES.loopBound(length);
+        long count = 0;
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector p = IntVector.fromArray(SPECIES, a, i);
+            IntVector q = IntVector.fromArray(SPECIES, b, i);
+            VectorMask<Integer> within = channelDifference(p, q, 16).compare(VectorOperators.LE, tolerance)
+                .and(channelDifference(p, q, 8).compare(VectorOperators.LE, tolerance))
+                .and(channelDifference(p, q, 0).compare(VectorOperators.LE, tolerance))
+                .or(p.eq(q));
+            count += within.trueCount();
+        }
+        return count + ScalarPixelKernels.countWithinTolerance(a, b, i, length, tolerance);
+    }
+
+    @Override
+    public long sumAbsoluteDifference(int[] a, int[] b, int length) {
+        int bound = SPECIES.loopBound(length);
+        long sum = 0;
+        int i = 0;
+        while (i < bound) {
+            int blockEnd = (int) Math.min(bound, i + (long) SAD_FLUSH_STEPS * SPECIES.length());
+            IntVector acc = IntVector.zero(SPECIES);
+            for (; i < blockEnd; i += SPECIES.length()) {
+                IntVector p = IntVector.fromArray(SPECIES, a, i);
+                IntVector q = IntVector.fromArray(SPECIES, b, i);
+                acc = acc.add(channelDifference(p, q, 16))
+                    .add(channelDifference(p, q, 8))
+                    .add(channelDifference(p, q, 0));
+            }
+            sum += acc.reduceLanes(VectorOperators.ADD);
+        }
+        return sum + ScalarPixelKernels.sumAbsoluteDifference(a, b, i, length);
+    }
+
+    @Override
+    public void luminance(int[] argb, int[] gray, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector p = IntVector.fromArray(SPECIES, argb, i);
+            p.lanewise(VectorOperators.LSHR, 16).and(0xFF).mul(77)
+                .add(p.lanewise(VectorOperators.LSHR, 8).and(0xFF).mul(150))
+                .add(p.and(0xFF).mul(29))
+                .lanewise(VectorOperators.LSHR, 8)
+                .intoArray(gray, i);
+        }
+        ScalarPixelKernels.luminance(argb, gray, i, length);
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    private static IntVector channelDifference(IntVector p, IntVector q, int shift) {
+        return p.lanewise(VectorOperators.LSHR, shift).and(0xFF)
+            .sub(q.lanewise(VectorOperators.LSHR, shift).and(0xFF))
+            .abs();
+    }
+}
@@ -655,7 +655,11 @@ public class ConfigManager {
             Map<String, Object> images = (Map<String, Object>) appConfig.get("images");
             
             if (images != null && images.containsKey(imageName)) {
-                String imagePath = (String) images.get(imageName);
+                String imagePath = imageEntryFile(images.get(imageName));
+                if (imagePath == null || imagePath.trim().isEmpty()) {
+                    throw new IllegalArgumentException("Image '" + imageName + "' of application '"
+                        + currentApplicationName + "' has no \"file\" configured");
+                }
                 
                 // If it's already a full path, return it
                 if (imagePath.contains("/") || imagePath.contains("\\")) {
@@ -673,6 +677,52 @@ public class ConfigManager {
         return baseImagePath + "/" + imageName;
     }
     
+    /**
+     * Get a matching setting of an image entry of the current application.
+     * Image entries are either a file name or a map with a "file" key and settings, e.g.
+     * <pre>
+     * images:
+     *   save_button: { file: "save.png", domain: "edges" }
+     * </pre>
+     * @param imageFileName File name of the template (e.g. "save.png")
+     * @param setting Setting key (e.g. "domain")
+     * @return Setting value, or null if no entry for the file sets it
+     */
+    @SuppressWarnings("unchecked")
+    public static String getImageSetting(String imageFileName, String setting) {
+        if (currentApplicationName == null) {
+            return null;
+        }
+        Map<String, Object> images = (Map<String, Object>) getApplicationConfig(currentApplicationName).get("images");
+        if (images == null) {
+            return null;
+        }
+        
+        for (Object entry : images.values()) {
+            if (!(entry instanceof Map)) {
+                continue;
+            }
+            String file = imageEntryFile(entry);
+            if (file != null && new File(file).getName().equals(imageFileName)) {
+                Object value = ((Map<String, Object>) entry).get(setting);
+                return value != null ? value.toString() : null;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * File of an image entry given either as a file name or as a map with a "file" key
+     */
+    @SuppressWarnings("unchecked")
+    private static String imageEntryFile(Object entry) {
+        if (entry instanceof Map) {
+            Object file = ((Map<String, Object>) entry).get("file");
+            return file != null ? file.toString() : null;
+        }
+        return entry != null ? entry.toString() : null;
+    }
+    
     /**
      * Get screenshot directory path
      * @return Path to screenshot directory
@@ -1,5 +1,23 @@
 package com.automation.core;
 
+import com.automation.config.ConfigManager;
+import com.automation.core.matching.BatchTemplateSearch;
+import com.automation.core.matching.LocationHints;
+import com.automation.core.matching.MatchDomain;
+import com.automation.core.matching.MatchResultCache;
+import com.automation.core.matching.MultiScaleSearch;
+import com.automation.core.matching.NonMaximumSuppression;
+import com.automation.core.matching.ParallelTemplateSearch;
+import com.automation.core.matching.PerceptualHash;
+import com.automation.core.matching.PixelKernels;
+import com.automation.core.matching.PruningStats;
+import com.automation.core.matching.PyramidSearch;
+import com.automation.core.matching.RasterImage;
+import com.automation.core.matching.ScreenStateIndex;
+import com.automation.core.matching.TemplateCache;
+import com.automation.core.matching.TemplateMask;
+import com.automation.core.matching.TemplateMatchEngine;
+import com.automation.models.MatchResult;
 import org.sikuli.script.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,9 +25,19 @@ import org.slf4j.LoggerFactory;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * ImageMatcher provides image recognition and matching capabilities using SikuliX
@@ -17,9 +45,46 @@ import java.util.List;
 public class ImageMatcher {
     private static final Logger logger = LoggerFactory.getLogger(ImageMatcher.class);
     
+    // Shared by all matcher instances so step definition classes do not each spawn workers
+    private static ForkJoinPool matchPool;
+    
+    // Decoded templates shared across matcher instances (image.cache.enabled)
+    private static TemplateCache templateCache;
+    
+    // Early-termination counters per template file name, for threshold tuning
+    private static final Map<String, PruningStats> pruningStats = new ConcurrentHashMap<>();
+    
+    // Last-hit locations per template, shared so every step class benefits (image.match.hints.enabled)
+    private static final LocationHints locationHints = new LocationHints();
+    
+    // Scale factors and winning scale per template (image.match.scale.enabled)
+    private static MultiScaleSearch multiScaleSearch;
+    
+    // Known screen states recognized by perceptual hash
+    private static ScreenStateIndex screenStates;
+    
+    // Lookups against unchanged screen content, shared by all matchers
+    private static MatchResultCache matchResultCache;
+    
     private Screen screen;
     private double defaultSimilarity = 0.8;
     private String templateDirectory;
+    private final TemplateMatchEngine matchEngine = new TemplateMatchEngine();
+    private final BatchTemplateSearch batchSearch = new BatchTemplateSearch(matchEngine);
+    private PyramidSearch pyramidSearch;
+    private ParallelTemplateSearch parallelSearch;
+    private boolean templateCacheEnabled = true;
+    private boolean locationHintsEnabled = false;
+    private boolean multiScaleEnabled = false;
+    private boolean resultCacheEnabled = true;
+    private final Map<String, String> resolvedPaths = new ConcurrentHashMap<>();
+    private final Map<String, Double> templateSimilarities = new ConcurrentHashMap<>();
+    private final Map<String, MatchDomain> templateDomains = new ConcurrentHashMap<>();
+    private MatchDomain defaultDomain = MatchDomain.LUMINANCE;
+    
+    // Rasters of recent screenshots by identity, so every lookup in the same capture
+    // reuses one luminance plane and one set of summed-area tables
+    private final Map<BufferedImage, RasterImage> screenRasters = Collections.synchronizedMap(new WeakHashMap<>());
     
     public ImageMatcher() {
         this("src/main/resources/images/templates");
@@ -32,6 +97,8 @@ public class ImageMatcher {
         // Create template directory if it doesn't exist
         createDirectoryIfNotExists(templateDirectory);
         
+        configureMatching();
+        
         logger.info("ImageMatcher initialized with template directory: {}", templateDirectory);
     }
     
@@ -399,6 +466,8 @@ public class ImageMatcher {
      */
     public double calculateSimilarity(File image1File, File image2File) {
         try {
+            ScreenCapture.awaitScreenshot(image1File);
+            ScreenCapture.awaitScreenshot(image2File);
             BufferedImage img1 = javax.imageio.ImageIO.read(image1File);
             BufferedImage img2 = javax.imageio.ImageIO.read(image2File);
             return calculateSimilarity(img1, img2);
@@ -427,20 +496,7 @@ public class ImageMatcher {
             img2 = resizeImage(img2, width, height);
         }
 
-        int width = img1.getWidth();
-        int height = img1.getHeight();
-        long totalPixels = (long) width * height;
-        long matchingPixels = 0;
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (img1.getRGB(x, y) == img2.getRGB(x, y)) {
-                    matchingPixels++;
-                }
-            }
-        }
-
-        double similarity = (double) matchingPixels / totalPixels;
+        double similarity = PixelKernels.equalFraction(img1, img2);
         logger.debug("Image similarity calculated: {:.2f}%", similarity * 100);
         return similarity;
     }
@@ -462,36 +518,11 @@ public class ImageMatcher {
             img2 = resizeImage(img2, width, height);
         }
 
-        int width = img1.getWidth();
-        int height = img1.getHeight();
-        long totalPixels = (long) width * height;
-        long similarPixels = 0;
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Color c1 = new Color(img1.getRGB(x, y));
-                Color c2 = new Color(img2.getRGB(x, y));
-                
-                if (isColorSimilar(c1, c2, tolerance)) {
-                    similarPixels++;
-                }
-            }
-        }
-
-        double similarity = (double) similarPixels / totalPixels;
+        double similarity = PixelKernels.toleranceFraction(img1, img2, tolerance);
         logger.debug("Image similarity with tolerance {}: {:.2f}%", tolerance, similarity * 100);
         return similarity;
     }
 
-    /**
-     * Check if two colors are similar within tolerance
-     */
-    private boolean isColorSimilar(Color c1, Color c2, int tolerance) {
-        return Math.abs(c1.getRed() - c2.getRed()) <= tolerance &&
-               Math.abs(c1.getGreen() - c2.getGreen()) <= tolerance &&
-               Math.abs(c1.getBlue() - c2.getBlue()) <= tolerance;
-    }
-
     /**
      * Resize image helper method
      */
@@ -518,6 +549,25 @@ public class ImageMatcher {
      * Get full path for image file
      */
     private String getFullImagePath(String imagePath) {
+        String cachedPath = resolvedPaths.get(imagePath);
+        if (cachedPath != null) {
+            if (new File(cachedPath).exists()) {
+                return cachedPath;
+            }
+            resolvedPaths.remove(imagePath);
+        }
+        
+        String fullPath = resolveImagePath(imagePath);
+        if (new File(fullPath).exists()) {
+            resolvedPaths.put(imagePath, fullPath);
+        }
+        return fullPath;
+    }
+    
+    /**
+     * Probe the candidate locations of an image file
+     */
+    private String resolveImagePath(String imagePath) {
         File imageFile = new File(imagePath);
         
         if (imageFile.isAbsolute() && imageFile.exists()) {
@@ -542,6 +592,31 @@ public class ImageMatcher {
         return imagePath;
     }
     
+    /**
+     * Apply matching engine settings from automation.properties
+     */
+    private void configureMatching() {
+        try {
+            if (ConfigManager.getBooleanProperty("image.match.pyramid.enabled", false)) {
+                setPyramidSearch(
+                    ConfigManager.getIntProperty("image.match.pyramid.depth", 2),
+                    ConfigManager.getIntProperty("image.match.pyramid.candidates", 5));
+            }
+            if (ConfigManager.getBooleanProperty("image.match.parallel.enabled", false)) {
+                setParallelSearchEnabled(true);
+            }
+            templateCacheEnabled = ConfigManager.getBooleanProperty("image.cache.enabled", true);
+            locationHintsEnabled = ConfigManager.getBooleanProperty("image.match.hints.enabled", false);
+            multiScaleEnabled = ConfigManager.getBooleanProperty("image.match.scale.enabled", false);
+            resultCacheEnabled = ConfigManager.getBooleanProperty("image.match.result.cache.enabled", true);
+            matchEngine.setEarlyTermination(
+                ConfigManager.getBooleanProperty("image.match.early.termination.enabled", false));
+            defaultDomain = MatchDomain.fromName(ConfigManager.getProperty("image.match.domain", "luminance"));
+        } catch (Exception e) {
+            logger.warn("Failed to read image matching configuration, using defaults: {}", e.getMessage());
+        }
+    }
+    
     /**
      * Create directory if it doesn't exist
      */
@@ -574,9 +649,261 @@ public class ImageMatcher {
     
     public void setTemplateDirectory(String templateDirectory) {
         this.templateDirectory = templateDirectory;
+        resolvedPaths.clear();
         createDirectoryIfNotExists(templateDirectory);
     }
     
+    /**
+     * Enable coarse-to-fine pyramid search for in-memory matching
+     * @param depth Number of 2x downsampling levels (0 disables the pyramid)
+     * @param candidatesPerLevel Candidates kept at the coarsest level and refined at each finer level
+     */
+    public void setPyramidSearch(int depth, int candidatesPerLevel) {
+        this.pyramidSearch = depth > 0 ? new PyramidSearch(matchEngine, depth, candidatesPerLevel) : null;
+        logger.debug("Pyramid search set to depth {} with {} candidates per level", depth, candidatesPerLevel);
+    }
+    
+    public boolean isPyramidSearchEnabled() {
+        return pyramidSearch != null;
+    }
+    
+    /**
+     * Enable parallel row-band scoring for full-resolution in-memory matching.
+     * Results are identical to the sequential scan; pyramid search takes precedence when both are enabled.
+     */
+    public void setParallelSearchEnabled(boolean enabled) {
+        this.parallelSearch = enabled ? new ParallelTemplateSearch(matchEngine, getMatchPool()) : null;
+        logger.debug("Parallel search {}", enabled ? "enabled" : "disabled");
+    }
+    
+    public boolean isParallelSearchEnabled() {
+        return parallelSearch != null;
+    }
+    
+    /**
+     * Enable early termination: offsets are abandoned once their partial correlation can no
+     * longer reach the similarity threshold or beat the best offset so far. Results are unchanged.
+     */
+    public void setEarlyTerminationEnabled(boolean enabled) {
+        matchEngine.setEarlyTermination(enabled);
+        logger.debug("Early termination {}", enabled ? "enabled" : "disabled");
+    }
+    
+    public boolean isEarlyTerminationEnabled() {
+        return matchEngine.isEarlyTermination();
+    }
+    
+    /**
+     * Override the similarity threshold for one template file name (e.g. "button_plus.png")
+     */
+    public void setTemplateSimilarity(String templateName, double similarity) {
+        templateSimilarities.put(templateName, similarity);
+    }
+    
+    /**
+     * Get the similarity threshold for a template: an override set on this matcher,
+     * then image.similarity.&lt;file name&gt; from the configuration, then the default similarity
+     */
+    public double getTemplateSimilarity(File template) {
+        Double override = templateSimilarities.get(template.getName());
+        if (override != null) {
+            return override;
+        }
+        return ConfigManager.getDoubleProperty("image.similarity." + template.getName(), defaultSimilarity);
+    }
+    
+    public MatchDomain getDefaultMatchDomain() {
+        return defaultDomain;
+    }
+    
+    /**
+     * Set the domain used for templates without their own (default image.match.domain)
+     */
+    public void setDefaultMatchDomain(MatchDomain defaultDomain) {
+        this.defaultDomain = defaultDomain;
+    }
+    
+    /**
+     * Override the match domain for one template file name (e.g. "button_plus.png")
+     */
+    public void setTemplateDomain(String templateName, MatchDomain domain) {
+        templateDomains.put(templateName, domain);
+    }
+    
+    /**
+     * Get the match domain for a template: an override set on this matcher, then the
+     * "domain" of its image entry in applications.yml, then the default domain
+     */
+    public MatchDomain getMatchDomain(File template) {
+        MatchDomain override = templateDomains.get(template.getName());
+        if (override != null) {
+            return override;
+        }
+        String configured = ConfigManager.getImageSetting(template.getName(), "domain");
+        if (configured != null) {
+            try {
+                return MatchDomain.fromName(configured);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring match domain for {}: {}", template.getName(), e.getMessage());
+            }
+        }
+        return defaultDomain;
+    }
+    
+    /**
+     * Get the early-termination counters per template file name
+     * A low prune rate suggests the template's threshold could be raised
+     */
+    public static Map<String, PruningStats> getPruningStats() {
+        return Collections.unmodifiableMap(pruningStats);
+    }
+    
+    private static PruningStats pruningStatsFor(File template) {
+        return pruningStats.computeIfAbsent(template.getName(), name -> new PruningStats());
+    }
+    
+    public boolean isLocationHintsEnabled() {
+        return locationHintsEnabled;
+    }
+    
+    /**
+     * Probe around each template's last-hit location before scanning the whole screenshot.
+     * A probe hit is returned as is, so a better match elsewhere on screen is not found;
+     * only enable this for templates that occur once on screen.
+     */
+    public void setLocationHintsEnabled(boolean locationHintsEnabled) {
+        this.locationHintsEnabled = locationHintsEnabled;
+    }
+    
+    /**
+     * Get the shared last-hit locations, with hit/miss counters for the hinted probes
+     */
+    public static LocationHints getLocationHints() {
+        return locationHints;
+    }
+    
+    public boolean isMultiScaleEnabled() {
+        return multiScaleEnabled;
+    }
+    
+    /**
+     * Also try the template resized by each factor in image.match.scales, for desktops
+     * running at a different display scaling than the one templates were captured at
+     */
+    public void setMultiScaleEnabled(boolean multiScaleEnabled) {
+        this.multiScaleEnabled = multiScaleEnabled;
+    }
+    
+    /**
+     * Get the shared multi-scale search, configured from image.match.scales
+     */
+    public static synchronized MultiScaleSearch getMultiScaleSearch() {
+        if (multiScaleSearch == null) {
+            double[] scales = MultiScaleSearch.parseScales(
+                ConfigManager.getProperty("image.match.scales", "1.0,1.25,1.5,0.8"));
+            multiScaleSearch = new MultiScaleSearch(scales);
+            logger.info("Multi-scale search created with scales {}", Arrays.toString(multiScaleSearch.getScales()));
+        }
+        return multiScaleSearch;
+    }
+    
+    /**
+     * Get the shared index of known screen states, configured from
+     * image.state.hash (dhash or phash) and image.state.max.distance
+     */
+    public static synchronized ScreenStateIndex getScreenStates() {
+        if (screenStates == null) {
+            PerceptualHash.Algorithm algorithm = PerceptualHash.Algorithm.fromName(
+                ConfigManager.getProperty("image.state.hash", "dhash"));
+            int maxDistance = ConfigManager.getIntProperty("image.state.max.distance", 10);
+            screenStates = new ScreenStateIndex(algorithm, maxDistance);
+            logger.info("Screen state index created: {}", screenStates);
+        }
+        return screenStates;
+    }
+    
+    public boolean isResultCacheEnabled() {
+        return resultCacheEnabled;
+    }
+    
+    /**
+     * Enable or disable reuse of lookups against unchanged screen content for this matcher
+     */
+    public void setResultCacheEnabled(boolean resultCacheEnabled) {
+        this.resultCacheEnabled = resultCacheEnabled;
+    }
+    
+    /**
+     * Get the shared match result cache, bounded by image.match.result.cache.size
+     * entries that expire after image.match.result.cache.ttl.ms
+     */
+    public static synchronized MatchResultCache getMatchResultCache() {
+        if (matchResultCache == null) {
+            int maxEntries = ConfigManager.getIntProperty("image.match.result.cache.size", 256);
+            int ttlMillis = ConfigManager.getIntProperty("image.match.result.cache.ttl.ms", 5000);
+            matchResultCache = new MatchResultCache(maxEntries, ttlMillis);
+            logger.info("Match result cache created: {}", matchResultCache);
+        }
+        return matchResultCache;
+    }
+    
+    /**
+     * Identifies everything besides the screen content that a lookup's result depends on
+     */
+    private String resultCacheId(File templateFile, MatchDomain domain, double similarity) {
+        File mask = TemplateMask.sidecarFor(templateFile);
+        return templateFile.getAbsolutePath() + "@" + templateFile.lastModified()
+            + "/" + mask.getAbsolutePath() + "@" + mask.lastModified()
+            + "/" + domain + "/" + similarity + "/" + searchOptionsId();
+    }
+    
+    /**
+     * The search settings that can change which match a lookup returns
+     */
+    private String searchOptionsId() {
+        return "scales=" + (multiScaleEnabled ? Arrays.toString(getMultiScaleSearch().getScales()) : "off")
+            + ",hints=" + locationHintsEnabled
+            + ",pyramid=" + (pyramidSearch != null);
+    }
+    
+    public boolean isTemplateCacheEnabled() {
+        return templateCacheEnabled;
+    }
+    
+    public void setTemplateCacheEnabled(boolean templateCacheEnabled) {
+        this.templateCacheEnabled = templateCacheEnabled;
+    }
+    
+    /**
+     * Get the shared template cache, bounded by image.cache.max.mb
+     * Exposes hit/miss/eviction counters for performance reporting
+     */
+    public static synchronized TemplateCache getTemplateCache() {
+        if (templateCache == null) {
+            long maxBytes = ConfigManager.getIntProperty("image.cache.max.mb", 64) * 1024L * 1024L;
+            templateCache = new TemplateCache(maxBytes);
+            logger.info("Template cache created with {} MB budget", maxBytes / (1024 * 1024));
+        }
+        return templateCache;
+    }
+    
+    /**
+     * Get the shared matching pool, sized from image.match.parallel.threads or,
+     * when that is 0, the available cores divided by max.concurrent.tests
+     */
+    private static synchronized ForkJoinPool getMatchPool() {
+        if (matchPool == null) {
+            int threads = ConfigManager.getIntProperty("image.match.parallel.threads", 0);
+            if (threads <= 0) {
+                int concurrentTests = Math.max(1, ConfigManager.getIntProperty("max.concurrent.tests", 1));
+                threads = Math.max(1, Runtime.getRuntime().availableProcessors() / concurrentTests);
+            }
+            matchPool = new ForkJoinPool(threads);
+            logger.info("Image matching pool created with {} threads", threads);
+        }
+        return matchPool;
+    }
+    
     public Screen getScreen() {
         return screen;
     }
@@ -591,25 +918,51 @@ public class ImageMatcher {
             return null;
         }
         
+        MatchResult match = findBestMatch(screenshot, template, defaultSimilarity);
+        return match != null ? match.getBounds() : null;
+    }
+    
+    /**
+     * Find a template file in an in-memory screenshot without writing any files
+     * The template is decoded once and served from the template cache afterwards
+     * Returns Rectangle with coordinates or null if not found
+     */
+    public Rectangle findImage(BufferedImage screenshot, File template) {
+        if (template == null) {
+            logger.warn("Template file is null");
+            return null;
+        }
+        MatchResult match = findBestMatch(screenshot, template, getTemplateSimilarity(template));
+        return match != null ? match.getBounds() : null;
+    }
+    
+    /**
+     * Get the pixel size of a template file, decoding it through the template cache
+     * Returns null if the template cannot be read
+     */
+    public Dimension getTemplateSize(File template) {
         try {
-            // Convert BufferedImages to temporary files for SikuliX
-            File screenshotFile = File.createTempFile("screenshot", ".png");
-            File templateFile = File.createTempFile("template", ".png");
-            
-            javax.imageio.ImageIO.write(screenshot, "PNG", screenshotFile);
-            javax.imageio.ImageIO.write(template, "PNG", templateFile);
-            
-            // Use file-based findImage method
-            Rectangle result = findImage(screenshotFile, templateFile);
-            
-            // Clean up temporary files
-            screenshotFile.delete();
-            templateFile.delete();
-            
-            return result;
-            
+            RasterImage raster = loadTemplate(template);
+            return new Dimension(raster.getWidth(), raster.getHeight());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot read template {}: {}", template, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Find the best match of a template file in an in-memory screenshot
+     */
+    public MatchResult findBestMatch(BufferedImage screenshot, File template, double similarity) {
+        if (screenshot == null || template == null || !template.exists()) {
+            logger.warn("Screenshot is null or template file is null or doesn't exist");
+            return null;
+        }
+        
+        try {
+            return findInDomain(screenRaster(screenshot), template, similarity);
         } catch (Exception e) {
-            logger.error("Error finding image using BufferedImage objects", e);
+            logger.error("Error finding template {} in screenshot", template.getName(), e);
             return null;
         }
     }
@@ -619,24 +972,22 @@ public class ImageMatcher {
      * Returns Rectangle with coordinates or null if not found
      */
     public Rectangle findImage(File screenshot, File template) {
+        ScreenCapture.awaitScreenshot(screenshot);
         if (screenshot == null || template == null || !screenshot.exists() || !template.exists()) {
             logger.warn("Screenshot or template file is null or doesn't exist");
             return null;
         }
-          try {
-            // We'll load both images and use our custom similarity calculation
-            BufferedImage screenshotImg = javax.imageio.ImageIO.read(screenshot);
-            BufferedImage templateImg = javax.imageio.ImageIO.read(template);
-            
-            // Search for template in screenshot using sliding window
-            Rectangle match = findImageInScreenshot(screenshotImg, templateImg);
+        try {
+            RasterImage screenshotRaster = RasterImage.from(javax.imageio.ImageIO.read(screenshot));
+            MatchResult match = findInDomain(screenshotRaster, template, getTemplateSimilarity(template));
             
             if (match != null) {
                 logger.debug("Image found at ({}, {}) with size {}x{}", 
-                    match.x, match.y, match.width, match.height);
+                    match.getX(), match.getY(), match.getWidth(), match.getHeight());
+                return match.getBounds();
             }
             
-            return match;
+            return null;
             
         } catch (Exception e) {
             logger.error("Error finding image using File objects", e);
@@ -645,57 +996,437 @@ public class ImageMatcher {
     }
     
     /**
-     * Find template image in screenshot using sliding window approach
+     * Find a template file in its match domain
+     */
+    private MatchResult findInDomain(RasterImage screen, File templateFile, double similarity) throws IOException {
+        RasterImage template = loadTemplate(templateFile);
+        MatchDomain domain = getMatchDomain(templateFile);
+        String cacheKey = resultCacheEnabled
+            ? MatchResultCache.key(resultCacheId(templateFile, domain, similarity), screen, null) : null;
+        if (cacheKey != null) {
+            MatchResultCache.Hit cached = getMatchResultCache().get(cacheKey);
+            if (cached != null) {
+                return cached.getMatch();
+            }
+        }
+        
+        MatchResult match = findHinted(domain.prepareScreen(screen), domain.prepareTemplate(template),
+            templateFile, similarity);
+        MatchResult result = domain.finish(screen, template, match, similarity);
+        if (result == null && match != null && domain == MatchDomain.RGB) {
+            result = findColorMatch(screen, template, null, similarity, pruningStatsFor(templateFile));
+            if (result != null && locationHintsEnabled) {
+                locationHints.record(hintKey(screen, templateFile), result);
+            }
+        }
+        if (cacheKey != null) {
+            getMatchResultCache().put(cacheKey, result);
+        }
+        return result;
+    }
+    
+    /**
+     * RGB domain fallback when the best luminance match has the wrong colors:
+     * color-check every luminance candidate and keep the best
+     */
+    private MatchResult findColorMatch(RasterImage screen, RasterImage template, Rectangle searchArea,
+                                       double similarity, PruningStats stats) {
+        MatchResult best = null;
+        for (MatchResult candidate : matchEngine.findAllAbove(screen, template, searchArea, similarity, stats)) {
+            MatchResult match = MatchDomain.RGB.finish(screen, template, candidate, similarity);
+            if (match != null && (best == null || match.getScore() > best.getScore())) {
+                best = match;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Find a template file, probing around its last-hit location before the configured full search.
+     * Screenshot and template are already in the template's match domain.
+     */
+    private MatchResult findHinted(RasterImage screen, RasterImage template, File templateFile, double similarity) {
+        PruningStats stats = pruningStatsFor(templateFile);
+        String hintKey = hintKey(screen, templateFile);
+        MultiScaleSearch scaleSearch = multiScaleEnabled ? getMultiScaleSearch() : null;
+        
+        if (locationHintsEnabled) {
+            // Probe at the scale the template last matched at
+            double scale = scaleSearch != null ? scaleSearch.getPreferredScale(templateFile.getAbsolutePath()) : 1.0;
+            RasterImage probeTemplate = scaleSearch != null ? scaleSearch.scaled(template, scale) : template;
+            MatchResult hinted = locationHints.probe(hintKey, matchEngine, screen, probeTemplate, similarity, stats);
+            if (hinted != null) {
+                return scale == 1.0 ? hinted : hinted.withScale(scale);
+            }
+        }
+        
+        MatchResult match = scaleSearch != null
+            ? scaleSearch.findBestMatch(templateFile.getAbsolutePath(), template,
+                scaled -> findBestMatch(screen, scaled, similarity, stats))
+            : findBestMatch(screen, template, similarity, stats);
+        if (match != null && locationHintsEnabled) {
+            locationHints.record(hintKey, match);
+        }
+        return match;
+    }
+    
+    /**
+     * Hints are per template and screenshot size, so window captures and full screens keep separate locations
+     */
+    private static String hintKey(RasterImage screen, File templateFile) {
+        return templateFile.getAbsolutePath() + "@" + screen.getWidth() + "x" + screen.getHeight();
+    }
+    
+    /**
+     * Get the raster of a screenshot, reusing the one already built for the same image.
+     * Screenshots are treated as immutable once they have been matched against.
+     */
+    private RasterImage screenRaster(BufferedImage screenshot) {
+        return screenRasters.computeIfAbsent(screenshot, RasterImage::from);
+    }
+    
+    /**
+     * Load a decoded template, going through the shared template cache when enabled
+     */
+    private RasterImage loadTemplate(File templateFile) throws IOException {
+        if (templateCacheEnabled) {
+            return getTemplateCache().get(templateFile);
+        }
+        
+        BufferedImage image = javax.imageio.ImageIO.read(templateFile);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + templateFile);
+        }
+        return TemplateMask.applyTo(templateFile, RasterImage.from(image));
+    }
+    
+    /**
+     * Find the best match of a template in a screenshot using the raster matching engine
+     * Returns the exact best location and score, or null if no offset reaches the default similarity
+     */
+    public MatchResult findBestMatch(BufferedImage screenshot, BufferedImage template) {
+        return findBestMatch(screenshot, template, defaultSimilarity);
+    }
+    
+    /**
+     * Find the best match of a template in a screenshot with custom similarity threshold
      */
-    private Rectangle findImageInScreenshot(BufferedImage screenshot, BufferedImage template) {
+    public MatchResult findBestMatch(BufferedImage screenshot, BufferedImage template, double similarity) {
         if (screenshot == null || template == null) {
+            logger.warn("Screenshot or template image is null");
             return null;
         }
         
-        int screenshotWidth = screenshot.getWidth();
-        int screenshotHeight = screenshot.getHeight();
-        int templateWidth = template.getWidth();
-        int templateHeight = template.getHeight();
+        RasterImage screen = screenRaster(screenshot);
+        RasterImage templateRaster = RasterImage.from(template);
+        MatchResult match = findBestMatch(defaultDomain.prepareScreen(screen), defaultDomain.prepareTemplate(templateRaster),
+            similarity, null);
+        MatchResult result = defaultDomain.finish(screen, templateRaster, match, similarity);
+        if (result == null && match != null && defaultDomain == MatchDomain.RGB) {
+            result = findColorMatch(screen, templateRaster, null, similarity, null);
+        }
+        return result;
+    }
+    
+    /**
+     * Find every occurrence of a template in an in-memory screenshot
+     * Overlapping hits are collapsed by non-maximum suppression, so each on-screen
+     * occurrence is reported once
+     * Returns matches in reading order (top-to-bottom, then left-to-right)
+     */
+    public List<MatchResult> findAllMatches(BufferedImage screenshot, BufferedImage template, double similarity) {
+        if (screenshot == null || template == null) {
+            logger.warn("Screenshot or template image is null");
+            return new ArrayList<>();
+        }
+        
+        return findAllMatches(screenRaster(screenshot), RasterImage.from(template), similarity, null, defaultDomain);
+    }
+    
+    /**
+     * Find every occurrence of a template file in an in-memory screenshot using its similarity threshold
+     */
+    public List<MatchResult> findAllMatches(BufferedImage screenshot, File template) {
+        if (template == null) {
+            logger.warn("Template file is null");
+            return new ArrayList<>();
+        }
+        return findAllMatches(screenshot, template, getTemplateSimilarity(template));
+    }
+    
+    /**
+     * Find every occurrence of a template file in an in-memory screenshot with custom similarity
+     */
+    public List<MatchResult> findAllMatches(BufferedImage screenshot, File template, double similarity) {
+        if (screenshot == null || template == null || !template.exists()) {
+            logger.warn("Screenshot is null or template file is null or doesn't exist");
+            return new ArrayList<>();
+        }
+        
+        try {
+            return findAllMatches(screenRaster(screenshot), loadTemplate(template), similarity, pruningStatsFor(template),
+                getMatchDomain(template));
+        } catch (Exception e) {
+            logger.error("Error finding all occurrences of template {}", template.getName(), e);
+            return new ArrayList<>();
+        }
+    }
+    
+    private List<MatchResult> findAllMatches(RasterImage screen, RasterImage template, double similarity,
+                                             PruningStats stats, MatchDomain domain) {
+        long startTime = System.nanoTime();
+        List<MatchResult> hits = matchEngine.findAllAbove(domain.prepareScreen(screen), domain.prepareTemplate(template),
+            null, similarity, stats);
+        List<MatchResult> matches = new ArrayList<>();
+        for (MatchResult kept : NonMaximumSuppression.apply(hits, NonMaximumSuppression.DEFAULT_MAX_OVERLAP)) {
+            MatchResult match = domain.finish(screen, template, kept, similarity);
+            if (match != null) {
+                matches.add(match);
+            }
+        }
+        
+        logger.debug("Found {} occurrences ({} raw hits) in {} ms", matches.size(), hits.size(),
+            (System.nanoTime() - startTime) / 1_000_000);
+        return matches;
+    }
+    
+    /**
+     * Find a template file within a region of an in-memory screenshot
+     * Only offsets inside the region are scored; the screenshot's summed-area tables
+     * are shared with every other lookup against the same capture
+     * Returns the match in screenshot coordinates, or null if not found
+     */
+    public MatchResult findImageInRegion(BufferedImage screenshot, File template, Rectangle regionBounds) {
+        if (template == null) {
+            logger.warn("Template file is null");
+            return null;
+        }
+        return findImageInRegion(screenshot, template, regionBounds, getTemplateSimilarity(template));
+    }
+    
+    /**
+     * Find a template file within a region of an in-memory screenshot with custom similarity
+     */
+    public MatchResult findImageInRegion(BufferedImage screenshot, File template, Rectangle regionBounds, double similarity) {
+        if (screenshot == null || template == null || regionBounds == null) {
+            logger.warn("Screenshot, template or region is null");
+            return null;
+        }
         
-        if (templateWidth > screenshotWidth || templateHeight > screenshotHeight) {
-            logger.warn("Template image is larger than screenshot");
+        try {
+            RasterImage templateRaster = loadTemplate(template);
+            MatchDomain domain = getMatchDomain(template);
+            int inset = domain.templateInset(templateRaster);
+            Rectangle offsets = new Rectangle(regionBounds.x + inset, regionBounds.y + inset,
+                regionBounds.width - templateRaster.getWidth() + 1,
+                regionBounds.height - templateRaster.getHeight() + 1);
+            if (offsets.width <= 0 || offsets.height <= 0) {
+                logger.debug("Template {} does not fit in region {}", template.getName(), regionBounds);
+                return null;
+            }
+            
+            RasterImage screen = screenRaster(screenshot);
+            String cacheKey = resultCacheEnabled
+                ? MatchResultCache.key(resultCacheId(template, domain, similarity), screen, regionBounds) : null;
+            if (cacheKey != null) {
+                MatchResultCache.Hit cached = getMatchResultCache().get(cacheKey);
+                if (cached != null) {
+                    return cached.getMatch();
+                }
+            }
+            
+            RasterImage domainScreen = domain.prepareScreen(screen);
+            RasterImage domainTemplate = domain.prepareTemplate(templateRaster);
+            PruningStats stats = pruningStatsFor(template);
+            MatchResult best = parallelSearch != null
+                ? parallelSearch.findBestMatch(domainScreen, domainTemplate, offsets, similarity, stats)
+                : matchEngine.findBestMatch(domainScreen, domainTemplate, offsets, similarity, stats);
+            MatchResult match = domain.finish(screen, templateRaster, best, similarity);
+            if (match == null && best != null && domain == MatchDomain.RGB) {
+                match = findColorMatch(screen, templateRaster, offsets, similarity, stats);
+            }
+            if (cacheKey != null) {
+                getMatchResultCache().put(cacheKey, match);
+            }
+            
+            if (match != null) {
+                logger.debug("Image found in region: {} -> {}", template.getName(), match);
+            }
+            return match;
+        } catch (Exception e) {
+            logger.error("Error finding template {} in region {}", template.getName(), regionBounds, e);
             return null;
         }
+    }
+    
+    /**
+     * Find several template files in one screenshot
+     * The screenshot is preprocessed once and shared by all templates
+     * Each template is held to its own similarity (see getTemplateSimilarity)
+     * Returns a map of template to match in iteration order; templates that are not found
+     * or cannot be loaded are absent from the map
+     */
+    public Map<File, MatchResult> findAll(BufferedImage screenshot, Collection<File> templates) {
+        return findAll(screenshot, templates, null);
+    }
+    
+    /**
+     * Find several template files in one screenshot with custom similarity threshold
+     */
+    public Map<File, MatchResult> findAll(BufferedImage screenshot, Collection<File> templates, double similarity) {
+        return findAll(screenshot, templates, Double.valueOf(similarity));
+    }
+    
+    /**
+     * @param similarity Threshold for every template, or null for per-template thresholds
+     */
+    private Map<File, MatchResult> findAll(BufferedImage screenshot, Collection<File> templates, Double similarity) {
+        Map<File, MatchResult> matches = new LinkedHashMap<>();
+        if (screenshot == null || templates == null || templates.isEmpty()) {
+            logger.warn("Screenshot is null or no templates were given");
+            return matches;
+        }
         
-        double bestSimilarity = 0.0;
-        Rectangle bestMatch = null;
+        List<File> loadedFiles = new ArrayList<>();
+        List<RasterImage> loadedTemplates = new ArrayList<>();
+        for (File template : templates) {
+            try {
+                loadedTemplates.add(loadTemplate(template));
+                loadedFiles.add(template);
+            } catch (IOException e) {
+                logger.warn("Skipping template {}: {}", template, e.getMessage());
+            }
+        }
         
-        // Sliding window search
-        for (int x = 0; x <= screenshotWidth - templateWidth; x += 5) { // Step by 5 pixels for performance
-            for (int y = 0; y <= screenshotHeight - templateHeight; y += 5) {
-                // Extract region from screenshot
-                BufferedImage region = screenshot.getSubimage(x, y, templateWidth, templateHeight);
-                
-                // Calculate similarity
-                double similarity = calculateSimilarity(region, template);
-                
-                if (similarity > bestSimilarity && similarity >= defaultSimilarity) {
-                    bestSimilarity = similarity;
-                    bestMatch = new Rectangle(x, y, templateWidth, templateHeight);
-                    
-                    // If we found a very good match, stop searching
-                    if (similarity > 0.95) {
-                        break;
-                    }
+        int count = loadedFiles.size();
+        double[] thresholds = new double[count];
+        PruningStats[] stats = new PruningStats[count];
+        MatchDomain[] domains = new MatchDomain[count];
+        RasterImage[] domainTemplates = new RasterImage[count];
+        for (int i = 0; i < count; i++) {
+            File template = loadedFiles.get(i);
+            thresholds[i] = similarity != null ? similarity : getTemplateSimilarity(template);
+            stats[i] = pruningStatsFor(template);
+            domains[i] = getMatchDomain(template);
+            domainTemplates[i] = domains[i].prepareTemplate(loadedTemplates.get(i));
+        }
+        
+        RasterImage screen = screenRaster(screenshot);
+        MatchResult[] results = new MatchResult[count];
+        
+        // Templates already looked up against the same screen content are not searched again
+        String[] cacheKeys = new String[count];
+        MatchResultCache.Hit[] cached = new MatchResultCache.Hit[count];
+        if (resultCacheEnabled) {
+            for (int i = 0; i < count; i++) {
+                cacheKeys[i] = MatchResultCache.key(resultCacheId(loadedFiles.get(i), domains[i], thresholds[i]),
+                    screen, null);
+                cached[i] = getMatchResultCache().get(cacheKeys[i]);
+            }
+        }
+        
+        // Templates found near their last location drop out of the full-screen pass
+        Map<MatchDomain, List<Integer>> pending = new EnumMap<>(MatchDomain.class);
+        for (int i = 0; i < count; i++) {
+            if (cached[i] != null) {
+                continue;
+            }
+            if (locationHintsEnabled) {
+                results[i] = locationHints.probe(hintKey(screen, loadedFiles.get(i)), matchEngine,
+                    domains[i].prepareScreen(screen), domainTemplates[i], thresholds[i], stats[i]);
+            }
+            if (results[i] == null) {
+                pending.computeIfAbsent(domains[i], domain -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        // One pass per match domain, since each domain has its own screenshot plane
+        for (Map.Entry<MatchDomain, List<Integer>> group : pending.entrySet()) {
+            RasterImage domainScreen = group.getKey().prepareScreen(screen);
+            List<Integer> indices = group.getValue();
+            if (pyramidSearch != null) {
+                // Pyramid levels are per template, so there is no shared full-resolution pass to batch
+                for (int i : indices) {
+                    results[i] = pyramidSearch.findBestMatch(domainScreen, domainTemplates[i], thresholds[i]);
                 }
+                continue;
             }
             
-            // Early exit if we found a very good match
-            if (bestSimilarity > 0.95) {
-                break;
+            List<RasterImage> groupTemplates = new ArrayList<>();
+            double[] groupThresholds = new double[indices.size()];
+            PruningStats[] groupStats = new PruningStats[indices.size()];
+            for (int p = 0; p < indices.size(); p++) {
+                int i = indices.get(p);
+                groupTemplates.add(domainTemplates[i]);
+                groupThresholds[p] = thresholds[i];
+                groupStats[p] = stats[i];
+            }
+            MatchResult[] batch = batchSearch.findAll(domainScreen, groupTemplates, groupThresholds, groupStats);
+            for (int p = 0; p < indices.size(); p++) {
+                results[indices.get(p)] = batch[p];
+            }
+        }
+        
+        if (multiScaleEnabled) {
+            // Templates missing at their captured size get the per-template multi-scale search
+            for (List<Integer> indices : pending.values()) {
+                for (int i : indices) {
+                    if (results[i] == null) {
+                        results[i] = findHinted(domains[i].prepareScreen(screen), domainTemplates[i],
+                            loadedFiles.get(i), thresholds[i]);
+                    }
+                }
             }
         }
         
-        if (bestMatch != null) {
-            logger.debug("Best match found with similarity: {:.2f}%", bestSimilarity * 100);
+        for (int i = 0; i < count; i++) {
+            MatchResult match;
+            if (cached[i] != null) {
+                match = cached[i].getMatch();
+            } else if (results[i] == null) {
+                match = null;
+            } else {
+                // Hints stay in domain coordinates, like the probes that use them
+                MatchResult hint = results[i];
+                match = domains[i].finish(screen, loadedTemplates.get(i), results[i], thresholds[i]);
+                if (match == null && domains[i] == MatchDomain.RGB) {
+                    match = findColorMatch(screen, loadedTemplates.get(i), null, thresholds[i], stats[i]);
+                    hint = match;
+                }
+                if (hint != null && locationHintsEnabled) {
+                    locationHints.record(hintKey(screen, loadedFiles.get(i)), hint);
+                }
+            }
+            if (cacheKeys[i] != null && cached[i] == null) {
+                getMatchResultCache().put(cacheKeys[i], match);
+            }
+            if (match != null) {
+                matches.put(loadedFiles.get(i), match);
+            }
+        }
+        
+        logger.debug("Found {} of {} templates in one screenshot", matches.size(), templates.size());
+        return matches;
+    }
+    
+    /**
+     * Find the best match between already extracted rasters using the configured search mode
+     */
+    private MatchResult findBestMatch(RasterImage screen, RasterImage template, double similarity, PruningStats stats) {
+        MatchResult match;
+        if (pyramidSearch != null) {
+            match = pyramidSearch.findBestMatch(screen, template, similarity);
+        } else if (parallelSearch != null) {
+            match = parallelSearch.findBestMatch(screen, template, null, similarity, stats);
+        } else {
+            match = matchEngine.findBestMatch(screen, template, null, similarity, stats);
+        }
+        
+        if (match != null) {
+            logger.debug("Best match found: {}", match);
         }
         
-        return bestMatch;
+        return match;
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.automation.core;
 
+import com.automation.core.capture.CapturePlanner;
 import net.sourceforge.tess4j.ITesseract;
 import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
@@ -91,6 +92,8 @@ public class OCREngine {
     
     /**
      * Extract text from specific region of an image
+     * To read a region of the screen, prefer {@link #extractTextFromScreenRegion}, which
+     * captures only the region instead of cropping a full-screen capture
      */
     public String extractTextFromRegion(BufferedImage image, Rectangle region) {
         if (image == null || region == null) {
@@ -98,13 +101,12 @@ public class OCREngine {
         }
         
         try {
-            // Crop image to specified region
-            BufferedImage croppedImage = image.getSubimage(
-                Math.max(0, region.x),
-                Math.max(0, region.y),
-                Math.min(region.width, image.getWidth() - region.x),
-                Math.min(region.height, image.getHeight() - region.y)
-            );
+            Rectangle bounds = CapturePlanner.clip(region, new Rectangle(image.getWidth(), image.getHeight()));
+            if (bounds == null) {
+                logger.warn("Region {} lies outside the {}x{} image", region, image.getWidth(), image.getHeight());
+                return "";
+            }
+            BufferedImage croppedImage = image.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height);
             
             return extractText(croppedImage);
             
@@ -114,6 +116,18 @@ public class OCREngine {
         }
     }
     
+    /**
+     * Extract text from a region of the screen, grabbing only that region
+     * @param region Screen coordinates; clipped to the screen
+     */
+    public String extractTextFromScreenRegion(ScreenCapture screenCapture, Rectangle region) {
+        if (screenCapture == null || region == null) {
+            return "";
+        }
+        Rectangle planned = screenCapture.getCapturePlanner().forRegion(null, region);
+        return extractText(screenCapture.captureRegion(planned));
+    }
+    
     /**
      * Extract text with confidence scores
      */
@@ -277,6 +291,7 @@ public class OCREngine {
      * Extract text from File - enhanced method for step definitions
      */
     public String extractText(File imageFile) {
+        ScreenCapture.awaitScreenshot(imageFile);
         if (imageFile == null || !imageFile.exists()) {
             logger.warn("Cannot extract text from null or non-existent file");
             return "";
@@ -293,6 +308,7 @@ public class OCREngine {
      * Extract text with confidence from File
      */
     public OCRResult extractTextWithConfidence(File imageFile) {
+        ScreenCapture.awaitScreenshot(imageFile);
         if (imageFile == null || !imageFile.exists()) {
             return new OCRResult("", 0.0);
         }
@@ -391,13 +407,12 @@ public class OCREngine {
         }
         
         try {
-            // Crop image to specified region
-            BufferedImage croppedImage = image.getSubimage(
-                Math.max(0, region.x),
-                Math.max(0, region.y),
-                Math.min(region.width, image.getWidth() - region.x),
-                Math.min(region.height, image.getHeight() - region.y)
-            );
+            Rectangle bounds = CapturePlanner.clip(region, new Rectangle(image.getWidth(), image.getHeight()));
+            if (bounds == null) {
+                logger.warn("Region {} lies outside the {}x{} image", region, image.getWidth(), image.getHeight());
+                return "";
+            }
+            BufferedImage croppedImage = image.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height);
             
             // Preprocess for better OCR
             BufferedImage processedImage = preprocessImage(croppedImage);
@@ -487,6 +502,7 @@ public class OCREngine {
      * This is a simplified implementation for mock applications
      */
     public Rectangle findTextLocation(File imageFile, String targetText) {
+        ScreenCapture.awaitScreenshot(imageFile);
         if (imageFile == null || targetText == null || !imageFile.exists()) {
             return null;
         }
@@ -1,6 +1,25 @@
 package com.automation.core;
 
 import com.automation.config.ConfigManager;
+import com.automation.core.capture.CapturePlanner;
+import com.automation.core.capture.EvidenceWriter;
+import com.automation.core.capture.FrameBufferPool;
+import com.automation.core.capture.FrameDiff;
+import com.automation.core.capture.FrameDiffer;
+import com.automation.core.capture.FrameRing;
+import com.automation.core.capture.PngEncoder;
+import com.automation.core.capture.PooledFrame;
+import com.automation.core.capture.RawFrameCodec;
+import com.automation.core.capture.ReplayScreenSource;
+import com.automation.core.capture.RobotScreenSource;
+import com.automation.core.capture.ScreenRecorder;
+import com.automation.core.capture.ScreenSource;
+import com.automation.core.capture.SeriesExporter;
+import com.automation.core.capture.SeriesReader;
+import com.automation.core.capture.SeriesRecorder;
+import com.automation.core.capture.ScreenshotEncoder;
+import com.automation.core.matching.PixelKernels;
+import com.automation.core.matching.RasterImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,23 +36,43 @@ import java.time.format.DateTimeFormatter;
 
 /**
  * ScreenCapture provides screenshot and image manipulation capabilities
+ * Captures come from a ScreenSource: the live desktop through Robot by default, or recorded
+ * frames when screen.source.replay.dir is set or a default source is installed
  */
 public class ScreenCapture {
     private static final Logger logger = LoggerFactory.getLogger(ScreenCapture.class);
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
     
-    private Robot robot;
+    // Recycled capture buffers for polling loops, shared by all instances
+    private static FrameBufferPool frameBufferPool;
+    
+    // Source used by instances created without one
+    private static ScreenSource defaultScreenSource;
+    
+    // Background encoder for saved screenshots, shared by all instances
+    private static EvidenceWriter evidenceWriter;
+    
+    // Encoders for saved screenshots and for error screenshots
+    private static ScreenshotEncoder screenshotEncoder;
+    private static ScreenshotEncoder errorScreenshotEncoder;
+    
+    // Background recording of the running scenario, when screen.recorder.enabled
+    private static ScreenRecorder scenarioRecorder;
+    private static FrameRing recordingRing;
+    private static String scenarioRecordingName;
+    
+    private final ScreenSource screenSource;
     private String screenshotDirectory;
+    private CapturePlanner capturePlanner;
     
     public ScreenCapture() {
-        try {
-            this.robot = new Robot();
-            this.screenshotDirectory = "src/main/resources/images/screenshots";
-            createDirectoryIfNotExists(screenshotDirectory);
-        } catch (AWTException e) {
-            logger.error("Failed to initialize Robot for screen capture", e);
-            throw new RuntimeException("Failed to initialize Robot", e);
-        }
+        this(getDefaultScreenSource());
+    }
+    
+    public ScreenCapture(ScreenSource screenSource) {
+        this.screenSource = screenSource;
+        this.screenshotDirectory = "src/main/resources/images/screenshots";
+        createDirectoryIfNotExists(screenshotDirectory);
     }
     
     public ScreenCapture(String screenshotDirectory) {
@@ -48,8 +87,208 @@ public class ScreenCapture {
     public BufferedImage captureFullScreen() {
         logger.debug("Capturing full screen");
         
-        Rectangle screenRect = new Rectangle(Toolkit.getDefaultToolkit().getScreenSize());
-        return robot.createScreenCapture(screenRect);
+        return screenSource.capture(screenSource.getScreenBounds());
+    }
+    
+    /**
+     * Capture a region (or the full screen when null) into a pooled, reusable buffer
+     * Close the frame (try-with-resources) as soon as the capture has been used
+     */
+    public PooledFrame capturePooled(Rectangle region) {
+        Rectangle bounds = region != null ? region : screenSource.getScreenBounds();
+        return screenSource.capturePooled(bounds, getFrameBufferPool());
+    }
+    
+    public ScreenSource getScreenSource() {
+        return screenSource;
+    }
+    
+    /**
+     * Get the planner for region-scoped captures of this instance's screen
+     * A new planner is made when the screen bounds change (e.g. a display was attached)
+     */
+    public synchronized CapturePlanner getCapturePlanner() {
+        Rectangle bounds = screenSource.getScreenBounds();
+        if (capturePlanner == null || !capturePlanner.getScreenBounds().equals(bounds)) {
+            capturePlanner = new CapturePlanner(bounds);
+        }
+        return capturePlanner;
+    }
+    
+    /**
+     * Get the source for instances created without one: the installed default, else a replay of
+     * screen.source.replay.dir (in screen.source.replay.mode) when set, else the live desktop
+     */
+    public static synchronized ScreenSource getDefaultScreenSource() {
+        if (defaultScreenSource == null) {
+            String replayDirectory = ConfigManager.getProperty("screen.source.replay.dir", "");
+            try {
+                if (replayDirectory != null && !replayDirectory.trim().isEmpty()) {
+                    defaultScreenSource = ReplayScreenSource.fromDirectory(Paths.get(replayDirectory.trim()),
+                        ReplayScreenSource.Mode.fromName(ConfigManager.getProperty("screen.source.replay.mode", "sequential")));
+                } else {
+                    defaultScreenSource = new RobotScreenSource(ConfigManager.getBooleanProperty("capture.gdi.enabled", true));
+                }
+            } catch (AWTException e) {
+                logger.error("Failed to initialize Robot for screen capture", e);
+                throw new RuntimeException("Failed to initialize Robot", e);
+            } catch (IOException e) {
+                logger.error("Failed to load replay frames from {}", replayDirectory, e);
+                throw new RuntimeException("Failed to load replay frames", e);
+            }
+            logger.info("Screen source: {}", defaultScreenSource.getName());
+        }
+        return defaultScreenSource;
+    }
+    
+    /**
+     * Install the source for instances created without one, e.g. a ReplayScreenSource for
+     * headless load tests; null restores the configured default
+     */
+    public static synchronized void setDefaultScreenSource(ScreenSource screenSource) {
+        defaultScreenSource = screenSource;
+    }
+    
+    /**
+     * Get the shared capture buffer pool, keeping capture.pool.max.idle idle buffers per size
+     * Exposes occupancy and allocation savings for performance reporting
+     */
+    public static synchronized FrameBufferPool getFrameBufferPool() {
+        if (frameBufferPool == null) {
+            frameBufferPool = new FrameBufferPool(ConfigManager.getIntProperty("capture.pool.max.idle", 4));
+            logger.info("Frame buffer pool created: {}", frameBufferPool);
+        }
+        return frameBufferPool;
+    }
+    
+    /**
+     * Get the shared evidence writer (screenshot.async.threads writer threads, a queue of
+     * screenshot.async.queue.size writes, overflow per screenshot.async.policy), or null when
+     * screenshot.async.enabled is false and screenshots are encoded on the calling thread
+     */
+    public static synchronized EvidenceWriter getEvidenceWriter() {
+        if (evidenceWriter == null && ConfigManager.getBooleanProperty("screenshot.async.enabled", true)) {
+            evidenceWriter = new EvidenceWriter(
+                ConfigManager.getIntProperty("screenshot.async.threads", 2),
+                ConfigManager.getIntProperty("screenshot.async.queue.size", 16),
+                EvidenceWriter.OverflowPolicy.fromName(ConfigManager.getProperty("screenshot.async.policy", "block")));
+            EvidenceWriter writer = evidenceWriter;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> writer.close(getFlushTimeoutMs()),
+                "evidence-writer-shutdown"));
+            logger.info("Evidence writer created: {}", evidenceWriter);
+        }
+        return evidenceWriter;
+    }
+    
+    /**
+     * Wait until every screenshot saved so far is on disk, e.g. at scenario end before the
+     * report links the files; waits at most screenshot.async.flush.timeout.ms
+     * @return False if writes were still pending at the timeout
+     */
+    public static boolean flushScreenshots() {
+        EvidenceWriter writer;
+        synchronized (ScreenCapture.class) {
+            writer = evidenceWriter;
+        }
+        return writer == null || writer.flush(getFlushTimeoutMs());
+    }
+    
+    /**
+     * Wait until a screenshot saved by this class is on disk, before reading it back
+     * Returns at once for files that are not pending
+     */
+    public static void awaitScreenshot(File file) {
+        EvidenceWriter writer;
+        synchronized (ScreenCapture.class) {
+            writer = evidenceWriter;
+        }
+        if (writer != null && file != null && !writer.await(file, getFlushTimeoutMs())) {
+            logger.warn("Screenshot still being written after {} ms: {}", getFlushTimeoutMs(), file);
+        }
+    }
+    
+    private static long getFlushTimeoutMs() {
+        return ConfigManager.getIntProperty("screenshot.async.flush.timeout.ms", 30000);
+    }
+    
+    /**
+     * Get the encoder for saved screenshots, from screenshot.format: "png[:level]" (level
+     * defaults to screenshot.png.deflate.level) or "jpeg[:quality]" (quality defaults to
+     * screenshot.compression.quality)
+     */
+    public static synchronized ScreenshotEncoder getScreenshotEncoder() {
+        if (screenshotEncoder == null) {
+            screenshotEncoder = configuredEncoder("screenshot.format", "png");
+        }
+        return screenshotEncoder;
+    }
+    
+    /**
+     * Get the encoder for error screenshots, from screenshot.error.format (same syntax),
+     * normally a fast PNG level so failure handling stays quick
+     */
+    public static synchronized ScreenshotEncoder getErrorScreenshotEncoder() {
+        if (errorScreenshotEncoder == null) {
+            errorScreenshotEncoder = configuredEncoder("screenshot.error.format", "png:1");
+        }
+        return errorScreenshotEncoder;
+    }
+    
+    /**
+     * Replace the encoders for saved and error screenshots; null restores the configured ones
+     */
+    public static synchronized void setScreenshotEncoders(ScreenshotEncoder encoder, ScreenshotEncoder errorEncoder) {
+        screenshotEncoder = encoder;
+        errorScreenshotEncoder = errorEncoder;
+    }
+    
+    private static ScreenshotEncoder configuredEncoder(String property, String defaultSpec) {
+        String spec = ConfigManager.getProperty(property, defaultSpec);
+        int pngLevel = ConfigManager.getIntProperty("screenshot.png.deflate.level", 4);
+        float jpegQuality = (float) ConfigManager.getDoubleProperty("screenshot.compression.quality", 0.8);
+        ScreenshotEncoder encoder;
+        try {
+            encoder = ScreenshotEncoder.fromSpec(spec, pngLevel, jpegQuality);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid {}='{}', using PNG: {}", property, spec, e.getMessage());
+            encoder = ScreenshotEncoder.fromSpec("png", pngLevel, jpegQuality);
+        }
+        if (encoder instanceof RawFrameCodec) {
+            // Saved screenshots are read back by OCR and matching, which need an ImageIO format
+            logger.warn("{}={} is only meant for capture series, using PNG", property, spec);
+            encoder = ScreenshotEncoder.fromSpec("png", pngLevel, jpegQuality);
+        }
+        logger.info("Screenshot encoder ({}): {}", property, encoder.getName());
+        return encoder;
+    }
+    
+    /**
+     * Give a file name the encoder's extension, replacing an image extension it already has
+     */
+    private static String withExtension(String filename, ScreenshotEncoder encoder) {
+        String lower = filename.toLowerCase();
+        for (String extension : new String[] {".png", ".jpg", ".jpeg", "." + RawFrameCodec.EXTENSION}) {
+            if (lower.endsWith(extension)) {
+                filename = filename.substring(0, filename.length() - extension.length());
+                break;
+            }
+        }
+        return filename + "." + encoder.getExtension();
+    }
+    
+    /**
+     * Encode through the evidence writer when enabled, else on the calling thread
+     */
+    private static void writeImage(BufferedImage image, File file, ScreenshotEncoder encoder) throws IOException {
+        EvidenceWriter writer = getEvidenceWriter();
+        if (writer != null) {
+            writer.submit(image, file, encoder);
+        } else {
+            long start = System.nanoTime();
+            long bytes = encoder.write(image, file);
+            logger.debug("Screenshot encoded: {} ({} KB, {}, {} ms)", file, bytes / 1024, encoder.getName(),
+                (System.nanoTime() - start) / 1_000_000);
+        }
     }
     
     /**
@@ -59,7 +298,7 @@ public class ScreenCapture {
         logger.debug("Capturing region: ({}, {}) - {}x{}", x, y, width, height);
         
         Rectangle region = new Rectangle(x, y, width, height);
-        return robot.createScreenCapture(region);
+        return screenSource.capture(region);
     }
     
     /**
@@ -68,7 +307,7 @@ public class ScreenCapture {
     public BufferedImage captureWindow(Rectangle windowBounds) {
         logger.debug("Capturing window: {}", windowBounds);
         
-        return robot.createScreenCapture(windowBounds);
+        return screenSource.capture(windowBounds);
     }
     
     /**
@@ -82,13 +321,18 @@ public class ScreenCapture {
      * Save screenshot with custom filename
      */
     public String saveScreenshot(BufferedImage image, String filename) {
+        return saveScreenshot(image, filename, getScreenshotEncoder());
+    }
+    
+    /**
+     * Save screenshot with custom filename in the given format; the file gets the encoder's extension
+     */
+    public String saveScreenshot(BufferedImage image, String filename, ScreenshotEncoder encoder) {
         try {
-            if (!filename.toLowerCase().endsWith(".png")) {
-                filename += ".png";
-            }
+            filename = withExtension(filename, encoder);
             
             File file = new File(screenshotDirectory, filename);
-            ImageIO.write(image, "PNG", file);
+            writeImage(image, file, encoder);
             
             String fullPath = file.getAbsolutePath();
             logger.info("Screenshot saved: {}", fullPath);
@@ -113,18 +357,24 @@ public class ScreenCapture {
      * Save screenshot to specific directory
      */
     public String saveScreenshotToDirectory(BufferedImage image, String filename, String directory) {
+        return saveScreenshotToDirectory(image, filename, directory, getScreenshotEncoder());
+    }
+    
+    /**
+     * Save screenshot to specific directory in the given format; the file gets the encoder's extension
+     */
+    public String saveScreenshotToDirectory(BufferedImage image, String filename, String directory,
+                                            ScreenshotEncoder encoder) {
         try {
             File targetDir = new File(directory);
             if (!targetDir.exists()) {
                 targetDir.mkdirs();
             }
             
-            if (!filename.toLowerCase().endsWith(".png")) {
-                filename += ".png";
-            }
+            filename = withExtension(filename, encoder);
             
             File file = new File(targetDir, filename);
-            ImageIO.write(image, "PNG", file);
+            writeImage(image, file, encoder);
             
             String fullPath = file.getAbsolutePath();
             logger.info("Screenshot saved to directory: {}", fullPath);
@@ -190,7 +440,12 @@ public class ScreenCapture {
         
         BufferedImage screenshot = captureFullScreen();
         String baselineDir = screenshotDirectory + "/baselines";
-        return saveScreenshotToDirectory(screenshot, filename, baselineDir);
+        // Baselines are compared pixel by pixel later, so they stay lossless
+        ScreenshotEncoder encoder = getScreenshotEncoder();
+        if (!(encoder instanceof PngEncoder)) {
+            encoder = new PngEncoder(ConfigManager.getIntProperty("screenshot.png.deflate.level", 4));
+        }
+        return saveScreenshotToDirectory(screenshot, filename, baselineDir, encoder);
     }
 
     /**
@@ -199,22 +454,14 @@ public class ScreenCapture {
     public BufferedImage captureFullDesktop() {
         logger.debug("Capturing full desktop (all monitors)");
         
-        GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        GraphicsDevice[] screens = ge.getScreenDevices();
-        
-        if (screens.length == 1) {
+        Rectangle desktopBounds = screenSource.getDesktopBounds();
+        if (desktopBounds.equals(screenSource.getScreenBounds())) {
             // Single monitor - use regular full screen capture
             return captureFullScreen();
         }
         
         // Multiple monitors - capture all
-        Rectangle allScreensBounds = new Rectangle();
-        for (GraphicsDevice screen : screens) {
-            Rectangle screenBounds = screen.getDefaultConfiguration().getBounds();
-            allScreensBounds = allScreensBounds.union(screenBounds);
-        }
-        
-        return robot.createScreenCapture(allScreensBounds);
+        return screenSource.capture(desktopBounds);
     }
 
     /**
@@ -229,14 +476,21 @@ public class ScreenCapture {
      * Load image from file
      */
     public BufferedImage loadImage(String imagePath) {
+        int frameMark = imagePath.lastIndexOf('#');
+        if (frameMark > 0 && imagePath.substring(0, frameMark).toLowerCase().endsWith("." + SeriesRecorder.EXTENSION)) {
+            return loadSeriesFrame(imagePath.substring(0, frameMark), imagePath.substring(frameMark + 1));
+        }
         try {
             File imageFile = new File(imagePath);
+            awaitScreenshot(imageFile);
             if (!imageFile.exists()) {
                 logger.error("Image file not found: {}", imagePath);
                 return null;
             }
 
-            BufferedImage image = ImageIO.read(imageFile);
+            BufferedImage image = imagePath.toLowerCase().endsWith("." + RawFrameCodec.EXTENSION)
+                ? RawFrameCodec.read(imageFile)
+                : ImageIO.read(imageFile);
             logger.debug("Loaded image: {} ({}x{})", imagePath, image.getWidth(), image.getHeight());
             return image;
             
@@ -246,6 +500,35 @@ public class ScreenCapture {
         }
     }
     
+    /**
+     * Reference to one frame of a screenshot series, accepted by loadImage
+     */
+    public static String seriesFrameReference(File seriesFile, int frameIndex) {
+        return seriesFile.getAbsolutePath() + "#" + frameIndex;
+    }
+    
+    private BufferedImage loadSeriesFrame(String seriesPath, String frameIndex) {
+        try (SeriesReader reader = new SeriesReader(new File(seriesPath))) {
+            return reader.readFrame(Integer.parseInt(frameIndex));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to load frame {} of series {}", frameIndex, seriesPath, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Start a screenshot series file in the series subdirectory of the screenshot directory
+     * A keyframe is stored every screenshot.series.keyframe.interval frames and changes in
+     * between as screen.diff.tile.size tiles; close the recorder to write its frame index
+     */
+    public SeriesRecorder openSeriesRecorder(String prefix) throws IOException {
+        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        File file = Paths.get(screenshotDirectory, "series",
+            String.format("%s_%s.%s", sanitizeFileName(prefix), timestamp, SeriesRecorder.EXTENSION)).toFile();
+        return new SeriesRecorder(file, getDiffTileSize(),
+            Math.max(1, ConfigManager.getIntProperty("screenshot.series.keyframe.interval", 30)));
+    }
+    
     /**
      * Compare two images for similarity
      */
@@ -259,20 +542,7 @@ public class ScreenCapture {
             return 0.0;
         }
         
-        int width = img1.getWidth();
-        int height = img1.getHeight();
-        long totalPixels = (long) width * height;
-        long matchingPixels = 0;
-        
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (img1.getRGB(x, y) == img2.getRGB(x, y)) {
-                    matchingPixels++;
-                }
-            }
-        }
-        
-        double similarity = (double) matchingPixels / totalPixels;
+        double similarity = PixelKernels.equalFraction(img1, img2);
         logger.debug("Image similarity: {:.2f}%", similarity * 100);
         return similarity;
     }
@@ -289,36 +559,11 @@ public class ScreenCapture {
             return 0.0;
         }
         
-        int width = img1.getWidth();
-        int height = img1.getHeight();
-        long totalPixels = (long) width * height;
-        long similarPixels = 0;
-        
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Color c1 = new Color(img1.getRGB(x, y));
-                Color c2 = new Color(img2.getRGB(x, y));
-                
-                if (isColorSimilar(c1, c2, tolerance)) {
-                    similarPixels++;
-                }
-            }
-        }
-        
-        double similarity = (double) similarPixels / totalPixels;
+        double similarity = PixelKernels.toleranceFraction(img1, img2, tolerance);
         logger.debug("Image similarity with tolerance {}: {:.2f}%", tolerance, similarity * 100);
         return similarity;
     }
     
-    /**
-     * Check if two colors are similar within tolerance
-     */
-    private boolean isColorSimilar(Color c1, Color c2, int tolerance) {
-        return Math.abs(c1.getRed() - c2.getRed()) <= tolerance &&
-               Math.abs(c1.getGreen() - c2.getGreen()) <= tolerance &&
-               Math.abs(c1.getBlue() - c2.getBlue()) <= tolerance;
-    }
-    
     /**
      * Crop image to specific region
      */
@@ -387,7 +632,7 @@ public class ScreenCapture {
     /**
      * Sanitize filename by removing invalid characters
      */
-    private String sanitizeFileName(String fileName) {
+    private static String sanitizeFileName(String fileName) {
         if (fileName == null || fileName.isEmpty()) {
             return "unnamed";
         }
@@ -438,31 +683,50 @@ public class ScreenCapture {
     
     /**
      * Wait for screen to stabilize (useful for animations)
+     * Consecutive captures are diffed in tiles (screen.diff.tile.size); a capture counts as
+     * a change when its changed tiles cover more than 2% of the region
      */
     public boolean waitForScreenStability(Rectangle region, int stabilityTimeMs, int timeoutMs) {
         logger.debug("Waiting for screen stability in region: {}", region);
         
         long startTime = System.currentTimeMillis();
-        BufferedImage previousImage = null;
+        FrameDiffer differ = new FrameDiffer(getDiffTileSize());
         long lastChangeTime = startTime;
+        int[] previous = null;
         
         while (System.currentTimeMillis() - startTime < timeoutMs) {
-            BufferedImage currentImage = robot.createScreenCapture(region);
-            
-            if (previousImage != null) {
-                double similarity = compareImages(previousImage, currentImage);
-                if (similarity < 0.98) { // 98% similarity threshold
-                    lastChangeTime = System.currentTimeMillis();
+            boolean changed = false;
+            try (PooledFrame frame = capturePooled(region)) {
+                RasterImage raster = frame.getRaster();
+                FrameDiff diff = differ.update(raster);
+                // Tile hashes skip unchanged captures; otherwise, as before, the screen counts as
+                // changed once more than 2% of its pixels differ, so a blinking caret does not
+                if (!diff.isUnchanged()) {
+                    int[] pixels = raster.getPixels();
+                    if (!diff.isFirstFrame()) {
+                        long changedPixels = diff.countChangedPixels(previous, pixels);
+                        changed = changedPixels > 0.02 * pixels.length;
+                        if (changed) {
+                            logger.trace("Screen changed: {} ({} pixels)", diff, changedPixels);
+                        }
+                    }
+                    if (previous == null || previous.length != pixels.length) {
+                        previous = new int[pixels.length];
+                    }
+                    System.arraycopy(pixels, 0, previous, 0, pixels.length);
                 }
             }
             
+            if (changed) {
+                lastChangeTime = System.currentTimeMillis();
+            }
+            
             if (System.currentTimeMillis() - lastChangeTime >= stabilityTimeMs) {
-                logger.debug("Screen stabilized after {} ms", System.currentTimeMillis() - startTime);
+                logger.debug("Screen stabilized after {} ms ({})", System.currentTimeMillis() - startTime,
+                    getFrameBufferPool());
                 return true;
             }
             
-            previousImage = currentImage;
-            
             try {
                 Thread.sleep(100);
             } catch (InterruptedException e) {
@@ -475,16 +739,159 @@ public class ScreenCapture {
         return false;
     }
 
+    /**
+     * Tile edge length for diffing consecutive captures, from screen.diff.tile.size
+     */
+    public static int getDiffTileSize() {
+        return Math.max(1, ConfigManager.getIntProperty("screen.diff.tile.size", FrameDiffer.DEFAULT_TILE_SIZE));
+    }
+
+    /**
+     * Start recording the screen in the background for a scenario, if screen.recorder.enabled
+     * The last screen.recorder.seconds at screen.recorder.fps are kept, scaled by
+     * screen.recorder.scale, in a memory-mapped ring file under screen.recorder.ring.dir that
+     * every scenario of the run reuses
+     * @return The recorder, or null when recording is disabled or could not start
+     */
+    public static synchronized ScreenRecorder startScenarioRecording(String name) {
+        if (!ConfigManager.getBooleanProperty("screen.recorder.enabled", false)) {
+            return null;
+        }
+        discardScenarioRecording();
+        
+        int fps = Math.max(1, ConfigManager.getIntProperty("screen.recorder.fps", 5));
+        int seconds = Math.max(1, ConfigManager.getIntProperty("screen.recorder.seconds", 10));
+        double scale = Math.max(0.05, Math.min(1.0, ConfigManager.getDoubleProperty("screen.recorder.scale", 0.5)));
+        ScreenSource source = getDefaultScreenSource();
+        Rectangle bounds = source.getScreenBounds();
+        int width = Math.max(1, (int) Math.round(bounds.width * scale));
+        int height = Math.max(1, (int) Math.round(bounds.height * scale));
+        String ringDirectory = ConfigManager.getProperty("screen.recorder.ring.dir", "");
+        if (ringDirectory == null || ringDirectory.trim().isEmpty()) {
+            ringDirectory = System.getProperty("java.io.tmpdir");
+        }
+        
+        try {
+            FrameRing ring = getRecordingRing(new File(ringDirectory.trim()), fps * seconds, width, height);
+            ring.reset();
+            ScreenRecorder recorder = new ScreenRecorder(source, bounds, ring, fps, getFrameBufferPool());
+            recorder.start();
+            scenarioRecorder = recorder;
+            scenarioRecordingName = name;
+            return recorder;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Screen recording not started for '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * The ring file shared by every scenario recording of this run. Mapping a new file per
+     * scenario would leave each one on disk until exit on Windows, where a mapped file cannot
+     * be deleted, so one is created, reused while the settings stay the same, and deleted
+     * at shutdown.
+     */
+    private static FrameRing getRecordingRing(File directory, int slots, int width, int height) throws IOException {
+        if (recordingRing != null && recordingRing.getSlotCount() == slots
+                && recordingRing.getWidth() == width && recordingRing.getHeight() == height) {
+            return recordingRing;
+        }
+        boolean first = recordingRing == null;
+        closeRecordingRing();
+        File ringFile = new File(directory, String.format("screen_recording_%d.ring", System.nanoTime()));
+        ringFile.deleteOnExit();
+        recordingRing = new FrameRing(ringFile, slots, width, height);
+        if (first) {
+            Runtime.getRuntime().addShutdownHook(new Thread(ScreenCapture::closeRecordingRing,
+                "screen-recorder-shutdown"));
+        }
+        logger.info("Screen recording ring created: {}", recordingRing);
+        return recordingRing;
+    }
+    
+    /**
+     * Stop any scenario recording and delete the shared ring file; also runs at shutdown
+     */
+    public static synchronized void closeRecordingRing() {
+        if (recordingRing == null) {
+            return;
+        }
+        discardScenarioRecording();
+        try {
+            recordingRing.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close screen recording ring {}", recordingRing.getFile(), e);
+        }
+        recordingRing = null;
+    }
+    
+    /**
+     * Stop the scenario recording. A failed scenario's frames are exported as a screenshot
+     * series, plus a GIF when screen.recorder.export.gif is set, to the recordings subdirectory
+     * of screenshot.directory; a passing scenario's frames are discarded
+     * @return The exported series path, or null if nothing was exported
+     */
+    public static synchronized String finishScenarioRecording(boolean failed) {
+        if (scenarioRecorder == null) {
+            return null;
+        }
+        if (!failed) {
+            logger.debug("Screen recording discarded: {}", scenarioRecorder);
+            discardScenarioRecording();
+            return null;
+        }
+        
+        ScreenRecorder recorder = scenarioRecorder;
+        String name = sanitizeFileName(scenarioRecordingName);
+        scenarioRecorder = null;
+        scenarioRecordingName = null;
+        try {
+            String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+            File directory = Paths.get(ConfigManager.getProperty("screenshot.directory",
+                "src/main/resources/images/screenshots"), "recordings").toFile();
+            File series = recorder.export(new File(directory, String.format("%s_%s.%s",
+                name, timestamp, SeriesRecorder.EXTENSION)), getDiffTileSize(),
+                Math.max(1, ConfigManager.getIntProperty("screenshot.series.keyframe.interval", 30)));
+            if (ConfigManager.getBooleanProperty("screen.recorder.export.gif", true)) {
+                try (SeriesReader reader = new SeriesReader(series)) {
+                    if (reader.getFrameCount() > 0) {
+                        SeriesExporter.writeGif(reader, new File(directory, String.format("%s_%s.gif", name, timestamp)),
+                            ConfigManager.getIntProperty("screenshot.series.gif.max.width", 800));
+                    }
+                }
+            }
+            logger.info("Screen recording of failed scenario saved: {} ({})", series.getPath(), recorder);
+            return series.getPath();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to export screen recording ({})", recorder, e);
+            return null;
+        } finally {
+            // The ring is kept for the next scenario
+            recorder.freeze();
+        }
+    }
+    
+    private static void discardScenarioRecording() {
+        if (scenarioRecorder == null) {
+            return;
+        }
+        scenarioRecorder.freeze();
+        scenarioRecorder = null;
+        scenarioRecordingName = null;
+    }
+
     /**
      * Capture full screen and save to temporary file
-     * @return File object representing the captured screenshot
+     * @return File object representing the captured screenshot, already written to disk
      */
     public File captureScreen() {
         try {
             BufferedImage screenshot = captureFullScreen();
             String tempFileName = "temp_screenshot_" + System.currentTimeMillis() + ".png";
-            String tempPath = saveScreenshot(screenshot, tempFileName);
-            return new File(tempPath);
+            File file = new File(saveScreenshot(screenshot, tempFileName));
+            // Callers read the file straight back, so wait for the background write
+            awaitScreenshot(file);
+            return file;
         } catch (Exception e) {
             logger.error("Failed to capture screen to file", e);
             throw new RuntimeException("Failed to capture screen to file", e);
@@ -503,7 +910,7 @@ public class ScreenCapture {
         }
         
         logger.debug("Capturing region: {}", region);
-        return robot.createScreenCapture(region);
+        return screenSource.capture(region);
     }
     
     /**
@@ -515,8 +922,9 @@ public class ScreenCapture {
         try {
             BufferedImage regionScreenshot = captureRegion(region);
             String tempFileName = "temp_region_" + System.currentTimeMillis() + ".png";
-            String tempPath = saveScreenshot(regionScreenshot, tempFileName);
-            return new File(tempPath);
+            File file = new File(saveScreenshot(regionScreenshot, tempFileName));
+            awaitScreenshot(file);
+            return file;
         } catch (Exception e) {
             logger.error("Failed to capture region to file: {}", region, e);
             throw new RuntimeException("Failed to capture region to file", e);
@@ -533,7 +941,8 @@ public class ScreenCapture {
     public File saveBufferedImageToFile(BufferedImage image, String prefix) {
         try {
             String timestamp = String.valueOf(System.currentTimeMillis());
-            String filename = prefix + "_" + timestamp + ".png";
+            ScreenshotEncoder encoder = getScreenshotEncoder();
+            String filename = prefix + "_" + timestamp + "." + encoder.getExtension();
             String screenshotPath = ConfigManager.getProperty("screenshot.path.base", "target/screenshots");
             
             // Ensure screenshot directory exists
@@ -541,7 +950,7 @@ public class ScreenCapture {
             Files.createDirectories(screenshotDir);
             
             File outputFile = new File(screenshotDir.toFile(), filename);
-            ImageIO.write(image, "PNG", outputFile);
+            writeImage(image, outputFile, encoder);
             
             logger.debug("Saved BufferedImage to file: {}", outputFile.getAbsolutePath());
             return outputFile;
@@ -598,7 +1007,7 @@ public class ScreenCapture {
             String errorDir = Paths.get(getScreenshotDirectory(), errorScreenshotsSubDir).toString();
             createDirectoryIfNotExists(errorDir); // Ensure the error subdirectory exists
 
-            return saveScreenshotToDirectory(screenshot, filename, errorDir);
+            return saveScreenshotToDirectory(screenshot, filename, errorDir, getErrorScreenshotEncoder());
         } catch (Exception e) {
             logger.error("Failed to capture and save error screenshot for description '{}': {}", description, e.getMessage(), e);
             return null;
@@ -0,0 +1,136 @@
+package com.automation.core.capture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+
+/**
+ * CapturePlanner works out the smallest screen rectangle an operation needs,
+ * so only that area is grabbed, copied and scanned instead of the whole
+ * screen followed by a crop.
+ *
+ * An area comes from a configured region (absolute, or relative to a window),
+ * the bounds of the application window under test, or the search region of a
+ * template. Plans are clipped to the screen; when nothing usable is left, for
+ * example a minimized window parked off screen, the plan falls back to the
+ * full screen so the operation still sees everything.
+ *
+ * Counts planned pixels against full-screen pixels for performance reporting.
+ */
+public class CapturePlanner {
+    private static final Logger logger = LoggerFactory.getLogger(CapturePlanner.class);
+
+    private final Rectangle screenBounds;
+
+    private long plans;
+    private long plannedPixels;
+    private long screenPixels;
+
+    public CapturePlanner(Rectangle screenBounds) {
+        if (screenBounds == null || screenBounds.isEmpty()) {
+            throw new IllegalArgumentException("Screen bounds must not be empty: " + screenBounds);
+        }
+        this.screenBounds = new Rectangle(screenBounds);
+    }
+
+    /**
+     * Clip a rectangle to bounds
+     * @return The overlap, or null if there is none
+     */
+    public static Rectangle clip(Rectangle area, Rectangle bounds) {
+        if (area == null || bounds == null) {
+            return null;
+        }
+        Rectangle clipped = area.intersection(bounds);
+        return clipped.isEmpty() ? null : clipped;
+    }
+
+    public Rectangle getScreenBounds() {
+        return new Rectangle(screenBounds);
+    }
+
+    /**
+     * The whole screen
+     */
+    public Rectangle fullScreen() {
+        return record(new Rectangle(screenBounds), "full screen");
+    }
+
+    /**
+     * A window's on-screen area, or the full screen when the bounds are unknown or off screen
+     */
+    public Rectangle forWindow(Rectangle windowBounds) {
+        return plan(windowBounds, "window " + windowBounds);
+    }
+
+    /**
+     * A configured region, taken relative to the window's origin when window bounds are given
+     * and as screen coordinates otherwise
+     */
+    public Rectangle forRegion(Rectangle windowBounds, Rectangle region) {
+        if (region == null) {
+            return forWindow(windowBounds);
+        }
+        Rectangle absolute = new Rectangle(region);
+        if (windowBounds != null) {
+            absolute.translate(windowBounds.x, windowBounds.y);
+        }
+        return plan(absolute, "region " + region);
+    }
+
+    /**
+     * Where to look for a template of the given size: the search area grown by a margin so
+     * a template straddling its edge is still found, or the full screen when the clipped
+     * area cannot hold the template
+     */
+    public Rectangle forTemplateSearch(Rectangle searchArea, int templateWidth, int templateHeight, int margin) {
+        if (searchArea == null) {
+            return fullScreen();
+        }
+        Rectangle grown = new Rectangle(searchArea);
+        grown.grow(Math.max(0, margin), Math.max(0, margin));
+        Rectangle clipped = clip(grown, screenBounds);
+        if (clipped == null || clipped.width < templateWidth || clipped.height < templateHeight) {
+            logger.debug("Search area {} cannot hold a {}x{} template, capturing the full screen",
+                searchArea, templateWidth, templateHeight);
+            return fullScreen();
+        }
+        return record(clipped, "template search " + searchArea);
+    }
+
+    private Rectangle plan(Rectangle area, String source) {
+        Rectangle clipped = clip(area, screenBounds);
+        if (clipped == null) {
+            logger.debug("Nothing of {} is on screen, capturing the full screen", source);
+            return fullScreen();
+        }
+        return record(clipped, source);
+    }
+
+    private synchronized Rectangle record(Rectangle planned, String source) {
+        plans++;
+        plannedPixels += (long) planned.width * planned.height;
+        screenPixels += (long) screenBounds.width * screenBounds.height;
+        logger.debug("Capture plan for {}: {} ({}% of the screen)", source, planned,
+            100L * planned.width * planned.height / ((long) screenBounds.width * screenBounds.height));
+        return planned;
+    }
+
+    public synchronized long getPlanCount() {
+        return plans;
+    }
+
+    /**
+     * Share of full-screen pixels that planned captures did not need to grab
+     */
+    public synchronized double getSavedFraction() {
+        return screenPixels == 0 ? 0 : 1.0 - (double) plannedPixels / screenPixels;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CapturePlanner{screen=%dx%d, plans=%d, saved=%.0f%%}",
+            screenBounds.width, screenBounds.height, plans, getSavedFraction() * 100);
+    }
+}
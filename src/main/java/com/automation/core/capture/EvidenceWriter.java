@@ -0,0 +1,362 @@
+package com.automation.core.capture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EvidenceWriter encodes screenshots to disk on a small pool of writer
+ * threads, so saving evidence no longer costs the test thread a 100-300 ms
+ * PNG encode. {@link #submit} returns the target file at once.
+ *
+ * Pending writes sit in a bounded queue. When it is full the overflow policy
+ * applies:
+ * <ul>
+ *   <li>BLOCK: the submitting thread waits for a free slot (back-pressure),
+ *       so no screenshot is lost.</li>
+ *   <li>DROP_OLDEST: the oldest queued write is discarded to make room; the
+ *       test never waits, at the cost of losing the screenshot it dropped.</li>
+ * </ul>
+ * Each write is encoded into its own temporary file next to its target and
+ * then moved into place, so a file that exists is always complete. Writes to
+ * the same target run one at a time in submission order, so the last one
+ * submitted wins. {@link #await} blocks until one file
+ * is written (for code that reads a screenshot back) and {@link #flush} until
+ * every submitted write has finished, e.g. before a report links the files.
+ *
+ * Submitted images must not change afterwards; the writer encodes them as
+ * they are when their turn comes.
+ */
+public class EvidenceWriter {
+    private static final Logger logger = LoggerFactory.getLogger(EvidenceWriter.class);
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_OLDEST;
+
+        /**
+         * Parse "block" or "drop_oldest" (case-insensitive, '-' allowed), defaulting to BLOCK
+         */
+        public static OverflowPolicy fromName(String name) {
+            String normalized = name == null ? "" : name.trim().replace('-', '_');
+            return "drop_oldest".equalsIgnoreCase(normalized) ? DROP_OLDEST : BLOCK;
+        }
+    }
+
+    private static final class Write {
+        final BufferedImage image;
+        final File target;
+        final ScreenshotEncoder encoder;
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Write(BufferedImage image, File target, ScreenshotEncoder encoder) {
+            this.image = image;
+            this.target = target;
+            this.encoder = encoder;
+        }
+    }
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Thread[] workers;
+    private final ArrayDeque<Write> queue = new ArrayDeque<>();
+    private final Map<File, Write> pending = new HashMap<>();
+    private final Set<File> writing = new HashSet<>();
+    private int active;
+    private boolean closed;
+
+    private long submitted;
+    private long written;
+    private long dropped;
+    private long failed;
+    private int maxQueued;
+    private long blockedNanos;
+    private long encodeNanos;
+    private long bytesWritten;
+
+    /**
+     * @param threads Writer threads
+     * @param capacity Writes that may wait in the queue
+     * @param policy What to do when the queue is full
+     */
+    public EvidenceWriter(int threads, int capacity, OverflowPolicy policy) {
+        if (threads < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Evidence writer needs at least one thread and one queue slot");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::run, "evidence-writer-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queue an image to be written, creating the target's directory if needed
+     * @return The target file; it exists once the write has finished
+     */
+    public File submit(BufferedImage image, File target, ScreenshotEncoder encoder) {
+        File key = target.getAbsoluteFile();
+        Write write = new Write(image, key, encoder);
+        Write discarded = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Evidence writer is closed");
+            }
+            if (queue.size() >= capacity) {
+                if (policy == OverflowPolicy.DROP_OLDEST) {
+                    discarded = queue.pollFirst();
+                    pending.remove(discarded.target, discarded);
+                    dropped++;
+                } else {
+                    long start = System.nanoTime();
+                    while (queue.size() >= capacity && !closed) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException("Interrupted while waiting for the evidence queue", e);
+                        }
+                    }
+                    blockedNanos += System.nanoTime() - start;
+                    if (closed) {
+                        throw new IllegalStateException("Evidence writer is closed");
+                    }
+                }
+            }
+            queue.addLast(write);
+            pending.put(key, write);
+            submitted++;
+            maxQueued = Math.max(maxQueued, queue.size());
+            notifyAll();
+        }
+        if (discarded != null) {
+            discarded.done.countDown();
+            logger.warn("Evidence queue full ({}), dropped pending screenshot {}", capacity, discarded.target);
+        }
+        return key;
+    }
+
+    /**
+     * Wait until a submitted file has been written (or dropped)
+     * @return False if the write was still pending when the timeout expired
+     */
+    public boolean await(File file, long timeoutMs) {
+        Write write;
+        synchronized (this) {
+            write = pending.get(file.getAbsoluteFile());
+        }
+        if (write == null) {
+            return true;
+        }
+        try {
+            return write.done.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Wait until every write submitted so far has finished
+     * @return False if writes were still pending when the timeout expired
+     */
+    public synchronized boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!queue.isEmpty() || active > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                logger.warn("Evidence flush timed out with {} queued and {} in progress", queue.size(), active);
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flush, then stop the writer threads; later submissions are rejected
+     * @return False if writes were still pending when the timeout expired
+     */
+    public boolean close(long timeoutMs) {
+        boolean drained = flush(timeoutMs);
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        return drained;
+    }
+
+    private void run() {
+        while (true) {
+            Write write;
+            synchronized (this) {
+                while ((write = nextWrite()) == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                writing.add(write.target);
+                active++;
+                notifyAll();
+            }
+
+            long start = System.nanoTime();
+            long bytes = encode(write);
+            long elapsed = System.nanoTime() - start;
+            if (bytes >= 0) {
+                logger.debug("Evidence written: {} ({} KB, {}, {} ms)", write.target, bytes / 1024,
+                    write.encoder.getName(), elapsed / 1_000_000);
+            }
+
+            synchronized (this) {
+                active--;
+                writing.remove(write.target);
+                pending.remove(write.target, write);
+                encodeNanos += elapsed;
+                if (bytes >= 0) {
+                    written++;
+                    bytesWritten += bytes;
+                } else {
+                    failed++;
+                }
+                notifyAll();
+            }
+            write.done.countDown();
+        }
+    }
+
+    /**
+     * Take the oldest queued write whose target is not being written by another thread
+     */
+    private Write nextWrite() {
+        for (Iterator<Write> it = queue.iterator(); it.hasNext(); ) {
+            Write write = it.next();
+            if (!writing.contains(write.target)) {
+                it.remove();
+                return write;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Bytes written, or -1 if the write failed
+     */
+    private static long encode(Write write) {
+        File target = write.target;
+        Path partial = null;
+        try {
+            Files.createDirectories(target.getParentFile().toPath());
+            partial = Files.createTempFile(target.getParentFile().toPath(), target.getName() + ".", ".part");
+            long bytes = write.encoder.write(write.image, partial.toFile());
+            Files.move(partial, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write evidence {}: {}", target, e.getMessage(), e);
+            if (partial != null) {
+                partial.toFile().delete();
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Writes queued or in progress
+     */
+    public synchronized int getPendingCount() {
+        return queue.size() + active;
+    }
+
+    public synchronized long getSubmittedCount() {
+        return submitted;
+    }
+
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Writes discarded by the DROP_OLDEST policy
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public synchronized long getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * Deepest the queue has been
+     */
+    public synchronized int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Total time submitting threads waited for a queue slot under BLOCK
+     */
+    public synchronized long getBlockedMillis() {
+        return blockedNanos / 1_000_000;
+    }
+
+    /**
+     * Total time the writer threads spent encoding
+     */
+    public synchronized long getEncodeMillis() {
+        return encodeNanos / 1_000_000;
+    }
+
+    /**
+     * Total size of the files written
+     */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getThreadCount() {
+        return workers.length;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("EvidenceWriter{threads=%d, policy=%s, pending=%d/%d, submitted=%d, written=%d (%d KB), dropped=%d, failed=%d, blocked=%d ms, encode=%d ms}",
+            workers.length, policy, queue.size() + active, capacity, submitted, written, bytesWritten / 1024,
+            dropped, failed, blockedNanos / 1_000_000, encodeNanos / 1_000_000);
+    }
+}
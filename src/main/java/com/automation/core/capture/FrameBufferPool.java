@@ -0,0 +1,171 @@
+package com.automation.core.capture;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FrameBufferPool recycles the {@code int[]} pixel buffers of screen captures,
+ * so polling loops stop allocating a fresh buffer (8 MB at 1920x1080) per capture.
+ *
+ * Buffers are pooled per geometry. Each {@link #acquire} wraps the recycled
+ * array in a new {@link BufferedImage} of type {@code TYPE_INT_RGB}, so caches
+ * keyed by image identity never see a reused key; the wrapper itself is a few
+ * hundred bytes. Frames go back to the pool when closed and must not be used
+ * afterwards. At most {@code maxIdlePerSize} idle buffers are kept per geometry.
+ */
+public class FrameBufferPool {
+
+    private static final DirectColorModel RGB = new DirectColorModel(24, 0xFF0000, 0x00FF00, 0x0000FF);
+
+    private final int maxIdlePerSize;
+    private final Map<Long, ArrayDeque<int[]>> idle = new HashMap<>();
+    private long idleBytes;
+    private int inUse;
+    private long allocations;
+    private long reuses;
+    private long bytesSaved;
+    private long discards;
+
+    /**
+     * @param maxIdlePerSize Idle buffers kept per capture geometry
+     */
+    public FrameBufferPool(int maxIdlePerSize) {
+        this.maxIdlePerSize = Math.max(0, maxIdlePerSize);
+    }
+
+    /**
+     * Take a buffer for a capture of the given area; its pixel content is undefined
+     * @param bounds Screen area the frame will hold; the buffer has its size
+     */
+    public PooledFrame acquire(Rectangle bounds) {
+        int width = bounds.width;
+        int height = bounds.height;
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Cannot pool an empty frame: " + bounds);
+        }
+        int[] pixels = null;
+        synchronized (this) {
+            ArrayDeque<int[]> buffers = idle.get(key(width, height));
+            if (buffers != null) {
+                pixels = buffers.poll();
+            }
+            if (pixels != null) {
+                idleBytes -= bytes(pixels);
+                reuses++;
+                bytesSaved += bytes(pixels);
+            } else {
+                allocations++;
+            }
+            inUse++;
+        }
+        if (pixels == null) {
+            pixels = new int[width * height];
+        }
+        return new PooledFrame(this, wrap(pixels, width, height), pixels, new Rectangle(bounds));
+    }
+
+    /**
+     * Return a frame's buffer; called once by {@link PooledFrame#close()}
+     */
+    synchronized void release(PooledFrame frame) {
+        inUse--;
+        int[] pixels = frame.pixels();
+        ArrayDeque<int[]> buffers = idle.computeIfAbsent(key(frame.getWidth(), frame.getHeight()),
+            k -> new ArrayDeque<>());
+        if (buffers.size() < maxIdlePerSize) {
+            buffers.push(pixels);
+            idleBytes += bytes(pixels);
+        } else {
+            discards++;
+        }
+    }
+
+    /**
+     * Drop all idle buffers; frames still in use are returned to the pool as usual
+     */
+    public synchronized void clear() {
+        idle.clear();
+        idleBytes = 0;
+    }
+
+    private static BufferedImage wrap(int[] pixels, int width, int height) {
+        DataBufferInt buffer = new DataBufferInt(pixels, pixels.length);
+        WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, RGB.getMasks(), null);
+        return new BufferedImage(RGB, raster, false, null);
+    }
+
+    private static long key(int width, int height) {
+        return (long) width << 32 | height;
+    }
+
+    private static long bytes(int[] pixels) {
+        return 4L * pixels.length;
+    }
+
+    /**
+     * Frames currently acquired and not yet closed
+     */
+    public synchronized int getInUse() {
+        return inUse;
+    }
+
+    /**
+     * Idle buffers across all geometries
+     */
+    public synchronized int getIdleCount() {
+        int count = 0;
+        for (ArrayDeque<int[]> buffers : idle.values()) {
+            count += buffers.size();
+        }
+        return count;
+    }
+
+    public synchronized long getIdleBytes() {
+        return idleBytes;
+    }
+
+    /**
+     * Buffers allocated because no idle buffer of the right size was available
+     */
+    public synchronized long getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * Acquisitions served from an idle buffer
+     */
+    public synchronized long getReuses() {
+        return reuses;
+    }
+
+    /**
+     * Buffer bytes not allocated thanks to reuse
+     */
+    public synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * Released buffers dropped because the pool was full for their size
+     */
+    public synchronized long getDiscards() {
+        return discards;
+    }
+
+    public int getMaxIdlePerSize() {
+        return maxIdlePerSize;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("FrameBufferPool{inUse=%d, idle=%d (%d KB), allocations=%d, reuses=%d, saved=%d MB, discards=%d}",
+            inUse, getIdleCount(), idleBytes / 1024, allocations, reuses, bytesSaved / (1024 * 1024), discards);
+    }
+}
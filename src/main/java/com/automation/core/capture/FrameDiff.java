@@ -0,0 +1,205 @@
+package com.automation.core.capture;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FrameDiff is the set of tiles that changed between two consecutive captures,
+ * as reported by {@link FrameDiffer}. Tiles on the right and bottom edges are
+ * clipped to the frame, so every rectangle lies inside it.
+ */
+public final class FrameDiff {
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesY;
+    private final boolean[] changed;
+    private final int changedCount;
+    private final boolean firstFrame;
+
+    FrameDiff(int width, int height, int tileSize, boolean[] changed, boolean firstFrame) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.tilesX = (width + tileSize - 1) / tileSize;
+        this.tilesY = (height + tileSize - 1) / tileSize;
+        this.changed = changed;
+        this.firstFrame = firstFrame;
+        int count = 0;
+        for (boolean tile : changed) {
+            count += tile ? 1 : 0;
+        }
+        this.changedCount = count;
+    }
+
+    /**
+     * @return True if no tile changed since the previous capture
+     */
+    public boolean isUnchanged() {
+        return changedCount == 0;
+    }
+
+    /**
+     * @return True if there was no comparable previous capture (first frame or a size change);
+     *         every tile then counts as changed
+     */
+    public boolean isFirstFrame() {
+        return firstFrame;
+    }
+
+    public int getChangedTileCount() {
+        return changedCount;
+    }
+
+    public int getTileCount() {
+        return changed.length;
+    }
+
+    /**
+     * Share of the frame's area covered by changed tiles, from 0.0 to 1.0
+     */
+    public double getChangedFraction() {
+        long area = 0;
+        for (Rectangle tile : getChangedTiles()) {
+            area += (long) tile.width * tile.height;
+        }
+        return width == 0 || height == 0 ? 0.0 : (double) area / ((long) width * height);
+    }
+
+    /**
+     * Count the pixels whose color differs between the two captures this diff was made from.
+     * Only changed tiles are compared, since unchanged tiles hold the same pixels.
+     * @param previous Packed pixels of the previous capture, row-major
+     * @param current Packed pixels of the current capture, row-major
+     */
+    public long countChangedPixels(int[] previous, int[] current) {
+        if (previous.length != width * height || current.length != width * height) {
+            throw new IllegalArgumentException("Pixels do not match the " + width + "x" + height + " diff");
+        }
+        long count = 0;
+        for (Rectangle tile : getChangedTiles()) {
+            for (int y = tile.y; y < tile.y + tile.height; y++) {
+                int offset = y * width;
+                for (int x = offset + tile.x; x < offset + tile.x + tile.width; x++) {
+                    count += ((previous[x] ^ current[x]) & 0xFFFFFF) != 0 ? 1 : 0;
+                }
+            }
+        }
+        return count;
+    }
+
+    public boolean isTileChanged(int tileX, int tileY) {
+        return changed[tileY * tilesX + tileX];
+    }
+
+    /**
+     * Changed tiles in row-major order
+     */
+    public List<Rectangle> getChangedTiles() {
+        List<Rectangle> tiles = new ArrayList<>(changedCount);
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                if (changed[ty * tilesX + tx]) {
+                    tiles.add(tileBounds(tx, tx + 1, ty, ty + 1));
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Changed tiles merged into fewer rectangles: runs of changed tiles in a tile row,
+     * extended downwards while the rows below change over the same columns.
+     * The rectangles do not overlap and cover exactly the changed tiles.
+     */
+    public List<Rectangle> getChangedRegions() {
+        if (changedCount == 0) {
+            return Collections.emptyList();
+        }
+        List<Rectangle> regions = new ArrayList<>();
+        boolean[] covered = new boolean[changed.length];
+        for (int ty = 0; ty < tilesY; ty++) {
+            int tx = 0;
+            while (tx < tilesX) {
+                int i = ty * tilesX + tx;
+                if (!changed[i] || covered[i]) {
+                    tx++;
+                    continue;
+                }
+                int end = tx;
+                while (end < tilesX && changed[ty * tilesX + end] && !covered[ty * tilesX + end]) {
+                    end++;
+                }
+                int bottom = ty + 1;
+                while (bottom < tilesY && rowChanged(bottom, tx, end, covered)) {
+                    bottom++;
+                }
+                for (int y = ty; y < bottom; y++) {
+                    for (int x = tx; x < end; x++) {
+                        covered[y * tilesX + x] = true;
+                    }
+                }
+                regions.add(tileBounds(tx, end, ty, bottom));
+                tx = end;
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Check whether any changed tile overlaps an area of the frame
+     */
+    public boolean intersects(Rectangle area) {
+        Rectangle clipped = area.intersection(new Rectangle(0, 0, width, height));
+        if (clipped.isEmpty()) {
+            return false;
+        }
+        int x1 = (clipped.x + clipped.width - 1) / tileSize;
+        int y1 = (clipped.y + clipped.height - 1) / tileSize;
+        for (int ty = clipped.y / tileSize; ty <= y1; ty++) {
+            for (int tx = clipped.x / tileSize; tx <= x1; tx++) {
+                if (changed[ty * tilesX + tx]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    private boolean rowChanged(int ty, int fromX, int toX, boolean[] covered) {
+        for (int tx = fromX; tx < toX; tx++) {
+            int i = ty * tilesX + tx;
+            if (!changed[i] || covered[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Rectangle tileBounds(int fromX, int toX, int fromY, int toY) {
+        int x = fromX * tileSize;
+        int y = fromY * tileSize;
+        return new Rectangle(x, y, Math.min(width, toX * tileSize) - x, Math.min(height, toY * tileSize) - y);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FrameDiff{%dx%d, tile=%d, changed=%d/%d%s}",
+            width, height, tileSize, changedCount, changed.length, firstFrame ? ", first frame" : "");
+    }
+}
@@ -0,0 +1,122 @@
+package com.automation.core.capture;
+
+import com.automation.core.matching.RasterImage;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * FrameDiffer compares each capture with the previous one in square tiles
+ * and reports which tiles changed.
+ *
+ * Only a 64-bit hash per tile of the previous capture is kept, not its
+ * pixels, so captures may be released or reused as soon as they have been
+ * diffed. The hash is a multiply-xor chain over the tile's packed pixels; each
+ * step is a bijection of the running state, so two tiles that differ in a
+ * single pixel always hash differently. A capture with no previous frame of
+ * the same size reports every tile as changed.
+ *
+ * Instances are stateful and meant for one polling loop; {@link #update} is
+ * synchronized so a differ can still be shared.
+ */
+public class FrameDiffer {
+
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long PRIME = 0x9FB21C651E98DF25L;
+
+    private final int tileSize;
+    private long[] previousHashes;
+    private int previousWidth;
+    private int previousHeight;
+
+    public FrameDiffer() {
+        this(DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @param tileSize Tile edge length in pixels
+     */
+    public FrameDiffer(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Diff a capture against the previous one and remember it for the next call
+     */
+    public FrameDiff update(BufferedImage frame) {
+        return update(RasterImage.from(frame));
+    }
+
+    /**
+     * Diff a capture against the previous one and remember it for the next call
+     */
+    public synchronized FrameDiff update(RasterImage frame) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        long[] hashes = tileHashes(frame, tileSize);
+        boolean[] changed = new boolean[hashes.length];
+        boolean firstFrame = previousHashes == null || width != previousWidth || height != previousHeight;
+        if (firstFrame) {
+            Arrays.fill(changed, true);
+        } else {
+            for (int i = 0; i < hashes.length; i++) {
+                changed[i] = hashes[i] != previousHashes[i];
+            }
+        }
+        previousHashes = hashes;
+        previousWidth = width;
+        previousHeight = height;
+        return new FrameDiff(width, height, tileSize, changed, firstFrame);
+    }
+
+    /**
+     * Forget the previous capture; the next update reports every tile as changed
+     */
+    public synchronized void reset() {
+        previousHashes = null;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Hash every tile of a frame in one row-major pass
+     * @return Tile hashes in row-major tile order
+     */
+    static long[] tileHashes(RasterImage frame, int tileSize) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+        int[] pixels = frame.getPixels();
+        long[] hashes = new long[tilesX * tilesY];
+        Arrays.fill(hashes, SEED);
+
+        for (int y = 0; y < height; y++) {
+            int rowBase = (y / tileSize) * tilesX;
+            int offset = y * width;
+            for (int tx = 0; tx < tilesX; tx++) {
+                int x0 = tx * tileSize;
+                int x1 = Math.min(width, x0 + tileSize);
+                long h = hashes[rowBase + tx];
+                for (int x = x0; x < x1; x++) {
+                    h = (h ^ pixels[offset + x]) * PRIME;
+                }
+                hashes[rowBase + tx] = h;
+            }
+        }
+        return hashes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FrameDiffer{tile=%d, previous=%s}", tileSize,
+            previousHashes == null ? "none" : previousWidth + "x" + previousHeight);
+    }
+}
@@ -0,0 +1,223 @@
+package com.automation.core.capture;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * FrameRing keeps the most recent frames of a fixed size in a memory-mapped
+ * file, overwriting the oldest once all slots are used. Frame pixels live in
+ * the mapping, outside the Java heap, so a long recording adds no garbage
+ * collection pressure; the operating system pages them out as it sees fit.
+ *
+ * <pre>
+ * header: "UDRR" slots:i32 width:i32 height:i32 written:i64
+ * table:  per slot timestamp:i64
+ * slots:  per slot width*height packed RGB ints
+ * </pre>
+ * Methods are synchronized, so frames may be read while a recorder thread is
+ * still writing. {@link #reset} empties the ring so one file and mapping can
+ * serve many recordings; the file is deleted on {@link #close}.
+ */
+public class FrameRing implements AutoCloseable {
+
+    private static final int MAGIC = 0x55445252; // "UDRR"
+    private static final int HEADER_BYTES = 24;
+    private static final int WRITTEN_OFFSET = 16;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final int slots;
+    private final int width;
+    private final int height;
+    private final int tableOffset;
+    private final int dataOffset;
+    private final IntBuffer[] slotPixels;
+    private long written;
+    private boolean closed;
+
+    /**
+     * Create (or truncate) the ring file and map it
+     * @param slots Frames kept; the oldest is overwritten when all are used
+     */
+    public FrameRing(File file, int slots, int width, int height) throws IOException {
+        if (slots < 1 || width < 1 || height < 1) {
+            throw new IllegalArgumentException("Frame ring needs at least one slot of at least 1x1 pixels");
+        }
+        long slotBytes = 4L * width * height;
+        long size = HEADER_BYTES + 8L * slots + slotBytes * slots;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format(
+                "Frame ring of %d frames at %dx%d needs %d MB, more than one mapping can hold",
+                slots, width, height, size >> 20));
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        this.file = file;
+        this.slots = slots;
+        this.width = width;
+        this.height = height;
+        this.tableOffset = HEADER_BYTES;
+        this.dataOffset = HEADER_BYTES + 8 * slots;
+
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            raf.setLength(size);
+            channel = raf.getChannel();
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            file.delete();
+            throw e;
+        }
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, slots);
+        mapped.putInt(8, width);
+        mapped.putInt(12, height);
+        mapped.putLong(WRITTEN_OFFSET, 0);
+
+        slotPixels = new IntBuffer[slots];
+        for (int i = 0; i < slots; i++) {
+            ByteBuffer slot = mapped.duplicate();
+            slot.position((int) (dataOffset + slotBytes * i));
+            slot.limit((int) (dataOffset + slotBytes * (i + 1)));
+            slotPixels[i] = slot.slice().asIntBuffer();
+        }
+    }
+
+    /**
+     * Store a frame in the next slot, replacing the oldest frame once the ring is full
+     * @param pixels Packed RGB, row-major, exactly width*height values
+     */
+    public synchronized void write(int[] pixels, long timestampMillis) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Frame must have " + width * height + " pixels, got " + pixels.length);
+        }
+        checkOpen();
+        int slot = (int) (written % slots);
+        IntBuffer target = slotPixels[slot];
+        target.clear();
+        target.put(pixels);
+        mapped.putLong(tableOffset + 8 * slot, timestampMillis);
+        written++;
+        mapped.putLong(WRITTEN_OFFSET, written);
+    }
+
+    /**
+     * Forget every held frame, so the ring can be reused for a new recording
+     */
+    public synchronized void reset() {
+        checkOpen();
+        written = 0;
+        mapped.putLong(WRITTEN_OFFSET, 0);
+    }
+
+    /**
+     * Frames held, at most the slot count
+     */
+    public synchronized int size() {
+        return (int) Math.min(written, slots);
+    }
+
+    /**
+     * Frames written since creation or the last reset, including overwritten ones
+     */
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Copy a held frame, 0 being the oldest, into a buffer of width*height values
+     */
+    public synchronized void read(int index, int[] into) {
+        checkOpen();
+        IntBuffer source = slotPixels[slotOf(index)];
+        source.clear();
+        source.get(into, 0, width * height);
+    }
+
+    /**
+     * Capture time of a held frame, 0 being the oldest
+     */
+    public synchronized long getTimestamp(int index) {
+        checkOpen();
+        return mapped.getLong(tableOffset + 8 * slotOf(index));
+    }
+
+    private int slotOf(int index) {
+        int size = size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + size);
+        }
+        long oldest = written - size;
+        return (int) ((oldest + index) % slots);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Frame ring is closed: " + file);
+        }
+    }
+
+    public int getSlotCount() {
+        return slots;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Size of the mapped file
+     */
+    public long getMappedBytes() {
+        return mapped.capacity();
+    }
+
+    /**
+     * Release the ring and delete its file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < slotPixels.length; i++) {
+            slotPixels[i] = null;
+        }
+        channel.close();
+        raf.close();
+        // The mapping itself is released when collected; on Windows the file can only be deleted then
+        if (!file.delete()) {
+            try {
+                file.deleteOnExit();
+            } catch (IllegalStateException e) {
+                // Closed from a shutdown hook, when no more files can be registered
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("FrameRing{%s, %dx%d, %d/%d frames, %d MB mapped}",
+            file.getName(), width, height, size(), slots, mapped.capacity() >> 20);
+    }
+}
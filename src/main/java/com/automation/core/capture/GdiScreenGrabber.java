@@ -0,0 +1,107 @@
+package com.automation.core.capture;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Platform;
+import com.sun.jna.platform.win32.GDI32;
+import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinGDI;
+import com.sun.jna.platform.win32.WinNT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+
+/**
+ * GdiScreenGrabber copies screen pixels with GDI (BitBlt, then GetDIBits as
+ * top-down 32-bit BGRX, which is the packed RGB int layout) straight into a
+ * caller's buffer, through one reused native staging block.
+ *
+ * Only used on Windows when no screen is scaled: with display scaling, Robot
+ * captures in user-space coordinates while GDI works in device pixels.
+ */
+final class GdiScreenGrabber {
+    private static final Logger logger = LoggerFactory.getLogger(GdiScreenGrabber.class);
+
+    // Include layered (translucent) windows, as Robot does
+    private static final int CAPTUREBLT = 0x40000000;
+
+    private Memory staging;
+
+    private GdiScreenGrabber() {
+    }
+
+    /**
+     * @return A grabber, or null if GDI capture does not apply on this system
+     */
+    static GdiScreenGrabber createIfSupported() {
+        if (!Platform.isWindows() || GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        for (GraphicsDevice device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+            if (!device.getDefaultConfiguration().getDefaultTransform().isIdentity()) {
+                logger.info("Display scaling is active, screen captures go through Robot");
+                return null;
+            }
+        }
+        return new GdiScreenGrabber();
+    }
+
+    /**
+     * Copy a screen area into a buffer of exactly its size
+     * @return False if GDI refused the copy (e.g. on the secure desktop)
+     */
+    synchronized boolean grab(Rectangle bounds, int[] target) {
+        int width = bounds.width;
+        int height = bounds.height;
+        long bytes = 4L * width * height;
+        if (staging == null || staging.size() < bytes) {
+            staging = new Memory(bytes);
+        }
+
+        WinDef.HDC screenDc = User32.INSTANCE.GetDC(null);
+        if (screenDc == null) {
+            return false;
+        }
+        WinDef.HDC memoryDc = null;
+        WinDef.HBITMAP bitmap = null;
+        WinNT.HANDLE previous = null;
+        try {
+            memoryDc = GDI32.INSTANCE.CreateCompatibleDC(screenDc);
+            bitmap = GDI32.INSTANCE.CreateCompatibleBitmap(screenDc, width, height);
+            if (memoryDc == null || bitmap == null) {
+                return false;
+            }
+            previous = GDI32.INSTANCE.SelectObject(memoryDc, bitmap);
+            if (!GDI32.INSTANCE.BitBlt(memoryDc, 0, 0, width, height, screenDc, bounds.x, bounds.y,
+                    GDI32.SRCCOPY | CAPTUREBLT)) {
+                return false;
+            }
+
+            WinGDI.BITMAPINFO info = new WinGDI.BITMAPINFO();
+            info.bmiHeader.biWidth = width;
+            info.bmiHeader.biHeight = -height;
+            info.bmiHeader.biPlanes = 1;
+            info.bmiHeader.biBitCount = 32;
+            info.bmiHeader.biCompression = WinGDI.BI_RGB;
+            if (GDI32.INSTANCE.GetDIBits(memoryDc, bitmap, 0, height, staging, info, WinGDI.DIB_RGB_COLORS) != height) {
+                return false;
+            }
+            staging.read(0, target, 0, width * height);
+            return true;
+        } finally {
+            if (previous != null) {
+                GDI32.INSTANCE.SelectObject(memoryDc, previous);
+            }
+            if (bitmap != null) {
+                GDI32.INSTANCE.DeleteObject(bitmap);
+            }
+            if (memoryDc != null) {
+                GDI32.INSTANCE.DeleteDC(memoryDc);
+            }
+            User32.INSTANCE.ReleaseDC(null, screenDc);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.automation.core.capture;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JpegEncoder writes lossy JPEG at a fixed quality (0-1). Images with an
+ * alpha channel are flattened to RGB first, since JPEG has none.
+ */
+public final class JpegEncoder implements ScreenshotEncoder {
+
+    private final float quality;
+
+    /**
+     * @param quality JPEG quality, 0 (smallest) to 1 (best)
+     */
+    public JpegEncoder(float quality) {
+        if (!(quality >= 0f && quality <= 1f)) {
+            throw new IllegalArgumentException("JPEG quality must be 0-1: " + quality);
+        }
+        this.quality = quality;
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(toRgb(image), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return rgb;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    @Override
+    public String getExtension() {
+        return "jpg";
+    }
+
+    @Override
+    public String getName() {
+        return "jpeg:" + quality;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,68 @@
+package com.automation.core.capture;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * PngEncoder writes lossless PNG with an explicit deflate level (0-9).
+ *
+ * The JDK writer takes the level as a compression quality, level = 9 * (1 - quality);
+ * the quality passed is centred on the wanted level so float rounding cannot
+ * shift it to the neighbouring one.
+ */
+public final class PngEncoder implements ScreenshotEncoder {
+
+    private final int level;
+
+    /**
+     * @param level Deflate level, 0 (store) to 9 (smallest)
+     */
+    public PngEncoder(int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("PNG deflate level must be 0-9: " + level);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(Math.max(0f, Math.min(1f, 1f - (level + 0.5f) / 9f)));
+            }
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public String getExtension() {
+        return "png";
+    }
+
+    @Override
+    public String getName() {
+        return "png:" + level;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
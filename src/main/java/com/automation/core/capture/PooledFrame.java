@@ -0,0 +1,96 @@
+package com.automation.core.capture;
+
+import com.automation.core.matching.RasterImage;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * PooledFrame is a screen capture whose pixel buffer belongs to a
+ * {@link FrameBufferPool}. Close it (try-with-resources) once the capture has
+ * been used; its image and pixels must not be touched afterwards, because the
+ * buffer is handed to the next capture of the same size.
+ */
+public final class PooledFrame implements AutoCloseable {
+    private final FrameBufferPool pool;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final Rectangle bounds;
+    private boolean closed;
+
+    PooledFrame(FrameBufferPool pool, BufferedImage image, int[] pixels, Rectangle bounds) {
+        this.pool = pool;
+        this.image = image;
+        this.pixels = pixels;
+        this.bounds = bounds;
+    }
+
+    /**
+     * The capture as a {@code TYPE_INT_RGB} image backed by the pooled buffer
+     */
+    public BufferedImage getImage() {
+        checkOpen();
+        return image;
+    }
+
+    /**
+     * The capture as a raster sharing the pooled buffer
+     */
+    public RasterImage getRaster() {
+        checkOpen();
+        return RasterImage.from(image);
+    }
+
+    /**
+     * Packed RGB pixels, row-major, for capture code that fills the frame
+     */
+    public int[] getPixels() {
+        checkOpen();
+        return pixels;
+    }
+
+    /**
+     * Screen area the frame holds
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    public int getWidth() {
+        return bounds.width;
+    }
+
+    public int getHeight() {
+        return bounds.height;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Return the buffer to its pool; further calls do nothing
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            pool.release(this);
+        }
+    }
+
+    int[] pixels() {
+        return pixels;
+    }
+
+    private synchronized void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Pooled frame was already released: " + bounds);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PooledFrame{%s, closed=%s}", bounds, closed);
+    }
+}
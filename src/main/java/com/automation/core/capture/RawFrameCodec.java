@@ -0,0 +1,153 @@
+package com.automation.core.capture;
+
+import com.automation.core.matching.RasterImage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * RawFrameCodec stores a capture as packed 8-bit RGB behind a 14-byte header
+ * ("UDAR", version, flags, width, height; big-endian), either as is or
+ * through deflate at its fastest level. Skipping PNG's per-row filtering and
+ * chunking makes it several times cheaper to write than PNG, which suits
+ * high-rate capture series; {@link #read} turns a file back into an image.
+ */
+public final class RawFrameCodec implements ScreenshotEncoder {
+
+    public static final String EXTENSION = "udar";
+
+    private static final int MAGIC = 0x55444152; // "UDAR"
+    private static final int VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+
+    private final boolean deflate;
+
+    /**
+     * @param deflate Compress the pixel data with fast deflate
+     */
+    public RawFrameCodec(boolean deflate) {
+        this.deflate = deflate;
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        RasterImage raster = RasterImage.from(image);
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int[] pixels = raster.getPixels();
+
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(deflate ? FLAG_DEFLATE : 0);
+        header.writeInt(width);
+        header.writeInt(height);
+        header.flush();
+
+        Deflater deflater = deflate ? new Deflater(Deflater.BEST_SPEED) : null;
+        try {
+            OutputStream body = deflate ? new DeflaterOutputStream(out, deflater, 1 << 16) : out;
+            byte[] row = new byte[width * 3];
+            for (int y = 0; y < height; y++) {
+                int offset = y * width;
+                for (int x = 0, b = 0; x < width; x++, b += 3) {
+                    int p = pixels[offset + x];
+                    row[b] = (byte) (p >> 16);
+                    row[b + 1] = (byte) (p >> 8);
+                    row[b + 2] = (byte) p;
+                }
+                body.write(row);
+            }
+            if (deflate) {
+                ((DeflaterOutputStream) body).finish();
+            }
+            body.flush();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Decode a raw frame file into a {@code TYPE_INT_RGB} image
+     */
+    public static BufferedImage read(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Decode a raw frame from a stream positioned at its header
+     */
+    public static BufferedImage read(InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a raw frame");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported raw frame version " + version);
+        }
+        boolean deflated = (header.readUnsignedByte() & FLAG_DEFLATE) != 0;
+        int width = header.readInt();
+        int height = header.readInt();
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE / 3) {
+            throw new IOException("Invalid raw frame size " + width + "x" + height);
+        }
+
+        Inflater inflater = deflated ? new Inflater() : null;
+        try {
+            DataInputStream body = deflated
+                ? new DataInputStream(new InflaterInputStream(in, inflater, 1 << 16))
+                : header;
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            byte[] row = new byte[width * 3];
+            for (int y = 0; y < height; y++) {
+                body.readFully(row);
+                int offset = y * width;
+                for (int x = 0, b = 0; x < width; x++, b += 3) {
+                    pixels[offset + x] = (row[b] & 0xFF) << 16 | (row[b + 1] & 0xFF) << 8 | (row[b + 2] & 0xFF);
+                }
+            }
+            return image;
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    public boolean isDeflate() {
+        return deflate;
+    }
+
+    @Override
+    public String getExtension() {
+        return EXTENSION;
+    }
+
+    @Override
+    public String getName() {
+        return deflate ? "raw:deflate" : "raw";
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,277 @@
+package com.automation.core.capture;
+
+import com.automation.core.matching.RasterImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * ReplayScreenSource serves previously recorded frames instead of the live
+ * desktop, so capture, matching and OCR paths can be exercised and timed on
+ * build agents without a display.
+ *
+ * <ul>
+ *   <li>SEQUENTIAL: every capture moves to the next frame; the last frame
+ *       repeats. Deterministic regardless of how fast the caller polls.</li>
+ *   <li>TIMED: each frame carries an offset in milliseconds and the frame
+ *       shown is the last one whose offset has elapsed since the first
+ *       capture, like replaying a recording in real time.</li>
+ * </ul>
+ * A directory replays its images in file name order, or the frames listed in
+ * its {@code frames.txt} manifest ({@code <offset millis> <image file>} per
+ * line, '#' starts a comment). Frames are decoded when first shown and only
+ * the current one is kept in memory.
+ */
+public class ReplayScreenSource implements ScreenSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayScreenSource.class);
+
+    public static final String MANIFEST = "frames.txt";
+
+    private static final List<String> IMAGE_SUFFIXES = Arrays.asList(".png", ".jpg", ".jpeg", ".bmp", ".gif");
+
+    public enum Mode {
+        SEQUENTIAL,
+        TIMED;
+
+        /**
+         * Parse "sequential" or "timed" (case-insensitive), defaulting to SEQUENTIAL
+         */
+        public static Mode fromName(String name) {
+            return "timed".equalsIgnoreCase(name == null ? "" : name.trim()) ? TIMED : SEQUENTIAL;
+        }
+    }
+
+    /**
+     * One recorded frame: an image in memory or on disk, shown from an offset on
+     */
+    public static final class Frame {
+        private final long offsetMillis;
+        private final File file;
+        private final BufferedImage image;
+
+        public Frame(long offsetMillis, BufferedImage image) {
+            this.offsetMillis = offsetMillis;
+            this.file = null;
+            this.image = image;
+        }
+
+        public Frame(long offsetMillis, File file) {
+            this.offsetMillis = offsetMillis;
+            this.file = file;
+            this.image = null;
+        }
+
+        public long getOffsetMillis() {
+            return offsetMillis;
+        }
+
+        BufferedImage load() {
+            if (image != null) {
+                return image;
+            }
+            try {
+                BufferedImage decoded = ImageIO.read(file);
+                if (decoded == null) {
+                    throw new IOException("Unsupported image format: " + file);
+                }
+                return decoded;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read replay frame " + file, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return (file != null ? file.getName() : "image") + "@" + offsetMillis + "ms";
+        }
+    }
+
+    private final List<Frame> frames;
+    private final Mode mode;
+    private final LongSupplier clockMillis;
+    private final Rectangle screenBounds;
+    private int position = -1;
+    private long startMillis;
+    private int loadedIndex = -1;
+    private BufferedImage loadedImage;
+    private RasterImage loaded;
+    private long captures;
+
+    public ReplayScreenSource(List<Frame> frames, Mode mode) {
+        this(frames, mode, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clockMillis Time source for TIMED replay
+     */
+    public ReplayScreenSource(List<Frame> frames, Mode mode, LongSupplier clockMillis) {
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("A replay needs at least one frame");
+        }
+        List<Frame> ordered = new ArrayList<>(frames);
+        if (mode == Mode.TIMED) {
+            ordered.sort((a, b) -> Long.compare(a.offsetMillis, b.offsetMillis));
+        }
+        this.frames = Collections.unmodifiableList(ordered);
+        this.mode = mode;
+        this.clockMillis = clockMillis;
+        BufferedImage first = ordered.get(0).load();
+        this.screenBounds = new Rectangle(0, 0, first.getWidth(), first.getHeight());
+    }
+
+    /**
+     * Replay a directory: the frames of its manifest if present, else its images in name order
+     * @throws IOException if the directory or its manifest cannot be read, or holds no frames
+     */
+    public static ReplayScreenSource fromDirectory(Path directory, Mode mode) throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        List<Frame> frames = Files.isRegularFile(manifest)
+            ? readManifest(directory, manifest)
+            : listImages(directory);
+        if (frames.isEmpty()) {
+            throw new IOException("No replay frames in " + directory);
+        }
+        logger.info("Replaying {} frames from {} ({})", frames.size(), directory, mode);
+        return new ReplayScreenSource(frames, mode);
+    }
+
+    private static List<Frame> readManifest(Path directory, Path manifest) throws IOException {
+        List<Frame> frames = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String entry = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split("\\s+", 2);
+            if (parts.length < 2) {
+                throw new IOException(manifest + ":" + lineNumber + ": expected '<offset millis> <image file>'");
+            }
+            try {
+                frames.add(new Frame(Long.parseLong(parts[0]), directory.resolve(parts[1]).toFile()));
+            } catch (NumberFormatException e) {
+                throw new IOException(manifest + ":" + lineNumber + ": invalid offset '" + parts[0] + "'");
+            }
+        }
+        return frames;
+    }
+
+    private static List<Frame> listImages(Path directory) throws IOException {
+        File[] files = directory.toFile().listFiles(file -> file.isFile()
+            && IMAGE_SUFFIXES.stream().anyMatch(file.getName().toLowerCase(Locale.ROOT)::endsWith));
+        if (files == null) {
+            throw new IOException("Not a readable directory: " + directory);
+        }
+        Arrays.sort(files);
+        List<Frame> frames = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            frames.add(new Frame(i, files[i]));
+        }
+        return frames;
+    }
+
+    @Override
+    public synchronized BufferedImage capture(Rectangle region) {
+        nextFrame();
+        BufferedImage image = new BufferedImage(region.width, region.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.drawImage(loadedImage, -region.x, -region.y, null);
+        g.dispose();
+        return image;
+    }
+
+    @Override
+    public synchronized void captureInto(PooledFrame target) {
+        RasterImage frame = nextFrame();
+        int[] source = frame.getPixels();
+        int[] pixels = target.getPixels();
+        Rectangle region = target.getBounds();
+        Arrays.fill(pixels, 0);
+
+        Rectangle visible = region.intersection(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+        for (int y = visible.y; !visible.isEmpty() && y < visible.y + visible.height; y++) {
+            System.arraycopy(source, y * frame.getWidth() + visible.x,
+                pixels, (y - region.y) * region.width + (visible.x - region.x), visible.width);
+        }
+    }
+
+    /**
+     * Advance according to the mode and return the frame to show
+     */
+    private synchronized RasterImage nextFrame() {
+        if (mode == Mode.SEQUENTIAL) {
+            position = Math.min(position + 1, frames.size() - 1);
+        } else {
+            long now = clockMillis.getAsLong();
+            if (position < 0) {
+                startMillis = now;
+                position = 0;
+            }
+            long elapsed = now - startMillis;
+            while (position + 1 < frames.size() && frames.get(position + 1).offsetMillis <= elapsed) {
+                position++;
+            }
+        }
+        captures++;
+        if (loadedIndex != position) {
+            loadedImage = frames.get(position).load();
+            loaded = RasterImage.from(loadedImage);
+            loadedIndex = position;
+        }
+        return loaded;
+    }
+
+    /**
+     * Start the replay over; the next capture shows the first frame
+     */
+    public synchronized void rewind() {
+        position = -1;
+    }
+
+    /**
+     * Index of the frame shown by the last capture, -1 before the first capture
+     */
+    public synchronized int getPosition() {
+        return position;
+    }
+
+    public synchronized long getCaptureCount() {
+        return captures;
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public Rectangle getScreenBounds() {
+        return new Rectangle(screenBounds);
+    }
+
+    @Override
+    public String getName() {
+        return "replay(" + frames.size() + " frames, " + mode.name().toLowerCase(Locale.ROOT) + ")";
+    }
+}
@@ -0,0 +1,79 @@
+package com.automation.core.capture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.AWTException;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+
+/**
+ * RobotScreenSource captures the live desktop with {@link Robot}.
+ *
+ * Pooled captures on Windows without display scaling are copied by GDI straight
+ * into the pooled buffer, so a polling loop allocates no pixel buffer per
+ * capture; elsewhere (or when GDI refuses a copy) the Robot capture is copied.
+ */
+public class RobotScreenSource implements ScreenSource {
+    private static final Logger logger = LoggerFactory.getLogger(RobotScreenSource.class);
+
+    private final Robot robot;
+    private final GdiScreenGrabber gdi;
+
+    /**
+     * @param useGdi Fill pooled captures through GDI where supported
+     * @throws AWTException if the platform does not allow screen capture (e.g. headless)
+     */
+    public RobotScreenSource(boolean useGdi) throws AWTException {
+        this.robot = new Robot();
+        GdiScreenGrabber grabber = null;
+        if (useGdi) {
+            try {
+                grabber = GdiScreenGrabber.createIfSupported();
+            } catch (LinkageError e) {
+                logger.warn("GDI capture unavailable, using Robot: {}", e.getMessage());
+            }
+        }
+        this.gdi = grabber;
+        logger.debug("Robot screen source created ({} pooled capture)", gdi != null ? "GDI" : "Robot");
+    }
+
+    @Override
+    public BufferedImage capture(Rectangle region) {
+        return robot.createScreenCapture(region);
+    }
+
+    @Override
+    public void captureInto(PooledFrame frame) {
+        if (gdi == null || !gdi.grab(frame.getBounds(), frame.getPixels())) {
+            ScreenSource.super.captureInto(frame);
+        }
+    }
+
+    @Override
+    public Rectangle getScreenBounds() {
+        return new Rectangle(Toolkit.getDefaultToolkit().getScreenSize());
+    }
+
+    @Override
+    public Rectangle getDesktopBounds() {
+        Rectangle bounds = new Rectangle();
+        for (GraphicsDevice screen : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+            bounds = bounds.union(screen.getDefaultConfiguration().getBounds());
+        }
+        return bounds;
+    }
+
+    public boolean isGdiCapture() {
+        return gdi != null;
+    }
+
+    @Override
+    public String getName() {
+        return gdi != null ? "robot+gdi" : "robot";
+    }
+}
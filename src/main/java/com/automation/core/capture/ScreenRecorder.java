@@ -0,0 +1,216 @@
+package com.automation.core.capture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ScreenRecorder captures a screen area at a fixed frame rate on a
+ * background thread into a {@link FrameRing}, so the last seconds before a
+ * failure can be exported while a passing run just discards them.
+ *
+ * Captures go through pooled frames and the ring lives in a memory-mapped
+ * file, so recording allocates almost nothing on the heap. When the ring is
+ * smaller than the area, frames are scaled down to the ring's size. A tick
+ * that cannot start on time because the previous capture overran is skipped
+ * and counted as dropped; the recorder never captures back to back to catch up.
+ */
+public class ScreenRecorder implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenRecorder.class);
+
+    private final ScreenSource source;
+    private final Rectangle region;
+    private final FrameRing ring;
+    private final FrameBufferPool pool;
+    private final int fps;
+    private final long periodNanos;
+    private final BufferedImage scaled;
+
+    private Thread thread;
+    private volatile boolean running;
+    private boolean stopped;
+
+    private long captured;
+    private long dropped;
+    private long failures;
+    private long captureNanos;
+    private long maxCaptureNanos;
+
+    /**
+     * @param region Screen area to record
+     * @param ring Where frames go; its size sets the recorded resolution
+     * @param fps Frames per second
+     */
+    public ScreenRecorder(ScreenSource source, Rectangle region, FrameRing ring, int fps, FrameBufferPool pool) {
+        if (fps < 1 || fps > 1000) {
+            throw new IllegalArgumentException("Recording rate must be 1-1000 fps: " + fps);
+        }
+        this.source = source;
+        this.region = new Rectangle(region);
+        this.ring = ring;
+        this.pool = pool;
+        this.fps = fps;
+        this.periodNanos = 1_000_000_000L / fps;
+        this.scaled = ring.getWidth() == region.width && ring.getHeight() == region.height
+            ? null
+            : new BufferedImage(ring.getWidth(), ring.getHeight(), BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Start recording on a daemon thread
+     */
+    public synchronized void start() {
+        if (thread != null || stopped) {
+            throw new IllegalStateException("Screen recorder can only be started once");
+        }
+        running = true;
+        thread = new Thread(this::run, "screen-recorder");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Screen recording started: {} at {} fps into {}", region, fps, ring);
+    }
+
+    private void run() {
+        long next = System.nanoTime();
+        while (running) {
+            captureFrame();
+            next += periodNanos;
+            long now = System.nanoTime();
+            if (now > next) {
+                long missed = (now - next) / periodNanos + 1;
+                synchronized (this) {
+                    dropped += missed;
+                }
+                next += missed * periodNanos;
+            }
+            while (running && (now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(this, next - now);
+            }
+        }
+    }
+
+    private void captureFrame() {
+        long start = System.nanoTime();
+        try (PooledFrame frame = source.capturePooled(region, pool)) {
+            int[] pixels = frame.getPixels();
+            if (scaled != null) {
+                Graphics2D g = scaled.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(frame.getImage(), 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+                g.dispose();
+                pixels = ((DataBufferInt) scaled.getRaster().getDataBuffer()).getData();
+            }
+            ring.write(pixels, System.currentTimeMillis());
+            long elapsed = System.nanoTime() - start;
+            synchronized (this) {
+                captured++;
+                captureNanos += elapsed;
+                maxCaptureNanos = Math.max(maxCaptureNanos, elapsed);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                failures++;
+            }
+            logger.debug("Screen recorder capture failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stop capturing and keep the frames for export; further calls do nothing
+     */
+    public void freeze() {
+        Thread recorder;
+        synchronized (this) {
+            running = false;
+            stopped = true;
+            recorder = thread;
+        }
+        if (recorder != null && recorder.isAlive()) {
+            LockSupport.unpark(recorder);
+            try {
+                recorder.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Freeze and write the recorded frames, oldest first, as a screenshot series
+     * @return The series file
+     */
+    public File export(File target, int tileSize, int keyframeInterval) throws IOException {
+        freeze();
+        BufferedImage frame = new BufferedImage(ring.getWidth(), ring.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        try (SeriesRecorder series = new SeriesRecorder(target, tileSize, keyframeInterval)) {
+            for (int i = 0; i < ring.size(); i++) {
+                ring.read(i, pixels);
+                series.append(frame, ring.getTimestamp(i));
+            }
+            logger.info("Screen recording exported: {} ({})", series, this);
+        }
+        return target;
+    }
+
+    /**
+     * Freeze and drop the recording, deleting the ring file
+     */
+    public void discard() throws IOException {
+        freeze();
+        ring.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        discard();
+    }
+
+    public FrameRing getRing() {
+        return ring;
+    }
+
+    public int getFps() {
+        return fps;
+    }
+
+    public synchronized long getCapturedFrames() {
+        return captured;
+    }
+
+    /**
+     * Frame ticks skipped because a capture overran its period
+     */
+    public synchronized long getDroppedFrames() {
+        return dropped;
+    }
+
+    public synchronized long getFailedCaptures() {
+        return failures;
+    }
+
+    /**
+     * Mean time to capture, scale and store one frame
+     */
+    public synchronized double getAverageCaptureMillis() {
+        return captured == 0 ? 0 : captureNanos / 1e6 / captured;
+    }
+
+    public synchronized double getMaxCaptureMillis() {
+        return maxCaptureNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ScreenRecorder{%d fps, captured=%d, dropped=%d, failed=%d, capture avg=%.1f ms max=%.1f ms}",
+            fps, captured, dropped, failures, getAverageCaptureMillis(), getMaxCaptureMillis());
+    }
+}
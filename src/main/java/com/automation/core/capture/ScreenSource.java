@@ -0,0 +1,70 @@
+package com.automation.core.capture;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * ScreenSource supplies screen captures to {@link com.automation.core.ScreenCapture}.
+ *
+ * {@link RobotScreenSource} captures the live desktop and is the default;
+ * {@link ReplayScreenSource} serves recorded frames, so wait loops, stability
+ * checks and matchers can run deterministically on machines without a display.
+ */
+public interface ScreenSource {
+
+    /**
+     * Capture a screen area; parts outside the screen come back black
+     */
+    BufferedImage capture(Rectangle region);
+
+    /**
+     * Bounds of the primary screen
+     */
+    Rectangle getScreenBounds();
+
+    /**
+     * Bounds of all screens together
+     */
+    default Rectangle getDesktopBounds() {
+        return getScreenBounds();
+    }
+
+    /**
+     * Capture a screen area into a pooled frame; close the frame when done with it
+     */
+    default PooledFrame capturePooled(Rectangle region, FrameBufferPool pool) {
+        PooledFrame frame = pool.acquire(region);
+        try {
+            captureInto(frame);
+            return frame;
+        } catch (RuntimeException | Error e) {
+            frame.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Fill a pooled frame with a capture of its bounds. The default captures
+     * a new image and copies it; sources that can write into the frame's
+     * buffer directly override this.
+     */
+    default void captureInto(PooledFrame frame) {
+        BufferedImage captured = capture(frame.getBounds());
+        int[] target = frame.getPixels();
+        if (captured.getType() == BufferedImage.TYPE_INT_RGB
+                && captured.getRaster().getDataBuffer() instanceof DataBufferInt) {
+            int[] source = ((DataBufferInt) captured.getRaster().getDataBuffer()).getData();
+            if (source.length == target.length) {
+                System.arraycopy(source, 0, target, 0, source.length);
+                return;
+            }
+        }
+        captured.getRGB(0, 0, frame.getWidth(), frame.getHeight(), target, 0, frame.getWidth());
+    }
+
+    /**
+     * Short description for logs
+     */
+    String getName();
+}
@@ -0,0 +1,97 @@
+package com.automation.core.capture;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * ScreenshotEncoder turns a capture into file bytes. Implementations trade
+ * encode time for size:
+ * <ul>
+ *   <li>{@link PngEncoder}: lossless PNG with a chosen deflate level; level 1
+ *       keeps failure evidence cheap, 9 makes the smallest files.</li>
+ *   <li>{@link JpegEncoder}: lossy JPEG at a given quality.</li>
+ *   <li>{@link RawFrameCodec}: packed RGB with a small header, stored as is
+ *       or with fast deflate, for high-rate series; read back with
+ *       {@link RawFrameCodec#read}.</li>
+ * </ul>
+ * Encoders are stateless and may be shared between threads.
+ */
+public interface ScreenshotEncoder {
+
+    /**
+     * Write the image to the stream; the stream is left open
+     */
+    void encode(BufferedImage image, OutputStream out) throws IOException;
+
+    /**
+     * Encode the image into a file, replacing it
+     * @return Bytes written
+     */
+    default long write(BufferedImage image, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            encode(image, out);
+        }
+        return file.length();
+    }
+
+    /**
+     * File extension without the dot, e.g. "png"
+     */
+    String getExtension();
+
+    /**
+     * Short description of the format and its settings, for logs and reports
+     */
+    String getName();
+
+    /**
+     * MIME type of the encoded bytes, e.g. for report attachments
+     */
+    default String getMimeType() {
+        switch (getExtension().toLowerCase(Locale.ROOT)) {
+            case "png":
+                return "image/png";
+            case "jpg":
+            case "jpeg":
+                return "image/jpeg";
+            default:
+                return "application/octet-stream";
+        }
+    }
+
+    /**
+     * Parse an encoder spec: "png[:level]", "jpeg[:quality]" (or "jpg") or "raw[:deflate]"
+     * @param defaultPngLevel Deflate level when a PNG spec has none
+     * @param defaultJpegQuality Quality when a JPEG spec has none
+     */
+    static ScreenshotEncoder fromSpec(String spec, int defaultPngLevel, float defaultJpegQuality) {
+        String normalized = spec == null ? "" : spec.trim().toLowerCase(Locale.ROOT);
+        int colon = normalized.indexOf(':');
+        String format = colon >= 0 ? normalized.substring(0, colon) : normalized;
+        String setting = colon >= 0 ? normalized.substring(colon + 1).trim() : "";
+        try {
+            switch (format) {
+                case "":
+                case "png":
+                    return new PngEncoder(setting.isEmpty() ? defaultPngLevel : Integer.parseInt(setting));
+                case "jpg":
+                case "jpeg":
+                    return new JpegEncoder(setting.isEmpty() ? defaultJpegQuality : Float.parseFloat(setting));
+                case "raw":
+                    if (!setting.isEmpty() && !"deflate".equals(setting)) {
+                        throw new IllegalArgumentException("Unknown raw frame compression: " + setting);
+                    }
+                    return new RawFrameCodec(!setting.isEmpty());
+                default:
+                    throw new IllegalArgumentException("Unknown screenshot format: " + spec);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid screenshot encoder setting: " + spec, e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.automation.core.capture;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * SeriesExporter renders a recorded screenshot series as a contact sheet or
+ * an animated GIF. Frames are decoded one at a time in recording order, so
+ * only the output and a single frame are held in memory however long the
+ * series is.
+ */
+public final class SeriesExporter {
+
+    private static final int SPACING = 10;
+
+    // GIF frame delays are in hundredths of a second
+    private static final int DEFAULT_GIF_DELAY_CS = 50;
+
+    private SeriesExporter() {
+    }
+
+    /**
+     * Lay out every frame as a numbered thumbnail on a square-ish grid
+     */
+    public static BufferedImage contactSheet(SeriesReader series, int thumbWidth, int thumbHeight) throws IOException {
+        int count = series.getFrameCount();
+        if (count == 0) {
+            throw new IOException("Screenshot series has no frames: " + series.getFile());
+        }
+        int cols = (int) Math.ceil(Math.sqrt(count));
+        int rows = (count + cols - 1) / cols;
+        int sheetWidth = cols * thumbWidth + (cols - 1) * SPACING + 2 * SPACING;
+        int sheetHeight = rows * thumbHeight + (rows - 1) * SPACING + 2 * SPACING;
+
+        BufferedImage sheet = new BufferedImage(sheetWidth, sheetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = sheet.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, sheetWidth, sheetHeight);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setFont(new Font("Arial", Font.BOLD, 12));
+        for (int i = 0; i < count; i++) {
+            int x = SPACING + (i % cols) * (thumbWidth + SPACING);
+            int y = SPACING + (i / cols) * (thumbHeight + SPACING);
+            g.drawImage(series.readFrame(i), x, y, thumbWidth, thumbHeight, null);
+            g.setColor(Color.BLACK);
+            g.drawString(String.valueOf(i + 1), x + 5, y + 15);
+        }
+        g.dispose();
+        return sheet;
+    }
+
+    /**
+     * Write the series as a looping animated GIF, each frame shown for as long as it was on screen
+     * @param maxWidth Frames wider than this are scaled down, keeping their aspect ratio
+     */
+    public static void writeGif(SeriesReader series, File target, int maxWidth) throws IOException {
+        int count = series.getFrameCount();
+        if (count == 0) {
+            throw new IOException("Screenshot series has no frames: " + series.getFile());
+        }
+        double scale = Math.min(1.0, (double) maxWidth / series.getWidth());
+        int width = Math.max(1, (int) Math.round(series.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(series.getHeight() * scale));
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        target.delete();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(target)) {
+            writer.setOutput(stream);
+            writer.prepareWriteSequence(null);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            for (int i = 0; i < count; i++) {
+                Graphics2D g = scaled.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(series.readFrame(i), 0, 0, width, height, null);
+                g.dispose();
+
+                int delay = i + 1 < count
+                    ? (int) Math.max(1, Math.min(65535, (series.getTimestamp(i + 1) - series.getTimestamp(i)) / 10))
+                    : DEFAULT_GIF_DELAY_CS;
+                IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(scaled), param);
+                setFrameMetadata(metadata, delay, i == 0);
+                writer.writeToSequence(new IIOImage(scaled, null, metadata), param);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static void setFrameMetadata(IIOMetadata metadata, int delayCentis, boolean first) throws IOException {
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", String.valueOf(delayCentis));
+        control.setAttribute("transparentColorIndex", "0");
+
+        if (first) {
+            // NETSCAPE2.0 extension: loop forever
+            IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+            extension.setAttribute("applicationID", "NETSCAPE");
+            extension.setAttribute("authenticationCode", "2.0");
+            extension.setUserObject(new byte[] {1, 0, 0});
+            child(root, "ApplicationExtensions").appendChild(extension);
+        }
+        metadata.setFromTree(format, root);
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+        for (int i = 0; i < parent.getLength(); i++) {
+            if (parent.item(i).getNodeName().equalsIgnoreCase(name)) {
+                return (IIOMetadataNode) parent.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+}
@@ -0,0 +1,258 @@
+package com.automation.core.capture;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * SeriesReader gives random access to the frames of a {@link SeriesRecorder}
+ * file. A frame is rebuilt from the nearest keyframe before it plus the
+ * deltas in between; the last frame decoded is kept, so reading a series in
+ * order costs one delta per frame.
+ *
+ * The index written on close is used when present. Otherwise the records are
+ * walked from the header, stopping at the first incomplete one, so a series
+ * cut short by a crash still yields every frame that was fully written.
+ */
+public class SeriesReader implements AutoCloseable {
+
+    private final File file;
+    private final RandomAccessFile input;
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final long[] offsets;
+    private final long[] timestamps;
+    private final boolean[] keyframes;
+    private final Inflater inflater = new Inflater();
+
+    private int decodedIndex = -1;
+    private int[] decoded;
+
+    public SeriesReader(File file) throws IOException {
+        this.file = file;
+        this.input = new RandomAccessFile(file, "r");
+        try {
+            if (input.length() < SeriesRecorder.HEADER_BYTES || input.readInt() != SeriesRecorder.MAGIC) {
+                throw new IOException("Not a screenshot series: " + file);
+            }
+            int version = input.readUnsignedByte();
+            if (version != SeriesRecorder.VERSION) {
+                throw new IOException("Unsupported screenshot series version " + version + ": " + file);
+            }
+            width = input.readInt();
+            height = input.readInt();
+            tileSize = input.readInt();
+            if (width <= 0 || height <= 0 || tileSize <= 0) {
+                throw new IOException("Corrupt screenshot series header: " + file);
+            }
+
+            List<long[]> entries = readIndex();
+            if (entries == null) {
+                entries = scanRecords();
+            }
+            offsets = new long[entries.size()];
+            timestamps = new long[entries.size()];
+            keyframes = new boolean[entries.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = entries.get(i)[0];
+                timestamps[i] = entries.get(i)[1];
+                keyframes[i] = entries.get(i)[2] == SeriesRecorder.KEYFRAME;
+            }
+            if (offsets.length > 0 && !keyframes[0]) {
+                throw new IOException("Screenshot series does not start with a keyframe: " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            input.close();
+            inflater.end();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The index from the trailer, or null if the file has none
+     */
+    private List<long[]> readIndex() throws IOException {
+        long length = input.length();
+        if (length < SeriesRecorder.HEADER_BYTES + 16) {
+            return null;
+        }
+        input.seek(length - 12);
+        long indexOffset = input.readLong();
+        if (input.readInt() != SeriesRecorder.INDEX_MAGIC
+                || indexOffset < SeriesRecorder.HEADER_BYTES || indexOffset > length - 16) {
+            return null;
+        }
+        input.seek(indexOffset);
+        int count = input.readInt();
+        if (count < 0 || indexOffset + 4 + 17L * count + 12 != length) {
+            return null;
+        }
+        byte[] table = new byte[17 * count];
+        input.readFully(table);
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(table));
+        List<long[]> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new long[] {data.readLong(), data.readLong(), data.readUnsignedByte()});
+        }
+        return entries;
+    }
+
+    /**
+     * Walk the records after the header, up to the index or the first incomplete record
+     */
+    private List<long[]> scanRecords() throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        long length = input.length();
+        long offset = SeriesRecorder.HEADER_BYTES;
+        while (offset + SeriesRecorder.RECORD_HEADER_BYTES <= length) {
+            input.seek(offset);
+            int type = input.readUnsignedByte();
+            long timestamp = input.readLong();
+            int size = input.readInt();
+            long end = offset + SeriesRecorder.RECORD_HEADER_BYTES + size;
+            if ((type != SeriesRecorder.KEYFRAME && type != SeriesRecorder.DELTA) || size < 0 || end > length) {
+                break;
+            }
+            entries.add(new long[] {offset, timestamp, type});
+            offset = end;
+        }
+        return entries;
+    }
+
+    /**
+     * Decode one frame into a new {@code TYPE_INT_RGB} image
+     */
+    public synchronized BufferedImage readFrame(int index) throws IOException {
+        if (index < 0 || index >= offsets.length) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + offsets.length);
+        }
+        int keyframe = index;
+        while (!keyframes[keyframe]) {
+            keyframe--;
+        }
+        int start;
+        if (decodedIndex >= keyframe && decodedIndex <= index) {
+            start = decodedIndex + 1;
+        } else {
+            if (decoded == null) {
+                decoded = new int[width * height];
+            }
+            decodeKeyframe(keyframe);
+            start = keyframe + 1;
+        }
+        for (int i = start; i <= index; i++) {
+            applyDelta(i);
+        }
+        decodedIndex = index;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(decoded, 0, pixels, 0, pixels.length);
+        return image;
+    }
+
+    private DataInputStream openPayload(int index) throws IOException {
+        input.seek(offsets[index] + 9);
+        int size = input.readInt();
+        byte[] compressed = new byte[size];
+        input.readFully(compressed);
+        inflater.reset();
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed), inflater, 1 << 16));
+    }
+
+    private void decodeKeyframe(int index) throws IOException {
+        try (DataInputStream payload = openPayload(index)) {
+            byte[] row = new byte[width * 3];
+            for (int y = 0; y < height; y++) {
+                payload.readFully(row);
+                int offset = y * width;
+                for (int x = 0, b = 0; x < width; x++, b += 3) {
+                    decoded[offset + x] = (row[b] & 0xFF) << 16 | (row[b + 1] & 0xFF) << 8 | (row[b + 2] & 0xFF);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated keyframe " + index + " in " + file, e);
+        }
+    }
+
+    private void applyDelta(int index) throws IOException {
+        try (DataInputStream payload = openPayload(index)) {
+            int count = payload.readInt();
+            int tilesX = (width + tileSize - 1) / tileSize;
+            int tilesY = (height + tileSize - 1) / tileSize;
+            int[] tiles = new int[count];
+            for (int i = 0; i < count; i++) {
+                tiles[i] = payload.readInt();
+                if (tiles[i] < 0 || tiles[i] >= tilesX * tilesY) {
+                    throw new IOException("Corrupt delta " + index + " in " + file);
+                }
+            }
+            byte[] row = new byte[tileSize * 3];
+            for (int tile : tiles) {
+                int x0 = (tile % tilesX) * tileSize;
+                int y0 = (tile / tilesX) * tileSize;
+                int tileWidth = Math.min(tileSize, width - x0);
+                int y1 = Math.min(height, y0 + tileSize);
+                for (int y = y0; y < y1; y++) {
+                    payload.readFully(row, 0, tileWidth * 3);
+                    int offset = y * width + x0;
+                    for (int x = 0, b = 0; x < tileWidth; x++, b += 3) {
+                        decoded[offset + x] ^= (row[b] & 0xFF) << 16 | (row[b + 1] & 0xFF) << 8 | (row[b + 2] & 0xFF);
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated delta " + index + " in " + file, e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getFrameCount() {
+        return offsets.length;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Capture time of a frame in epoch milliseconds
+     */
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public boolean isKeyframe(int index) {
+        return keyframes[index];
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        decoded = null;
+        decodedIndex = -1;
+        inflater.end();
+        input.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SeriesReader{%s, %dx%d, frames=%d}", file.getName(), width, height, offsets.length);
+    }
+}
@@ -0,0 +1,289 @@
+package com.automation.core.capture;
+
+import com.automation.core.matching.RasterImage;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * SeriesRecorder writes a screenshot series into one append-only file: a
+ * keyframe, then for each following frame only the tiles that changed, XORed
+ * with the previous frame so unchanged pixels inside a changed tile compress
+ * to nothing. Every record is deflated at the fastest level.
+ *
+ * A new keyframe starts every {@code keyframeInterval} frames, or when more
+ * than half the tiles changed, so {@link SeriesReader} decodes at most that
+ * many deltas to reach any frame. Closing the recorder appends a frame index;
+ * a file whose recorder never closed can still be read, the reader then
+ * rebuilds the index by walking the records.
+ *
+ * <pre>
+ * header:  "UDAS" version:u8 width:i32 height:i32 tileSize:i32
+ * record:  type:u8 (0 keyframe, 1 delta) timestamp:i64 length:i32 deflated payload
+ *          keyframe payload: packed RGB of the whole frame
+ *          delta payload:    tileCount:i32 tileIndex:i32[] XORed RGB of those tiles, row by row
+ * trailer: frameCount:i32 (offset:i64 timestamp:i64 type:u8)[] indexOffset:i64 "UDIX"
+ * </pre>
+ * All integers are big-endian. All frames of a series must have the same size.
+ */
+public class SeriesRecorder implements AutoCloseable {
+
+    public static final String EXTENSION = "udas";
+
+    static final int MAGIC = 0x55444153; // "UDAS"
+    static final int INDEX_MAGIC = 0x55444958; // "UDIX"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 17;
+    static final int RECORD_HEADER_BYTES = 13;
+    static final int KEYFRAME = 0;
+    static final int DELTA = 1;
+
+    private final File file;
+    private final DataOutputStream out;
+    private final int tileSize;
+    private final int keyframeInterval;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(1 << 16);
+    private final List<long[]> index = new ArrayList<>();
+
+    private int width;
+    private int height;
+    private int[] previous;
+    private int[] current;
+    private int framesSinceKeyframe;
+    private long position;
+    private long keyframes;
+    private long rawBytes;
+    private boolean closed;
+
+    /**
+     * @param tileSize Tile edge length for detecting changed areas
+     * @param keyframeInterval Frames per keyframe, bounding the deltas decoded for random access
+     */
+    public SeriesRecorder(File file, int tileSize, int keyframeInterval) throws IOException {
+        if (tileSize < 1 || keyframeInterval < 1) {
+            throw new IllegalArgumentException("Tile size and keyframe interval must be positive");
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        this.file = file;
+        this.tileSize = tileSize;
+        this.keyframeInterval = keyframeInterval;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+    }
+
+    /**
+     * Append a frame stamped with the current time
+     * @return Index of the frame in the series
+     */
+    public int append(BufferedImage frame) throws IOException {
+        return append(frame, System.currentTimeMillis());
+    }
+
+    /**
+     * Append a frame; the image is not kept and may be reused afterwards
+     * @return Index of the frame in the series
+     */
+    public synchronized int append(BufferedImage frame, long timestampMillis) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Series recorder is closed: " + file);
+        }
+        RasterImage raster = RasterImage.from(frame);
+        if (previous == null) {
+            width = raster.getWidth();
+            height = raster.getHeight();
+            previous = new int[width * height];
+            current = new int[width * height];
+            writeHeader();
+        } else if (raster.getWidth() != width || raster.getHeight() != height) {
+            throw new IllegalArgumentException(String.format("Series frames must all be %dx%d, got %dx%d",
+                width, height, raster.getWidth(), raster.getHeight()));
+        }
+
+        int[] pixels = raster.getPixels();
+        for (int i = 0; i < current.length; i++) {
+            current[i] = pixels[i] & 0xFFFFFF;
+        }
+
+        int type;
+        payload.reset();
+        deflater.reset();
+        DeflaterOutputStream body = new DeflaterOutputStream(payload, deflater, 1 << 16);
+        int[] changedTiles = index.isEmpty() || framesSinceKeyframe + 1 >= keyframeInterval ? null : changedTiles();
+        if (changedTiles == null) {
+            type = KEYFRAME;
+            writeKeyframe(body);
+            framesSinceKeyframe = 0;
+            keyframes++;
+        } else {
+            type = DELTA;
+            writeDelta(body, changedTiles);
+            framesSinceKeyframe++;
+        }
+        body.finish();
+
+        index.add(new long[] {position, timestampMillis, type});
+        out.writeByte(type);
+        out.writeLong(timestampMillis);
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+        position += RECORD_HEADER_BYTES + payload.size();
+        rawBytes += 3L * width * height;
+
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+        return index.size() - 1;
+    }
+
+    private void writeHeader() throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(tileSize);
+        position = HEADER_BYTES;
+    }
+
+    /**
+     * @return Indices of the tiles that differ from the previous frame, or null if a keyframe is cheaper
+     */
+    private int[] changedTiles() {
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+        int[] changed = new int[tilesX * tilesY];
+        int count = 0;
+        for (int ty = 0; ty < tilesY; ty++) {
+            int y0 = ty * tileSize;
+            int y1 = Math.min(height, y0 + tileSize);
+            for (int tx = 0; tx < tilesX; tx++) {
+                int x0 = tx * tileSize;
+                int x1 = Math.min(width, x0 + tileSize);
+                for (int y = y0; y < y1; y++) {
+                    int offset = y * width;
+                    if (Arrays.mismatch(current, offset + x0, offset + x1, previous, offset + x0, offset + x1) >= 0) {
+                        changed[count++] = ty * tilesX + tx;
+                        break;
+                    }
+                }
+            }
+        }
+        return count * 2 > changed.length ? null : Arrays.copyOf(changed, count);
+    }
+
+    private void writeKeyframe(DeflaterOutputStream body) throws IOException {
+        byte[] row = new byte[width * 3];
+        for (int y = 0; y < height; y++) {
+            packRow(current, y * width, width, row, 0);
+            body.write(row);
+        }
+    }
+
+    private void writeDelta(DeflaterOutputStream body, int[] tiles) throws IOException {
+        DataOutputStream data = new DataOutputStream(body);
+        data.writeInt(tiles.length);
+        for (int tile : tiles) {
+            data.writeInt(tile);
+        }
+        int tilesX = (width + tileSize - 1) / tileSize;
+        byte[] row = new byte[tileSize * 3];
+        for (int tile : tiles) {
+            int x0 = (tile % tilesX) * tileSize;
+            int y0 = (tile / tilesX) * tileSize;
+            int tileWidth = Math.min(tileSize, width - x0);
+            int y1 = Math.min(height, y0 + tileSize);
+            for (int y = y0; y < y1; y++) {
+                int offset = y * width + x0;
+                for (int x = 0, b = 0; x < tileWidth; x++, b += 3) {
+                    int p = current[offset + x] ^ previous[offset + x];
+                    row[b] = (byte) (p >> 16);
+                    row[b + 1] = (byte) (p >> 8);
+                    row[b + 2] = (byte) p;
+                }
+                body.write(row, 0, tileWidth * 3);
+            }
+        }
+    }
+
+    static void packRow(int[] pixels, int offset, int count, byte[] target, int targetOffset) {
+        for (int x = 0, b = targetOffset; x < count; x++, b += 3) {
+            int p = pixels[offset + x];
+            target[b] = (byte) (p >> 16);
+            target[b + 1] = (byte) (p >> 8);
+            target[b + 2] = (byte) p;
+        }
+    }
+
+    /**
+     * Write the frame index and close the file; further calls do nothing
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (previous == null) {
+                return;
+            }
+            long indexOffset = position;
+            out.writeInt(index.size());
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeByte((int) entry[2]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(INDEX_MAGIC);
+            position += 4 + 17L * index.size() + 12;
+        } finally {
+            out.close();
+            deflater.end();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized int getFrameCount() {
+        return index.size();
+    }
+
+    public synchronized long getKeyframeCount() {
+        return keyframes;
+    }
+
+    /**
+     * Bytes written to the series file so far
+     */
+    public synchronized long getBytesWritten() {
+        return position;
+    }
+
+    /**
+     * Bytes the frames would take as uncompressed RGB
+     */
+    public synchronized long getRawBytes() {
+        return rawBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SeriesRecorder{%s, frames=%d, keyframes=%d, %d KB (raw %d KB)}",
+            file.getName(), index.size(), keyframes, position / 1024, rawBytes / 1024);
+    }
+}
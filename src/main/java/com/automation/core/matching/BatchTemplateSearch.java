@@ -0,0 +1,116 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BatchTemplateSearch looks up several templates in the same screenshot in a
+ * single pass over the screen.
+ *
+ * The screenshot's luminance plane and summed-area tables are built once and
+ * shared by every template. Offset rows are visited top to bottom and each
+ * row is scored for all templates before moving on, so the screen rows a row
+ * of windows touches are still in cache when the next template reads them. Each template keeps
+ * its own best-so-far state with the same tie and early-exit rules as
+ * {@link TemplateMatchEngine#findBestMatch}, so results are identical to
+ * searching the templates one at a time.
+ */
+public class BatchTemplateSearch {
+    private static final Logger logger = LoggerFactory.getLogger(BatchTemplateSearch.class);
+
+    private final TemplateMatchEngine engine;
+
+    public BatchTemplateSearch(TemplateMatchEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Find the best match of every template anywhere in the screenshot
+     * @return Results in template order; an entry is null if that template has no match >= threshold
+     */
+    public MatchResult[] findAll(RasterImage screen, List<RasterImage> templates, double threshold) {
+        double[] thresholds = new double[templates.size()];
+        Arrays.fill(thresholds, threshold);
+        return findAll(screen, templates, thresholds, null);
+    }
+
+    /**
+     * Find the best match of every template, each against its own threshold
+     * @param stats Per-template pruning counters (entries may be null), or null
+     * @return Results in template order; an entry is null if that template has no match >= its threshold
+     */
+    public MatchResult[] findAll(RasterImage screen, List<RasterImage> templates, double[] thresholds,
+                                 PruningStats[] stats) {
+        int count = templates.size();
+        Rectangle[] offsets = new Rectangle[count];
+        MatchResult[] best = new MatchResult[count];
+        boolean[] done = new boolean[count];
+
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            RasterImage template = templates.get(i);
+            offsets[i] = TemplateMatchEngine.validOffsets(screen, template, null);
+            if (offsets[i] == null) {
+                done[i] = true;
+                continue;
+            }
+            template.precompute();
+            firstRow = Math.min(firstRow, offsets[i].y);
+            lastRow = Math.max(lastRow, offsets[i].y + offsets[i].height);
+        }
+
+        // Shared by all templates; computed here so the timing below covers only the scan
+        screen.getIntegral();
+
+        long startTime = System.nanoTime();
+        int remaining = countRemaining(done);
+        for (int y = firstRow; y < lastRow && remaining > 0; y++) {
+            for (int i = 0; i < count; i++) {
+                Rectangle range = offsets[i];
+                if (done[i] || y < range.y || y >= range.y + range.height) {
+                    continue;
+                }
+                PruningStats templateStats = stats != null ? stats[i] : null;
+                double floor = best[i] != null ? Math.max(thresholds[i], best[i].getScore()) : thresholds[i];
+                MatchResult row = engine.scan(screen, templates.get(i), range.x, range.x + range.width,
+                    y, y + 1, floor, templateStats);
+                best[i] = TemplateMatchEngine.mergeInScanOrder(best[i], row);
+                if (best[i] != null && best[i].getScore() >= TemplateMatchEngine.PERFECT_SCORE) {
+                    done[i] = true;
+                    remaining--;
+                }
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Scored {} templates in one pass in {} ms", count,
+                (System.nanoTime() - startTime) / 1_000_000);
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (stats != null && stats[i] != null && offsets[i] != null) {
+                stats[i].recordSearch();
+            }
+            if (best[i] != null && best[i].getScore() < thresholds[i]) {
+                best[i] = null;
+            }
+        }
+        return best;
+    }
+
+    private static int countRemaining(boolean[] done) {
+        int remaining = 0;
+        for (boolean d : done) {
+            if (!d) {
+                remaining++;
+            }
+        }
+        return remaining;
+    }
+}
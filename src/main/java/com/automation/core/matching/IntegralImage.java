@@ -0,0 +1,86 @@
+package com.automation.core.matching;
+
+/**
+ * IntegralImage holds summed-area tables of a luminance plane so the sum and
+ * the sum of squares of any rectangular window are available in O(1).
+ *
+ * Tables have one extra leading row and column of zeros, so entry (x, y)
+ * holds the total of all pixels above and to the left of (x, y). The plain
+ * sum table uses ints: intermediate entries may wrap on very large images,
+ * but two's-complement differences of a window stay exact because a window
+ * sum of 8-bit values never exceeds the int range for images below 8.4
+ * megapixels. Squares need longs.
+ */
+public class IntegralImage {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final int[] sums;
+    private final long[] squareSums;
+
+    private IntegralImage(int width, int height, int[] sums, long[] squareSums) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+        this.sums = sums;
+        this.squareSums = squareSums;
+    }
+
+    /**
+     * Build the tables for a row-major luminance plane in one pass
+     */
+    public static IntegralImage of(int[] gray, int width, int height) {
+        int stride = width + 1;
+        int[] sums = new int[stride * (height + 1)];
+        long[] squareSums = new long[stride * (height + 1)];
+
+        for (int y = 0; y < height; y++) {
+            int rowSum = 0;
+            long rowSquares = 0;
+            int src = y * width;
+            int above = y * stride + 1;
+            int dst = above + stride;
+            for (int x = 0; x < width; x++) {
+                int v = gray[src + x];
+                rowSum += v;
+                rowSquares += v * v;
+                sums[dst + x] = sums[above + x] + rowSum;
+                squareSums[dst + x] = squareSums[above + x] + rowSquares;
+            }
+        }
+        return new IntegralImage(width, height, sums, squareSums);
+    }
+
+    /**
+     * Sum of the luminance values in the window with top-left (x, y)
+     */
+    public long windowSum(int x, int y, int w, int h) {
+        int top = y * stride + x;
+        int bottom = top + h * stride;
+        return sums[bottom + w] - sums[bottom] - sums[top + w] + sums[top];
+    }
+
+    /**
+     * Sum of the squared luminance values in the window with top-left (x, y)
+     */
+    public long windowSumSquares(int x, int y, int w, int h) {
+        int top = y * stride + x;
+        int bottom = top + h * stride;
+        return squareSums[bottom + w] - squareSums[bottom] - squareSums[top + w] + squareSums[top];
+    }
+
+    /**
+     * Approximate heap footprint of both tables
+     */
+    public long getMemoryFootprint() {
+        return (long) sums.length * Integer.BYTES + (long) squareSums.length * Long.BYTES;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
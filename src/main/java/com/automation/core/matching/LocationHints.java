@@ -0,0 +1,112 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LocationHints remembers where each template was last found and probes a
+ * few small, growing windows around that spot before a full-screen search.
+ *
+ * UI elements usually reappear where they were, so a poll loop waiting for
+ * a button typically scores a few hundred offsets instead of the whole
+ * screen. A probe accepts the best offset in the first window that reaches
+ * the threshold; a higher-scoring occurrence elsewhere on screen is not
+ * looked for. Hints are keyed by the caller (template path plus screenshot
+ * size), so captures of different windows do not share locations.
+ */
+public class LocationHints {
+    private static final Logger logger = LoggerFactory.getLogger(LocationHints.class);
+
+    /**
+     * Half-widths in pixels of the windows probed around the last location, smallest first
+     */
+    private static final int[] PROBE_MARGINS = {4, 16, 64};
+
+    private final Map<String, Point> lastLocations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Probe the windows around the last location of a template
+     * @param engine Engine used to score the probe windows
+     * @return Match with score >= threshold near the last location, or null on a miss or without a hint
+     */
+    public MatchResult probe(String key, TemplateMatchEngine engine, RasterImage screen, RasterImage template,
+                             double threshold, PruningStats stats) {
+        Point last = lastLocations.get(key);
+        if (last == null) {
+            return null;
+        }
+
+        for (int margin : PROBE_MARGINS) {
+            Rectangle window = new Rectangle(last.x - margin, last.y - margin, margin * 2 + 1, margin * 2 + 1);
+            MatchResult match = engine.findBestMatch(screen, template, window, threshold, stats);
+            if (match != null) {
+                hits.increment();
+                record(key, match);
+                logger.debug("Hinted probe hit within {} px of ({}, {}): {}", margin, last.x, last.y, match);
+                return match;
+            }
+        }
+
+        misses.increment();
+        logger.debug("Hinted probe missed around ({}, {}) for {}", last.x, last.y, key);
+        return null;
+    }
+
+    /**
+     * Remember where a template was found
+     */
+    public void record(String key, MatchResult match) {
+        lastLocations.put(key, new Point(match.getX(), match.getY()));
+    }
+
+    /**
+     * Forget the last location of one template
+     */
+    public void forget(String key) {
+        lastLocations.remove(key);
+    }
+
+    /**
+     * Forget all locations and reset the counters
+     */
+    public void clear() {
+        lastLocations.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Fraction of hinted probes that found the template, 0.0 before any probe
+     */
+    public double getHitRate() {
+        long probes = getHits() + getMisses();
+        return probes == 0 ? 0.0 : (double) getHits() / probes;
+    }
+
+    public int size() {
+        return lastLocations.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LocationHints{templates=%d, hits=%d, misses=%d, hitRate=%.1f%%}",
+            size(), getHits(), getMisses(), getHitRate() * 100);
+    }
+}
@@ -0,0 +1,145 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * MatchDomain selects the image representation templates are matched in.
+ *
+ * <ul>
+ *   <li>LUMINANCE: 8-bit luminance, the engine's native domain and the default.</li>
+ *   <li>EDGES: Sobel edge magnitude. Outlines and text keep their shape when a
+ *       theme swaps light and dark colors, so one template serves both themes.
+ *       The template's one-pixel border is dropped before matching, because its
+ *       edges depend on pixels outside the template.</li>
+ *   <li>RGB: located in luminance, then every channel of the matched window is
+ *       compared with the template; the score is the lower of the two, so
+ *       controls that differ only in hue (a red and a green button) are told apart.</li>
+ * </ul>
+ * The screen side of each domain is memoized on the screenshot's raster, so it is
+ * built once per capture however many templates use it.
+ */
+public enum MatchDomain {
+    LUMINANCE,
+    EDGES,
+    RGB;
+
+    // Edge maps of templates without their border ring, per decoded template
+    private static final Map<RasterImage, RasterImage> edgeTemplates =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Parse a domain name: "luminance" (also "luma", "gray", "grayscale"),
+     * "edges" (also "edge", "sobel") or "rgb" (also "color")
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static MatchDomain fromName(String name) {
+        switch (name == null ? "" : name.trim().toLowerCase()) {
+            case "luminance":
+            case "luma":
+            case "gray":
+            case "grayscale":
+                return LUMINANCE;
+            case "edges":
+            case "edge":
+            case "sobel":
+                return EDGES;
+            case "rgb":
+            case "color":
+                return RGB;
+            default:
+                throw new IllegalArgumentException("Unknown match domain: " + name);
+        }
+    }
+
+    /**
+     * Get the screenshot in this domain
+     */
+    public RasterImage prepareScreen(RasterImage screen) {
+        return this == EDGES ? screen.getEdges() : screen;
+    }
+
+    /**
+     * Get the template in this domain; edge templates are built once per decoded template
+     */
+    public RasterImage prepareTemplate(RasterImage template) {
+        if (this != EDGES) {
+            return template;
+        }
+        if (templateInset(template) == 0) {
+            return template.getEdges();
+        }
+        return edgeTemplates.computeIfAbsent(template, t -> t.getEdges()
+            .crop(1, 1, t.getWidth() - 2, t.getHeight() - 2).precompute());
+    }
+
+    /**
+     * Pixels dropped from each side of the template by {@link #prepareTemplate}
+     */
+    public int templateInset(RasterImage template) {
+        return this == EDGES && template.getWidth() > 2 && template.getHeight() > 2 ? 1 : 0;
+    }
+
+    /**
+     * Turn a match of the prepared template into a match of the original template
+     * @param screen Screenshot in its original colors
+     * @param template Template in its original colors
+     * @return Match in screenshot coordinates with the template's size, or null if the
+     *         RGB comparison drops the score below the threshold
+     */
+    public MatchResult finish(RasterImage screen, RasterImage template, MatchResult match, double threshold) {
+        if (match == null) {
+            return null;
+        }
+        int inset = templateInset(template);
+        if (inset > 0) {
+            match = new MatchResult(match.getX() - inset, match.getY() - inset,
+                match.getWidth() + 2 * inset, match.getHeight() + 2 * inset, match.getScore(), match.getScale());
+        }
+        if (this != RGB || match.getScale() != 1.0) {
+            return match;
+        }
+
+        double colorScore = colorSimilarity(screen, template, match.getX(), match.getY());
+        if (colorScore >= match.getScore()) {
+            return match;
+        }
+        if (colorScore < threshold) {
+            return null;
+        }
+        return new MatchResult(match.getX(), match.getY(), match.getWidth(), match.getHeight(),
+            colorScore, match.getScale());
+    }
+
+    /**
+     * 1.0 minus the mean absolute channel difference (as a fraction of 255) between
+     * the template's active pixels and the screenshot window at (x, y)
+     */
+    static double colorSimilarity(RasterImage screen, RasterImage template, int x, int y) {
+        int[] s = screen.getPixels();
+        int[] t = template.getPixels();
+        int screenWidth = screen.getWidth();
+        int width = template.getWidth();
+        TemplateMask mask = template.getMask();
+        long sad = 0;
+        for (int row = 0; row < template.getHeight(); row++) {
+            int sOff = (y + row) * screenWidth + x;
+            int tOff = row * width;
+            for (int col = 0; col < width; col++) {
+                if (mask != null && !mask.isActive(col, row)) {
+                    continue;
+                }
+                int p = s[sOff + col];
+                int q = t[tOff + col];
+                sad += Math.abs(((p >> 16) & 0xFF) - ((q >> 16) & 0xFF))
+                    + Math.abs(((p >> 8) & 0xFF) - ((q >> 8) & 0xFF))
+                    + Math.abs((p & 0xFF) - (q & 0xFF));
+            }
+        }
+        int pixels = mask != null ? mask.getActiveCount() : template.getPixelCount();
+        return 1.0 - (double) sad / (3.0 * 255.0 * pixels);
+    }
+}
@@ -0,0 +1,225 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * MatchResultCache remembers template lookups against screen content that has
+ * not changed, so click-then-verify steps and poll loops waiting on something
+ * else skip the rescan.
+ *
+ * Entries are keyed by the caller's template id (path, modification time,
+ * threshold, ...), the searched region and a 64-bit hash of the region's
+ * pixels. Every pixel is hashed, four independent lanes at a time, which costs
+ * under two milliseconds per full HD frame; the hash of a whole screenshot is
+ * computed once per raster. "Not found" results are cached as well. Entries
+ * expire after a time-to-live and are evicted least-recently-used beyond a
+ * maximum count.
+ */
+public class MatchResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(MatchResultCache.class);
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long PRIME = 0x9FB21C651E98DF25L;
+
+    // Whole-screenshot hashes, per raster
+    private static final Map<RasterImage, Long> frameHashes = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long expirations;
+
+    /**
+     * @param maxEntries Largest number of cached lookups
+     * @param ttlMillis How long a cached lookup stays valid
+     */
+    public MatchResultCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Build the cache key of a lookup
+     * @param templateId Identifies the template and everything else that affects the result
+     * @param region Searched area of the screenshot, or null for the whole screenshot
+     */
+    public static String key(String templateId, RasterImage screen, Rectangle region) {
+        Rectangle area = region != null ? region : new Rectangle(0, 0, screen.getWidth(), screen.getHeight());
+        return templateId + "|" + area.x + "," + area.y + "," + area.width + "x" + area.height
+            + "|" + Long.toHexString(contentHash(screen, region));
+    }
+
+    /**
+     * Hash of the pixels in a region of a screenshot
+     * @param region Area to hash (clipped to the screenshot), or null for the whole screenshot
+     */
+    public static long contentHash(RasterImage screen, Rectangle region) {
+        if (region == null) {
+            return frameHashes.computeIfAbsent(screen,
+                s -> hash(s.getPixels(), s.getWidth(), 0, 0, s.getWidth(), s.getHeight()));
+        }
+        Rectangle area = region.intersection(new Rectangle(0, 0, screen.getWidth(), screen.getHeight()));
+        if (area.isEmpty()) {
+            return SEED;
+        }
+        return hash(screen.getPixels(), screen.getWidth(), area.x, area.y, area.width, area.height);
+    }
+
+    private static long hash(int[] pixels, int stride, int x, int y, int width, int height) {
+        long h0 = SEED;
+        long h1 = SEED + 1;
+        long h2 = SEED + 2;
+        long h3 = SEED + 3;
+        for (int row = y; row < y + height; row++) {
+            int i = row * stride + x;
+            int end = i + width;
+            for (; i + 3 < end; i += 4) {
+                h0 = (h0 ^ pixels[i]) * PRIME;
+                h1 = (h1 ^ pixels[i + 1]) * PRIME;
+                h2 = (h2 ^ pixels[i + 2]) * PRIME;
+                h3 = (h3 ^ pixels[i + 3]) * PRIME;
+            }
+            for (; i < end; i++) {
+                h0 = (h0 ^ pixels[i]) * PRIME;
+            }
+        }
+        long h = mix(h0) + 31 * (mix(h1) + 31 * (mix(h2) + 31 * mix(h3)));
+        return mix(h ^ ((long) width << 32 | height));
+    }
+
+    // Final avalanche of MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Get a cached lookup
+     * @return The cached lookup, or null on a miss; {@link Hit#getMatch()} is null for a cached "not found"
+     */
+    public synchronized Hit get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.createdNanos > ttlNanos) {
+            entries.remove(key);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.hit;
+    }
+
+    /**
+     * Cache the result of a lookup
+     * @param match The match, or null if the template was not found
+     */
+    public synchronized void put(String key, MatchResult match) {
+        entries.put(key, new Entry(new Hit(match), System.nanoTime()));
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drop all cached lookups of one template
+     * @param templateId The id passed to {@link #key}
+     */
+    public synchronized void invalidate(String templateId) {
+        String prefix = templateId + "|";
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Drop all cached lookups and reset the counters
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        expirations = 0;
+        logger.debug("Match result cache cleared");
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTtlMillis() {
+        return ttlNanos / 1_000_000L;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("MatchResultCache{entries=%d/%d, ttl=%dms, hits=%d, misses=%d, expirations=%d}",
+            entries.size(), maxEntries, getTtlMillis(), hits, misses, expirations);
+    }
+
+    /**
+     * A cached lookup
+     */
+    public static final class Hit {
+        private final MatchResult match;
+
+        private Hit(MatchResult match) {
+            this.match = match;
+        }
+
+        /**
+         * @return The cached match, or null if the template was not found
+         */
+        public MatchResult getMatch() {
+            return match;
+        }
+    }
+
+    private static final class Entry {
+        final Hit hit;
+        final long createdNanos;
+
+        Entry(Hit hit, long createdNanos) {
+            this.hit = hit;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
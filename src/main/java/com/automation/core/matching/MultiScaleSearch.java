@@ -0,0 +1,149 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * MultiScaleSearch finds templates captured at one display scaling on a
+ * desktop running at another (e.g. a 100% template on a 125% VDI session).
+ *
+ * The template is resized to each configured factor and matched against the
+ * same screenshot raster, so the screenshot's luminance plane and summed-area
+ * tables are built once and shared by every scale. Resizing the template
+ * rather than the screenshot keeps the per-scale cost to a small bilinear pass.
+ * The winning scale is remembered per template and tried first next time; if
+ * it still reaches the threshold, the other scales are skipped.
+ */
+public class MultiScaleSearch {
+    private static final Logger logger = LoggerFactory.getLogger(MultiScaleSearch.class);
+
+    /**
+     * Scaled templates smaller than this in either dimension are not searched
+     */
+    private static final int MIN_SCALED_SIZE = 4;
+
+    private final double[] scales;
+    private final Map<String, Double> winningScales = new ConcurrentHashMap<>();
+
+    // Resized copies per decoded template; cached templates keep a stable identity
+    private final Map<RasterImage, Map<Double, RasterImage>> scaledTemplates =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @param scales Factors to resize templates by; 1.0 is always tried
+     */
+    public MultiScaleSearch(double[] scales) {
+        List<Double> unique = new ArrayList<>();
+        unique.add(1.0);
+        for (double scale : scales) {
+            if (scale > 0 && !unique.contains(scale)) {
+                unique.add(scale);
+            }
+        }
+        this.scales = unique.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Parse a comma-separated list of scale factors such as "1.0, 1.25, 1.5"
+     */
+    public static double[] parseScales(String value) {
+        List<Double> parsed = new ArrayList<>();
+        if (value != null) {
+            for (String part : value.split(",")) {
+                String trimmed = part.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                try {
+                    parsed.add(Double.parseDouble(trimmed));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid scale factor: {}", trimmed);
+                }
+            }
+        }
+        return parsed.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Search every scale, starting with the last winning scale for this template
+     * @param key Identifies the template across lookups (e.g. its path)
+     * @param search Runs the configured single-scale search for a resized template;
+     *               returns a match reaching the threshold, or null
+     * @return Best match across scales with {@link MatchResult#getScale()} set, or null
+     */
+    public MatchResult findBestMatch(String key, RasterImage template, Function<RasterImage, MatchResult> search) {
+        double preferred = getPreferredScale(key);
+        MatchResult best = null;
+
+        for (double scale : searchOrder(preferred)) {
+            RasterImage scaled = scaled(template, scale);
+            if (scaled.getWidth() < MIN_SCALED_SIZE || scaled.getHeight() < MIN_SCALED_SIZE) {
+                continue;
+            }
+
+            MatchResult match = search.apply(scaled);
+            if (match == null) {
+                continue;
+            }
+            match = match.withScale(scale);
+            if (scale == preferred || match.getScore() >= TemplateMatchEngine.PERFECT_SCORE) {
+                best = match;
+                break;
+            }
+            if (best == null || match.getScore() > best.getScore()) {
+                best = match;
+            }
+        }
+
+        if (best != null) {
+            winningScales.put(key, best.getScale());
+            logger.debug("Multi-scale search for {} won at scale {}: {}", key, best.getScale(), best);
+        }
+        return best;
+    }
+
+    /**
+     * Get the scale that last matched a template, 1.0 if it has not matched yet
+     */
+    public double getPreferredScale(String key) {
+        return winningScales.getOrDefault(key, 1.0);
+    }
+
+    /**
+     * Get the template resized by a factor, resizing it once per template and scale
+     */
+    public RasterImage scaled(RasterImage template, double scale) {
+        if (scale == 1.0) {
+            return template;
+        }
+        Map<Double, RasterImage> byScale = scaledTemplates.computeIfAbsent(template,
+            t -> new ConcurrentHashMap<>());
+        return byScale.computeIfAbsent(scale, s -> template.scale(s).precompute());
+    }
+
+    private double[] searchOrder(double preferred) {
+        double[] order = new double[scales.length];
+        order[0] = preferred;
+        int i = 1;
+        for (double scale : scales) {
+            if (scale != preferred && i < order.length) {
+                order[i++] = scale;
+            }
+        }
+        return i == order.length ? order : Arrays.copyOf(order, i);
+    }
+
+    public double[] getScales() {
+        return scales.clone();
+    }
+}
@@ -0,0 +1,77 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * NonMaximumSuppression collapses overlapping hits of a multi-match search
+ * into one hit per object.
+ *
+ * Hits are visited from the highest score down (ties broken top-to-bottom,
+ * then left-to-right) and a hit is kept only if its overlap with every hit
+ * already kept stays at or below the allowed intersection-over-union.
+ */
+public final class NonMaximumSuppression {
+
+    /**
+     * Default allowed intersection-over-union: a hit shifted by more than about
+     * half a template from a kept hit counts as a separate occurrence
+     */
+    public static final double DEFAULT_MAX_OVERLAP = 0.3;
+
+    private static final Comparator<MatchResult> STRONGEST_FIRST =
+        Comparator.comparingDouble(MatchResult::getScore).reversed()
+            .thenComparingInt(MatchResult::getY)
+            .thenComparingInt(MatchResult::getX);
+
+    private static final Comparator<MatchResult> READING_ORDER =
+        Comparator.comparingInt(MatchResult::getY).thenComparingInt(MatchResult::getX);
+
+    private NonMaximumSuppression() {
+    }
+
+    /**
+     * Suppress overlapping hits
+     * @param maxOverlap Largest intersection-over-union two kept hits may have (0.0 to 1.0)
+     * @return Kept hits in reading order (top-to-bottom, then left-to-right)
+     */
+    public static List<MatchResult> apply(List<MatchResult> hits, double maxOverlap) {
+        List<MatchResult> sorted = new ArrayList<>(hits);
+        sorted.sort(STRONGEST_FIRST);
+
+        List<MatchResult> kept = new ArrayList<>();
+        for (MatchResult hit : sorted) {
+            Rectangle bounds = hit.getBounds();
+            boolean suppressed = false;
+            for (MatchResult other : kept) {
+                if (intersectionOverUnion(bounds, other.getBounds()) > maxOverlap) {
+                    suppressed = true;
+                    break;
+                }
+            }
+            if (!suppressed) {
+                kept.add(hit);
+            }
+        }
+
+        kept.sort(READING_ORDER);
+        return kept;
+    }
+
+    /**
+     * Area of the intersection divided by the area of the union, 0.0 for disjoint rectangles
+     */
+    public static double intersectionOverUnion(Rectangle a, Rectangle b) {
+        Rectangle intersection = a.intersection(b);
+        if (intersection.isEmpty()) {
+            return 0.0;
+        }
+        double overlap = (double) intersection.width * intersection.height;
+        double union = (double) a.width * a.height + (double) b.width * b.height - overlap;
+        return overlap / union;
+    }
+}
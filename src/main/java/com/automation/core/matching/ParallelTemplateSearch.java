@@ -0,0 +1,134 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ParallelTemplateSearch splits the candidate offsets into row bands and
+ * scores them on a ForkJoinPool.
+ *
+ * Band results are merged in row order using the same rule as the sequential
+ * scan (the first perfect score wins, otherwise the first maximum), so the
+ * result is identical to {@link TemplateMatchEngine#findBestMatch} regardless
+ * of thread count or scheduling.
+ */
+public class ParallelTemplateSearch {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTemplateSearch.class);
+
+    /**
+     * Bands below this many offset rows are not split further
+     */
+    private static final int MIN_BAND_ROWS = 4;
+
+    private final TemplateMatchEngine engine;
+    private final ForkJoinPool pool;
+
+    public ParallelTemplateSearch(TemplateMatchEngine engine, ForkJoinPool pool) {
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    /**
+     * Find the best match of the template anywhere in the screenshot
+     * @return Best match with score >= threshold, or null if none qualifies
+     */
+    public MatchResult findBestMatch(RasterImage screen, RasterImage template, double threshold) {
+        return findBestMatch(screen, template, null, threshold);
+    }
+
+    /**
+     * Find the best match restricted to a set of candidate top-left offsets
+     * @return Best match with score >= threshold, or null if none qualifies
+     */
+    public MatchResult findBestMatch(RasterImage screen, RasterImage template, Rectangle searchArea, double threshold) {
+        return findBestMatch(screen, template, searchArea, threshold, null);
+    }
+
+    /**
+     * Find the best match restricted to a set of candidate top-left offsets
+     * @param stats Receives candidate and pruning counts from every band, or null
+     * @return Best match with score >= threshold, or null if none qualifies
+     */
+    public MatchResult findBestMatch(RasterImage screen, RasterImage template, Rectangle searchArea,
+                                     double threshold, PruningStats stats) {
+        Rectangle offsets = TemplateMatchEngine.validOffsets(screen, template, searchArea);
+        if (offsets == null) {
+            return null;
+        }
+
+        // Build the shared luminance plane and tables before the bands read them concurrently
+        screen.getIntegral();
+        template.precompute();
+
+        // Aim for a few bands per worker so uneven early exits still balance
+        int bandRows = Math.max(MIN_BAND_ROWS, offsets.height / (pool.getParallelism() * 4));
+
+        long startTime = System.nanoTime();
+        MatchResult best = pool.invoke(new BandTask(screen, template, offsets.x, offsets.x + offsets.width,
+            offsets.y, offsets.y + offsets.height, bandRows, threshold, stats));
+        if (stats != null) {
+            stats.recordSearch();
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Scanned {} offsets on {} threads in {} ms, best: {}",
+                (long) offsets.width * offsets.height, pool.getParallelism(),
+                (System.nanoTime() - startTime) / 1_000_000, best);
+        }
+
+        return best != null && best.getScore() >= threshold ? best : null;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Scores a band of offset rows, splitting it in half while it is large
+     */
+    private class BandTask extends RecursiveTask<MatchResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final RasterImage screen;
+        private final RasterImage template;
+        private final int x0;
+        private final int x1;
+        private final int y0;
+        private final int y1;
+        private final int bandRows;
+        private final double threshold;
+        private final PruningStats stats;
+
+        BandTask(RasterImage screen, RasterImage template, int x0, int x1, int y0, int y1, int bandRows,
+                 double threshold, PruningStats stats) {
+            this.screen = screen;
+            this.template = template;
+            this.x0 = x0;
+            this.x1 = x1;
+            this.y0 = y0;
+            this.y1 = y1;
+            this.bandRows = bandRows;
+            this.threshold = threshold;
+            this.stats = stats;
+        }
+
+        @Override
+        protected MatchResult compute() {
+            if (y1 - y0 <= bandRows) {
+                return engine.scan(screen, template, x0, x1, y0, y1, threshold, stats);
+            }
+
+            int mid = (y0 + y1) >>> 1;
+            BandTask upper = new BandTask(screen, template, x0, x1, y0, mid, bandRows, threshold, stats);
+            BandTask lower = new BandTask(screen, template, x0, x1, mid, y1, bandRows, threshold, stats);
+            upper.fork();
+            MatchResult lowerResult = lower.compute();
+            return TemplateMatchEngine.mergeInScanOrder(upper.join(), lowerResult);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.automation.core.matching;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * PerceptualHash computes 64-bit fingerprints of images or screen regions that
+ * stay nearly the same under small rendering differences (anti-aliasing,
+ * compression noise, a blinking caret), so two captures of the same screen
+ * state differ in only a few bits.
+ *
+ * Both hashes first reduce the region to a small grid of average luminance:
+ * <ul>
+ *   <li>dHash (9x8 grid): one bit per horizontal neighbour pair, set when the
+ *       left cell is darker than the right one. Cheapest; good for layouts.</li>
+ *   <li>pHash (32x32 grid): the 8x8 lowest DCT frequencies, one bit per
+ *       coefficient above their median. More tolerant of brightness and
+ *       contrast changes.</li>
+ * </ul>
+ * Compare fingerprints with {@link #hammingDistance(long, long)}.
+ */
+public final class PerceptualHash {
+
+    public enum Algorithm {
+        DHASH,
+        PHASH;
+
+        /**
+         * Parse "dhash" or "phash" (case-insensitive), defaulting to DHASH
+         */
+        public static Algorithm fromName(String name) {
+            return "phash".equalsIgnoreCase(name == null ? "" : name.trim()) ? PHASH : DHASH;
+        }
+
+        public long hash(RasterImage image, Rectangle region) {
+            return this == PHASH ? pHash(image, region) : dHash(image, region);
+        }
+    }
+
+    private static final int PHASH_GRID = 32;
+    private static final int PHASH_FREQUENCIES = 8;
+
+    // Sampling stride bounds for averaging large regions
+    private static final int MIN_SAMPLES_PER_CELL = 8;
+    private static final int MAX_SAMPLE_STEP = 4;
+
+    // cos((2x + 1) * u * PI / 64) for the 8 lowest frequencies of a 32-point DCT-II
+    private static final double[][] DCT_BASIS = new double[PHASH_FREQUENCIES][PHASH_GRID];
+
+    static {
+        for (int u = 0; u < PHASH_FREQUENCIES; u++) {
+            for (int x = 0; x < PHASH_GRID; x++) {
+                DCT_BASIS[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * PHASH_GRID));
+            }
+        }
+    }
+
+    private PerceptualHash() {
+    }
+
+    public static long dHash(BufferedImage image) {
+        return dHash(RasterImage.from(image), null);
+    }
+
+    /**
+     * Difference hash of a region
+     * @param region Area to hash, or null for the whole image
+     */
+    public static long dHash(RasterImage image, Rectangle region) {
+        double[] cells = averageGrid(image, region, 9, 8);
+        long hash = 0;
+        int bit = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++, bit++) {
+                if (cells[y * 9 + x] < cells[y * 9 + x + 1]) {
+                    hash |= 1L << bit;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static long pHash(BufferedImage image) {
+        return pHash(RasterImage.from(image), null);
+    }
+
+    /**
+     * DCT hash of a region
+     * @param region Area to hash, or null for the whole image
+     */
+    public static long pHash(RasterImage image, Rectangle region) {
+        double[] cells = averageGrid(image, region, PHASH_GRID, PHASH_GRID);
+
+        // Separable DCT: transform rows to the low frequencies, then columns
+        double[] rows = new double[PHASH_GRID * PHASH_FREQUENCIES];
+        for (int y = 0; y < PHASH_GRID; y++) {
+            for (int u = 0; u < PHASH_FREQUENCIES; u++) {
+                double sum = 0;
+                for (int x = 0; x < PHASH_GRID; x++) {
+                    sum += cells[y * PHASH_GRID + x] * DCT_BASIS[u][x];
+                }
+                rows[y * PHASH_FREQUENCIES + u] = sum;
+            }
+        }
+        double[] coefficients = new double[PHASH_FREQUENCIES * PHASH_FREQUENCIES];
+        for (int v = 0; v < PHASH_FREQUENCIES; v++) {
+            for (int u = 0; u < PHASH_FREQUENCIES; u++) {
+                double sum = 0;
+                for (int y = 0; y < PHASH_GRID; y++) {
+                    sum += rows[y * PHASH_FREQUENCIES + u] * DCT_BASIS[v][y];
+                }
+                coefficients[v * PHASH_FREQUENCIES + u] = sum;
+            }
+        }
+
+        // Median of the AC coefficients; the DC term only reflects overall brightness
+        double[] ac = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+        Arrays.sort(ac);
+        double median = (ac[ac.length / 2 - 1] + ac[ac.length / 2]) / 2;
+
+        long hash = 0;
+        for (int i = 1; i < coefficients.length; i++) {
+            if (coefficients[i] > median) {
+                hash |= 1L << i;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Number of differing bits between two fingerprints (0 to 64)
+     */
+    public static int hammingDistance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * Average luminance of each cell of a grid laid over the region.
+     * Large regions are sampled every few pixels, keeping at least
+     * {@link #MIN_SAMPLES_PER_CELL} samples per cell in each direction; the
+     * sample positions are fixed, so equal regions always hash equally.
+     * Regions smaller than the grid repeat pixels across cells.
+     */
+    private static double[] averageGrid(RasterImage image, Rectangle region, int columns, int rows) {
+        Rectangle area = clip(image, region);
+        int[] pixels = image.getPixels();
+        int width = image.getWidth();
+
+        if (area.width < columns || area.height < rows) {
+            // Too small to average: sample the nearest pixel for each cell
+            double[] cells = new double[columns * rows];
+            for (int cy = 0; cy < rows; cy++) {
+                int y = area.y + cy * area.height / rows;
+                for (int cx = 0; cx < columns; cx++) {
+                    int x = area.x + cx * area.width / columns;
+                    cells[cy * columns + cx] = RasterImage.luminance(pixels[y * width + x]);
+                }
+            }
+            return cells;
+        }
+
+        int stepX = sampleStep(area.width, columns);
+        int stepY = sampleStep(area.height, rows);
+        int[] columnCell = new int[area.width];
+        for (int x = 0; x < area.width; x++) {
+            columnCell[x] = x * columns / area.width;
+        }
+        long[] sums = new long[columns * rows];
+        int[] counts = new int[columns * rows];
+        for (int y = 0; y < area.height; y += stepY) {
+            int rowCell = (y * rows / area.height) * columns;
+            int offset = (area.y + y) * width + area.x;
+            for (int x = 0; x < area.width; x += stepX) {
+                int cell = rowCell + columnCell[x];
+                sums[cell] += RasterImage.luminance(pixels[offset + x]);
+                counts[cell]++;
+            }
+        }
+
+        double[] cells = new double[columns * rows];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (double) sums[i] / counts[i];
+        }
+        return cells;
+    }
+
+    private static int sampleStep(int length, int cells) {
+        return Math.max(1, Math.min(MAX_SAMPLE_STEP, length / (cells * MIN_SAMPLES_PER_CELL)));
+    }
+
+    private static Rectangle clip(RasterImage image, Rectangle region) {
+        Rectangle bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+        if (region == null) {
+            return bounds;
+        }
+        Rectangle area = bounds.intersection(region);
+        if (area.isEmpty()) {
+            throw new IllegalArgumentException("Region " + region + " lies outside the "
+                + image.getWidth() + "x" + image.getHeight() + " image");
+        }
+        return area;
+    }
+}
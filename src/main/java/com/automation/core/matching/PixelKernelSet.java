@@ -0,0 +1,41 @@
+package com.automation.core.matching;
+
+/**
+ * PixelKernelSet is one implementation of the data-parallel pixel loops used
+ * by {@link PixelKernels}: a portable scalar version and, when the JDK's
+ * incubating Vector API is available, a SIMD version.
+ *
+ * All kernels take packed 0xAARRGGBB int arrays and process elements
+ * {@code 0} to {@code length - 1}. Implementations must return identical
+ * results for identical input.
+ */
+public interface PixelKernelSet {
+
+    /**
+     * Count pixels whose packed ARGB values are identical
+     * @param opaqueA OR-ed into every pixel of {@code a} (0xFF000000 for images without alpha, else 0)
+     * @param opaqueB OR-ed into every pixel of {@code b}
+     */
+    long countEqual(int[] a, int opaqueA, int[] b, int opaqueB, int length);
+
+    /**
+     * Count pixels whose red, green and blue channels each differ by at most {@code tolerance}.
+     * Identical pixels always count.
+     */
+    long countWithinTolerance(int[] a, int[] b, int length, int tolerance);
+
+    /**
+     * Sum of absolute red, green and blue channel differences over all pixels
+     */
+    long sumAbsoluteDifference(int[] a, int[] b, int length);
+
+    /**
+     * Write the integer luminance of each pixel to {@code gray}, as {@link RasterImage#luminance(int)}
+     */
+    void luminance(int[] argb, int[] gray, int length);
+
+    /**
+     * Short name used in logs and benchmarks (e.g. "scalar", "vector-256")
+     */
+    String getName();
+}
@@ -0,0 +1,165 @@
+package com.automation.core.matching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * PixelKernels holds the allocation-free pixel comparison loops shared by
+ * ImageMatcher, ScreenCapture and ImageUtils.
+ *
+ * Kernels work on packed 0xAARRGGBB int arrays walked row-major, the order
+ * they are laid out in memory, and extract channels with shifts and masks
+ * instead of wrapping each pixel in a {@link java.awt.Color}. Images whose
+ * color model has no alpha are compared as fully opaque, which matches what
+ * {@link BufferedImage#getRGB(int, int)} reports for them.
+ *
+ * The loops themselves are provided by a {@link PixelKernelSet} chosen once
+ * per JVM: the Vector API implementation when the build included it and the
+ * JVM was started with {@code --add-modules jdk.incubator.vector}, otherwise
+ * the scalar one. Start the JVM with {@code -Dautomation.pixel.kernels=scalar}
+ * to force the scalar kernels.
+ */
+public final class PixelKernels {
+    private static final Logger logger = LoggerFactory.getLogger(PixelKernels.class);
+
+    /**
+     * System property that forces an implementation ("scalar" or "vector")
+     */
+    public static final String IMPLEMENTATION_PROPERTY = "automation.pixel.kernels";
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_IMPLEMENTATION = "com.automation.core.matching.VectorPixelKernels";
+
+    private static final PixelKernelSet KERNELS = selectImplementation();
+
+    private PixelKernels() {
+    }
+
+    /**
+     * Count pixels whose packed ARGB values are identical
+     * @param opaqueA OR-ed into every pixel of {@code a} (0xFF000000 for images without alpha, else 0)
+     * @param opaqueB OR-ed into every pixel of {@code b}
+     */
+    public static long countEqual(int[] a, int opaqueA, int[] b, int opaqueB, int length) {
+        return KERNELS.countEqual(a, opaqueA, b, opaqueB, length);
+    }
+
+    /**
+     * Count pixels whose red, green and blue channels each differ by at most {@code tolerance}
+     */
+    public static long countWithinTolerance(int[] a, int[] b, int length, int tolerance) {
+        return KERNELS.countWithinTolerance(a, b, length, tolerance);
+    }
+
+    /**
+     * Sum of absolute red, green and blue channel differences over all pixels
+     */
+    public static long sumAbsoluteDifference(int[] a, int[] b, int length) {
+        return KERNELS.sumAbsoluteDifference(a, b, length);
+    }
+
+    /**
+     * Convert packed pixels to the integer luminance plane used for matching
+     */
+    public static void luminance(int[] argb, int[] gray, int length) {
+        KERNELS.luminance(argb, gray, length);
+    }
+
+    /**
+     * Fraction of identical pixels between two images of the same size
+     * @return 0.0 to 1.0, or 0.0 if the sizes differ
+     */
+    public static double equalFraction(BufferedImage img1, BufferedImage img2) {
+        if (!sameSize(img1, img2)) {
+            return 0.0;
+        }
+        RasterImage a = RasterImage.from(img1);
+        RasterImage b = RasterImage.from(img2);
+        long equal = countEqual(a.getPixels(), opaqueMask(a), b.getPixels(), opaqueMask(b), a.getPixelCount());
+        return (double) equal / a.getPixelCount();
+    }
+
+    /**
+     * Fraction of pixels whose color channels are within tolerance between two images of the same size
+     * @return 0.0 to 1.0, or 0.0 if the sizes differ
+     */
+    public static double toleranceFraction(BufferedImage img1, BufferedImage img2, int tolerance) {
+        if (!sameSize(img1, img2)) {
+            return 0.0;
+        }
+        RasterImage a = RasterImage.from(img1);
+        RasterImage b = RasterImage.from(img2);
+        long similar = countWithinTolerance(a.getPixels(), b.getPixels(), a.getPixelCount(), tolerance);
+        return (double) similar / a.getPixelCount();
+    }
+
+    /**
+     * Mean absolute channel difference between two images of the same size
+     * @return 0.0 (identical) to 255.0, or 255.0 if the sizes differ
+     */
+    public static double meanAbsoluteDifference(BufferedImage img1, BufferedImage img2) {
+        if (!sameSize(img1, img2)) {
+            return 255.0;
+        }
+        RasterImage a = RasterImage.from(img1);
+        RasterImage b = RasterImage.from(img2);
+        long sad = sumAbsoluteDifference(a.getPixels(), b.getPixels(), a.getPixelCount());
+        return (double) sad / (3L * a.getPixelCount());
+    }
+
+    /**
+     * Get the implementation in use
+     */
+    public static PixelKernelSet getImplementation() {
+        return KERNELS;
+    }
+
+    /**
+     * Name of the implementation in use, e.g. "scalar" or "vector-256"
+     */
+    public static String getImplementationName() {
+        return KERNELS.getName();
+    }
+
+    private static PixelKernelSet selectImplementation() {
+        String requested = System.getProperty(IMPLEMENTATION_PROPERTY, "");
+        if ("scalar".equalsIgnoreCase(requested)) {
+            logger.info("Using scalar pixel kernels ({}={})", IMPLEMENTATION_PROPERTY, requested);
+            return new ScalarPixelKernels();
+        }
+        boolean vectorRequested = "vector".equalsIgnoreCase(requested);
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return scalarFallback("module " + VECTOR_MODULE + " is not loaded", vectorRequested);
+        }
+
+        try {
+            PixelKernelSet vector = (PixelKernelSet) Class.forName(VECTOR_IMPLEMENTATION)
+                .getDeclaredConstructor().newInstance();
+            logger.info("Using {} pixel kernels", vector.getName());
+            return vector;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Class not compiled in (build without the vector-api profile) or the API changed
+            return scalarFallback("vector kernels unavailable: " + e, vectorRequested);
+        }
+    }
+
+    private static PixelKernelSet scalarFallback(String reason, boolean vectorRequested) {
+        if (vectorRequested) {
+            logger.warn("Vector pixel kernels requested but {}; using scalar kernels", reason);
+        } else {
+            logger.debug("Using scalar pixel kernels; {}", reason);
+        }
+        return new ScalarPixelKernels();
+    }
+
+    private static boolean sameSize(BufferedImage img1, BufferedImage img2) {
+        return img1.getWidth() == img2.getWidth() && img1.getHeight() == img2.getHeight()
+            && img1.getWidth() > 0 && img1.getHeight() > 0;
+    }
+
+    private static int opaqueMask(RasterImage image) {
+        return image.hasAlpha() ? 0 : 0xFF000000;
+    }
+}
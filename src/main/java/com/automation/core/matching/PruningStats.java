@@ -0,0 +1,58 @@
+package com.automation.core.matching;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PruningStats counts how many candidate offsets an early-termination search
+ * scored and how many of them it abandoned before the last template row.
+ *
+ * A low prune rate on a template usually means its threshold is too lax for
+ * the screen it is matched against, or that the template is mostly flat.
+ * Counters are safe to update from parallel bands.
+ */
+public class PruningStats {
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+
+    /**
+     * Record the outcome of scanning a block of offsets
+     */
+    public void record(long candidateCount, long prunedCount) {
+        candidates.add(candidateCount);
+        pruned.add(prunedCount);
+    }
+
+    /**
+     * Count one complete search, independent of how many blocks it was split into
+     */
+    public void recordSearch() {
+        searches.increment();
+    }
+
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+    public long getPruned() {
+        return pruned.sum();
+    }
+
+    /**
+     * Fraction of candidates abandoned early, 0.0 when nothing was scored
+     */
+    public double getPruneRate() {
+        long total = getCandidates();
+        return total == 0 ? 0.0 : (double) getPruned() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PruningStats{searches=%d, candidates=%d, pruned=%d, rate=%.1f%%}",
+            getSearches(), getCandidates(), getPruned(), getPruneRate() * 100);
+    }
+}
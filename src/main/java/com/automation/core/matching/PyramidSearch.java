@@ -0,0 +1,168 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PyramidSearch performs coarse-to-fine template matching.
+ *
+ * Screenshot and template are downsampled 2x per level. The coarsest level is
+ * scanned exhaustively and the best few peaks are kept; each peak is then
+ * refined in a small window at every finer level down to full resolution.
+ * A depth of 2 scans roughly 1/16 of the offsets scanned at full resolution.
+ */
+public class PyramidSearch {
+    private static final Logger logger = LoggerFactory.getLogger(PyramidSearch.class);
+
+    /**
+     * Templates are never downsampled below this size (pixels per side)
+     */
+    public static final int MIN_TEMPLATE_SIZE = 8;
+
+    /**
+     * Offsets searched around a projected candidate at each finer level
+     */
+    private static final int REFINE_RADIUS = 2;
+
+    private final TemplateMatchEngine engine;
+    private final int depth;
+    private final int candidatesPerLevel;
+
+    public PyramidSearch(TemplateMatchEngine engine, int depth, int candidatesPerLevel) {
+        this.engine = engine;
+        this.depth = Math.max(0, depth);
+        this.candidatesPerLevel = Math.max(1, candidatesPerLevel);
+    }
+
+    /**
+     * Find the best match using the pyramid, falling back to a full scan
+     * when the template is too small to downsample
+     */
+    public MatchResult findBestMatch(RasterImage screen, RasterImage template, double threshold) {
+        int levels = usableLevels(template);
+        if (levels == 0) {
+            return engine.findBestMatch(screen, template, threshold);
+        }
+
+        RasterImage[] screens = buildPyramid(screen, levels);
+        RasterImage[] templates = buildPyramid(template, levels);
+
+        Rectangle coarseOffsets = TemplateMatchEngine.validOffsets(screens[levels], templates[levels], null);
+        if (coarseOffsets == null) {
+            return null;
+        }
+
+        float[] scores = engine.scoreMap(screens[levels], templates[levels], coarseOffsets);
+        int radius = Math.max(1, Math.min(templates[levels].getWidth(), templates[levels].getHeight()) / 2);
+        List<Point> candidates = pickPeaks(scores, coarseOffsets, radius, candidatesPerLevel);
+
+        MatchResult best = null;
+        for (int level = levels - 1; level >= 0; level--) {
+            List<MatchResult> refined = new ArrayList<>(candidates.size());
+            for (Point candidate : candidates) {
+                Rectangle window = new Rectangle(
+                    candidate.x * 2 - REFINE_RADIUS, candidate.y * 2 - REFINE_RADIUS,
+                    REFINE_RADIUS * 2 + 2, REFINE_RADIUS * 2 + 2);
+                MatchResult match = engine.findBestMatch(screens[level], templates[level], window,
+                    Double.NEGATIVE_INFINITY);
+                if (match != null) {
+                    refined.add(match);
+                }
+            }
+            refined.sort(PyramidSearch::compareMatches);
+
+            candidates = new ArrayList<>(refined.size());
+            for (MatchResult match : refined) {
+                Point point = new Point(match.getX(), match.getY());
+                if (!candidates.contains(point)) {
+                    candidates.add(point);
+                }
+            }
+            best = refined.isEmpty() ? null : refined.get(0);
+        }
+
+        logger.debug("Pyramid search with {} levels and {} candidates found: {}", levels, candidatesPerLevel, best);
+        return best != null && best.getScore() >= threshold ? best : null;
+    }
+
+    /**
+     * Number of 2x reductions the template supports, capped at the configured depth
+     */
+    int usableLevels(RasterImage template) {
+        int levels = 0;
+        while (levels < depth
+                && (template.getWidth() >> (levels + 1)) >= MIN_TEMPLATE_SIZE
+                && (template.getHeight() >> (levels + 1)) >= MIN_TEMPLATE_SIZE) {
+            levels++;
+        }
+        return levels;
+    }
+
+    private static RasterImage[] buildPyramid(RasterImage image, int levels) {
+        RasterImage[] pyramid = new RasterImage[levels + 1];
+        pyramid[0] = image;
+        for (int i = 1; i <= levels; i++) {
+            pyramid[i] = pyramid[i - 1].downsample();
+        }
+        return pyramid;
+    }
+
+    /**
+     * Pick the highest scoring offsets, suppressing neighbours of each pick
+     * so that the candidates cover distinct screen locations
+     */
+    static List<Point> pickPeaks(float[] scores, Rectangle offsets, int radius, int count) {
+        float[] remaining = scores.clone();
+        List<Point> peaks = new ArrayList<>(count);
+
+        for (int k = 0; k < count; k++) {
+            int bestIndex = -1;
+            float bestScore = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < remaining.length; i++) {
+                if (remaining[i] > bestScore) {
+                    bestScore = remaining[i];
+                    bestIndex = i;
+                }
+            }
+            if (bestIndex < 0) {
+                break;
+            }
+
+            int px = bestIndex % offsets.width;
+            int py = bestIndex / offsets.width;
+            peaks.add(new Point(offsets.x + px, offsets.y + py));
+
+            for (int y = Math.max(0, py - radius); y <= Math.min(offsets.height - 1, py + radius); y++) {
+                for (int x = Math.max(0, px - radius); x <= Math.min(offsets.width - 1, px + radius); x++) {
+                    remaining[y * offsets.width + x] = Float.NEGATIVE_INFINITY;
+                }
+            }
+        }
+        return peaks;
+    }
+
+    /**
+     * Order by score descending, then row-major position for determinism
+     */
+    static int compareMatches(MatchResult a, MatchResult b) {
+        int byScore = Double.compare(b.getScore(), a.getScore());
+        if (byScore != 0) {
+            return byScore;
+        }
+        return a.getY() != b.getY() ? Integer.compare(a.getY(), b.getY()) : Integer.compare(a.getX(), b.getX());
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getCandidatesPerLevel() {
+        return candidatesPerLevel;
+    }
+}
@@ -0,0 +1,459 @@
+package com.automation.core.matching;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * RasterImage holds the pixel data of a BufferedImage as primitive arrays
+ * so that matching kernels can run without per-pixel getRGB calls.
+ *
+ * Pixels are stored row-major as packed 0xAARRGGBB ints. For TYPE_INT_RGB and
+ * TYPE_INT_ARGB images the backing array of the raster is shared, not copied,
+ * so the alpha byte is only meaningful when {@link #hasAlpha()} is true.
+ */
+public class RasterImage {
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private final boolean alpha;
+
+    // Lazily computed luminance plane, statistics and summed-area tables
+    private int[] gray;
+    private IntegralImage integral;
+    private RasterImage edges;
+
+    // Optional "don't care" mask of a template, and its luminance at the active pixels
+    private TemplateMask mask;
+    private int[] activeGray;
+    private long graySum = -1;
+    private long graySumSquares = -1;
+
+    public RasterImage(int width, int height, int[] pixels, boolean alpha) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("Pixel array too small for " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Extract the raw pixel data of a BufferedImage
+     */
+    public static RasterImage from(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean alpha = image.getColorModel().hasAlpha();
+        Raster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        SampleModel sampleModel = raster.getSampleModel();
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                if (buffer instanceof DataBufferInt && isUnshiftedPacked(raster, sampleModel, width)) {
+                    return new RasterImage(width, height, ((DataBufferInt) buffer).getData(), alpha);
+                }
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                if (buffer instanceof DataBufferByte && sampleModel instanceof PixelInterleavedSampleModel) {
+                    return fromInterleavedBytes(raster, (PixelInterleavedSampleModel) sampleModel,
+                        ((DataBufferByte) buffer).getData(), width, height, alpha);
+                }
+                break;
+            case BufferedImage.TYPE_BYTE_GRAY:
+                if (buffer instanceof DataBufferByte && sampleModel instanceof PixelInterleavedSampleModel) {
+                    return fromGrayBytes(raster, (PixelInterleavedSampleModel) sampleModel,
+                        ((DataBufferByte) buffer).getData(), width, height);
+                }
+                break;
+            default:
+                break;
+        }
+
+        // Indexed, 16-bit and other exotic layouts go through the color model once
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        return new RasterImage(width, height, pixels, alpha);
+    }
+
+    private static boolean isUnshiftedPacked(Raster raster, SampleModel sampleModel, int width) {
+        return sampleModel instanceof SinglePixelPackedSampleModel
+            && ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride() == width
+            && raster.getSampleModelTranslateX() == 0
+            && raster.getSampleModelTranslateY() == 0
+            && raster.getDataBuffer().getOffset() == 0;
+    }
+
+    private static RasterImage fromInterleavedBytes(Raster raster, PixelInterleavedSampleModel sampleModel,
+                                                    byte[] data, int width, int height, boolean alpha) {
+        int pixelStride = sampleModel.getPixelStride();
+        int scanlineStride = sampleModel.getScanlineStride();
+        int[] offsets = sampleModel.getBandOffsets();
+        int base = raster.getDataBuffer().getOffset()
+            - raster.getSampleModelTranslateY() * scanlineStride
+            - raster.getSampleModelTranslateX() * pixelStride;
+
+        // Band order is R, G, B[, A] regardless of the byte order in memory
+        int rOff = offsets[0];
+        int gOff = offsets[1];
+        int bOff = offsets[2];
+        int aOff = offsets.length > 3 ? offsets[3] : -1;
+
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int src = base + y * scanlineStride;
+            int dst = y * width;
+            for (int x = 0; x < width; x++, src += pixelStride) {
+                int a = aOff >= 0 ? data[src + aOff] & 0xFF : 0xFF;
+                pixels[dst + x] = (a << 24)
+                    | ((data[src + rOff] & 0xFF) << 16)
+                    | ((data[src + gOff] & 0xFF) << 8)
+                    | (data[src + bOff] & 0xFF);
+            }
+        }
+        return new RasterImage(width, height, pixels, alpha);
+    }
+
+    private static RasterImage fromGrayBytes(Raster raster, PixelInterleavedSampleModel sampleModel,
+                                             byte[] data, int width, int height) {
+        int pixelStride = sampleModel.getPixelStride();
+        int scanlineStride = sampleModel.getScanlineStride();
+        int base = raster.getDataBuffer().getOffset()
+            - raster.getSampleModelTranslateY() * scanlineStride
+            - raster.getSampleModelTranslateX() * pixelStride
+            + sampleModel.getBandOffsets()[0];
+
+        int[] pixels = new int[width * height];
+        int[] gray = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int src = base + y * scanlineStride;
+            int dst = y * width;
+            for (int x = 0; x < width; x++, src += pixelStride) {
+                int g = data[src] & 0xFF;
+                gray[dst + x] = g;
+                pixels[dst + x] = 0xFF000000 | (g << 16) | (g << 8) | g;
+            }
+        }
+        RasterImage image = new RasterImage(width, height, pixels, false);
+        image.gray = gray;
+        return image;
+    }
+
+    /**
+     * Create an image from a luminance plane; the packed pixels are gray replicas
+     */
+    public static RasterImage fromGray(int width, int height, int[] gray) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            int g = gray[i];
+            pixels[i] = 0xFF000000 | (g << 16) | (g << 8) | g;
+        }
+        RasterImage image = new RasterImage(width, height, pixels, false);
+        image.gray = gray;
+        return image;
+    }
+
+    /**
+     * Halve both dimensions by averaging 2x2 luminance blocks.
+     * An odd trailing row or column is dropped. A mask is downsampled with it.
+     */
+    public RasterImage downsample() {
+        int[] src = getGray();
+        int halfWidth = Math.max(1, width / 2);
+        int halfHeight = Math.max(1, height / 2);
+        int[] dst = new int[halfWidth * halfHeight];
+
+        // Images narrower than 2 pixels in a dimension just repeat the single row/column
+        int dx = width > 1 ? 1 : 0;
+        int dy = height > 1 ? width : 0;
+        for (int y = 0; y < halfHeight; y++) {
+            int row = (y * 2) * width;
+            int out = y * halfWidth;
+            for (int x = 0; x < halfWidth; x++) {
+                int i = row + x * 2;
+                dst[out + x] = (src[i] + src[i + dx] + src[i + dy] + src[i + dy + dx] + 2) >> 2;
+            }
+        }
+        RasterImage half = fromGray(halfWidth, halfHeight, dst);
+        half.mask = mask != null ? mask.downsample() : null;
+        return half;
+    }
+
+    /**
+     * Resize the luminance plane by a factor using bilinear interpolation.
+     * Used to match templates captured at a different display scaling.
+     */
+    public RasterImage scale(double factor) {
+        int scaledWidth = Math.max(1, (int) Math.round(width * factor));
+        int scaledHeight = Math.max(1, (int) Math.round(height * factor));
+        int[] src = getGray();
+        int[] dst = new int[scaledWidth * scaledHeight];
+
+        double stepX = (double) width / scaledWidth;
+        double stepY = (double) height / scaledHeight;
+        for (int y = 0; y < scaledHeight; y++) {
+            // Map pixel centers and clamp to the source edges
+            double sy = Math.min(height - 1, Math.max(0.0, (y + 0.5) * stepY - 0.5));
+            int y0 = (int) sy;
+            int y1 = Math.min(height - 1, y0 + 1);
+            double fy = sy - y0;
+            for (int x = 0; x < scaledWidth; x++) {
+                double sx = Math.min(width - 1, Math.max(0.0, (x + 0.5) * stepX - 0.5));
+                int x0 = (int) sx;
+                int x1 = Math.min(width - 1, x0 + 1);
+                double fx = sx - x0;
+                double top = src[y0 * width + x0] * (1 - fx) + src[y0 * width + x1] * fx;
+                double bottom = src[y1 * width + x0] * (1 - fx) + src[y1 * width + x1] * fx;
+                dst[y * scaledWidth + x] = (int) Math.round(top * (1 - fy) + bottom * fy);
+            }
+        }
+        RasterImage scaled = fromGray(scaledWidth, scaledHeight, dst);
+        scaled.mask = mask != null ? mask.scale(scaledWidth, scaledHeight) : null;
+        return scaled;
+    }
+
+    /**
+     * Integer luminance approximation (ITU-R BT.601 weights scaled by 256)
+     */
+    public static int luminance(int rgb) {
+        return (((rgb >> 16) & 0xFF) * 77 + ((rgb >> 8) & 0xFF) * 150 + (rgb & 0xFF) * 29) >> 8;
+    }
+
+    /**
+     * Get the luminance plane (0-255 per pixel), computed on first use
+     */
+    public int[] getGray() {
+        int[] result = gray;
+        if (result == null) {
+            int size = width * height;
+            result = new int[size];
+            PixelKernels.luminance(pixels, result, size);
+            gray = result;
+        }
+        return result;
+    }
+
+    /**
+     * Get the Sobel edge magnitude of the luminance plane as a gray image, computed on first use.
+     * Magnitudes are |gx| + |gy| scaled so that a sharp step of contrast c maps to about c,
+     * clamped to 255; pixels on the image border use replicated neighbours.
+     */
+    public RasterImage getEdges() {
+        RasterImage result = edges;
+        if (result == null) {
+            result = fromGray(width, height, sobel(getGray(), width, height));
+            if (mask != null) {
+                // An edge value is computed from the 3x3 neighbourhood, so only pixels whose whole
+                // neighbourhood is active are free of the excluded background; a mask too thin to
+                // keep any is used as is
+                TemplateMask eroded = mask.erode(1);
+                result.mask = eroded != null ? eroded : mask;
+            }
+            edges = result;
+        }
+        return result;
+    }
+
+    private static int[] sobel(int[] g, int width, int height) {
+        int[] magnitude = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int above = Math.max(y - 1, 0) * width;
+            int row = y * width;
+            int below = Math.min(y + 1, height - 1) * width;
+            for (int x = 0; x < width; x++) {
+                int left = Math.max(x - 1, 0);
+                int right = Math.min(x + 1, width - 1);
+                int gx = (g[above + right] + 2 * g[row + right] + g[below + right])
+                    - (g[above + left] + 2 * g[row + left] + g[below + left]);
+                int gy = (g[below + left] + 2 * g[below + x] + g[below + right])
+                    - (g[above + left] + 2 * g[above + x] + g[above + right]);
+                magnitude[row + x] = Math.min(255, (Math.abs(gx) + Math.abs(gy)) >> 2);
+            }
+        }
+        return magnitude;
+    }
+
+    /**
+     * Copy a rectangle of this image; the luminance plane is copied too if already computed
+     */
+    public RasterImage crop(int x, int y, int cropWidth, int cropHeight) {
+        if (x < 0 || y < 0 || cropWidth <= 0 || cropHeight <= 0 || x + cropWidth > width || y + cropHeight > height) {
+            throw new IllegalArgumentException("Crop " + cropWidth + "x" + cropHeight + " at (" + x + ", " + y
+                + ") outside " + width + "x" + height);
+        }
+        int[] croppedPixels = new int[cropWidth * cropHeight];
+        int[] croppedGray = gray != null ? new int[cropWidth * cropHeight] : null;
+        for (int row = 0; row < cropHeight; row++) {
+            System.arraycopy(pixels, (y + row) * width + x, croppedPixels, row * cropWidth, cropWidth);
+            if (croppedGray != null) {
+                System.arraycopy(gray, (y + row) * width + x, croppedGray, row * cropWidth, cropWidth);
+            }
+        }
+        RasterImage cropped = new RasterImage(cropWidth, cropHeight, croppedPixels, alpha);
+        cropped.gray = croppedGray;
+        cropped.mask = mask != null ? mask.crop(x, y, cropWidth, cropHeight) : null;
+        return cropped;
+    }
+
+    /**
+     * Get a copy of this image that carries a "don't care" mask; pixel data is shared
+     */
+    public RasterImage withMask(TemplateMask templateMask) {
+        if (templateMask != null && (templateMask.getWidth() != width || templateMask.getHeight() != height)) {
+            throw new IllegalArgumentException("Mask " + templateMask.getWidth() + "x" + templateMask.getHeight()
+                + " does not fit " + width + "x" + height + " image");
+        }
+        RasterImage masked = new RasterImage(width, height, pixels, alpha);
+        masked.gray = gray;
+        masked.mask = templateMask;
+        return masked;
+    }
+
+    /**
+     * Get the "don't care" mask, or null if every pixel is scored
+     */
+    public TemplateMask getMask() {
+        return mask;
+    }
+
+    /**
+     * Get the luminance of the mask's active pixels in run order, computed on first use
+     */
+    int[] getActiveGray() {
+        int[] result = activeGray;
+        if (result == null) {
+            int[] g = getGray();
+            result = new int[mask.getActiveCount()];
+            int i = 0;
+            for (int run = 0; run < mask.getRunCount(); run++) {
+                int start = mask.getRunY(run) * width + mask.getRunX(run);
+                int length = mask.getRunLength(run);
+                System.arraycopy(g, start, result, i, length);
+                i += length;
+            }
+            activeGray = result;
+        }
+        return result;
+    }
+
+    /**
+     * Get the summed-area tables of the luminance plane, built on first use.
+     * Screenshots build them once and share them across templates and offsets.
+     */
+    public IntegralImage getIntegral() {
+        IntegralImage result = integral;
+        if (result == null) {
+            result = IntegralImage.of(getGray(), width, height);
+            integral = result;
+        }
+        return result;
+    }
+
+    /**
+     * Sum of all luminance values
+     */
+    public long getGraySum() {
+        if (graySum < 0) {
+            computeGrayStatistics();
+        }
+        return graySum;
+    }
+
+    /**
+     * Sum of all squared luminance values
+     */
+    public long getGraySumSquares() {
+        if (graySumSquares < 0) {
+            computeGrayStatistics();
+        }
+        return graySumSquares;
+    }
+
+    /**
+     * Mean luminance
+     */
+    public double getGrayMean() {
+        return (double) getGraySum() / getPixelCount();
+    }
+
+    /**
+     * L2 norm of the mean-centered luminance, the template term of the NCC denominator
+     */
+    public double getGrayNorm() {
+        double sum = getGraySum();
+        return Math.sqrt(Math.max(0.0, getGraySumSquares() - sum * sum / getPixelCount()));
+    }
+
+    /**
+     * Compute the luminance plane and statistics now rather than on first match,
+     * so cached templates carry them ready-made
+     */
+    public RasterImage precompute() {
+        getGray();
+        getGraySum();
+        if (mask != null) {
+            getActiveGray();
+        }
+        return this;
+    }
+
+    /**
+     * Approximate heap footprint of the pixel data held by this image
+     */
+    public long getMemoryFootprint() {
+        long bytes = (long) pixels.length * Integer.BYTES;
+        if (gray != null) {
+            bytes += (long) gray.length * Integer.BYTES;
+        }
+        if (integral != null) {
+            bytes += integral.getMemoryFootprint();
+        }
+        if (edges != null) {
+            bytes += edges.getMemoryFootprint();
+        }
+        return bytes;
+    }
+
+    private void computeGrayStatistics() {
+        int[] g = getGray();
+        long sum = 0;
+        long sumSquares = 0;
+        for (int value : g) {
+            sum += value;
+            sumSquares += (long) value * value;
+        }
+        graySumSquares = sumSquares;
+        graySum = sum;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPixelCount() {
+        return width * height;
+    }
+
+    /**
+     * Get the packed ARGB pixels (row-major, stride equals width)
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public boolean hasAlpha() {
+        return alpha;
+    }
+}
@@ -0,0 +1,82 @@
+package com.automation.core.matching;
+
+/**
+ * ScalarPixelKernels is the portable implementation of the pixel kernels.
+ *
+ * The range-based static methods are also used by the Vector API
+ * implementation for the tail elements that do not fill a whole vector.
+ */
+public final class ScalarPixelKernels implements PixelKernelSet {
+
+    @Override
+    public long countEqual(int[] a, int opaqueA, int[] b, int opaqueB, int length) {
+        return countEqual(a, opaqueA, b, opaqueB, 0, length);
+    }
+
+    @Override
+    public long countWithinTolerance(int[] a, int[] b, int length, int tolerance) {
+        return countWithinTolerance(a, b, 0, length, tolerance);
+    }
+
+    @Override
+    public long sumAbsoluteDifference(int[] a, int[] b, int length) {
+        return sumAbsoluteDifference(a, b, 0, length);
+    }
+
+    @Override
+    public void luminance(int[] argb, int[] gray, int length) {
+        luminance(argb, gray, 0, length);
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    static long countEqual(int[] a, int opaqueA, int[] b, int opaqueB, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if ((a[i] | opaqueA) == (b[i] | opaqueB)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static long countWithinTolerance(int[] a, int[] b, int from, int to, int tolerance) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            int p = a[i];
+            int q = b[i];
+            if (p == q) {
+                count++;
+                continue;
+            }
+            int dr = ((p >> 16) & 0xFF) - ((q >> 16) & 0xFF);
+            int dg = ((p >> 8) & 0xFF) - ((q >> 8) & 0xFF);
+            int db = (p & 0xFF) - (q & 0xFF);
+            if (Math.abs(dr) <= tolerance && Math.abs(dg) <= tolerance && Math.abs(db) <= tolerance) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static long sumAbsoluteDifference(int[] a, int[] b, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            int p = a[i];
+            int q = b[i];
+            sum += Math.abs(((p >> 16) & 0xFF) - ((q >> 16) & 0xFF))
+                + Math.abs(((p >> 8) & 0xFF) - ((q >> 8) & 0xFF))
+                + Math.abs((p & 0xFF) - (q & 0xFF));
+        }
+        return sum;
+    }
+
+    static void luminance(int[] argb, int[] gray, int from, int to) {
+        for (int i = from; i < to; i++) {
+            gray[i] = RasterImage.luminance(argb[i]);
+        }
+    }
+}
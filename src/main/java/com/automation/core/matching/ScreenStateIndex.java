@@ -0,0 +1,205 @@
+package com.automation.core.matching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ScreenStateIndex recognizes known screen states (login screen, main menu,
+ * error dialog, ...) by perceptual-hash fingerprint instead of OCR or a full
+ * template search.
+ *
+ * Each state stores a 64-bit fingerprint of a reference capture, optionally of
+ * one region only (e.g. a dialog's title bar). Identifying a screenshot hashes
+ * each distinct region once and compares fingerprints by Hamming distance, so
+ * the lookup itself costs a few bit operations per state. States match when
+ * their distance is at most the index's maximum distance; the closest state
+ * wins, ties going to the state registered first.
+ */
+public class ScreenStateIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenStateIndex.class);
+
+    private final PerceptualHash.Algorithm algorithm;
+    private final int maxDistance;
+    private final List<State> states = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param maxDistance Largest Hamming distance (0 to 64) at which a screenshot counts as a state
+     */
+    public ScreenStateIndex(PerceptualHash.Algorithm algorithm, int maxDistance) {
+        this.algorithm = algorithm;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Register (or replace) a state from a reference capture of the whole screen
+     */
+    public void register(String name, BufferedImage reference) {
+        register(name, reference, null);
+    }
+
+    /**
+     * Register (or replace) a state from one region of a reference capture
+     * @param region Area fingerprinted in both the reference and later screenshots, or null for the whole image
+     */
+    public void register(String name, BufferedImage reference, Rectangle region) {
+        long hash = algorithm.hash(RasterImage.from(reference), region);
+        registerHash(name, hash, region);
+        logger.debug("Registered screen state '{}' ({} {}) region {}", name, algorithm,
+            Long.toHexString(hash), region);
+    }
+
+    /**
+     * Register (or replace) a state from a previously computed fingerprint
+     */
+    public void registerHash(String name, long hash, Rectangle region) {
+        State state = new State(name, hash, region == null ? null : new Rectangle(region));
+        synchronized (states) {
+            for (int i = 0; i < states.size(); i++) {
+                if (states.get(i).name.equals(name)) {
+                    states.set(i, state);
+                    return;
+                }
+            }
+            states.add(state);
+        }
+    }
+
+    public boolean remove(String name) {
+        synchronized (states) {
+            return states.removeIf(state -> state.name.equals(name));
+        }
+    }
+
+    public void clear() {
+        states.clear();
+    }
+
+    /**
+     * Find the known state closest to a screenshot
+     * @return The closest state within the maximum distance, or null if none matches
+     */
+    public Recognition identify(BufferedImage screenshot) {
+        RasterImage screen = RasterImage.from(screenshot);
+        Map<Rectangle, Long> hashes = new HashMap<>();
+
+        Recognition best = null;
+        for (State state : states) {
+            int distance = distance(screen, state, hashes);
+            if (distance <= maxDistance && (best == null || distance < best.getDistance())) {
+                best = new Recognition(state.name, distance);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Check whether a screenshot is in a given state
+     * @throws IllegalArgumentException if the state is not registered
+     */
+    public boolean isInState(BufferedImage screenshot, String name) {
+        return distanceTo(screenshot, name) <= maxDistance;
+    }
+
+    /**
+     * Hamming distance between a screenshot and a state's fingerprint,
+     * 64 if the state's region lies outside the screenshot
+     * @throws IllegalArgumentException if the state is not registered
+     */
+    public int distanceTo(BufferedImage screenshot, String name) {
+        for (State state : states) {
+            if (state.name.equals(name)) {
+                return distance(RasterImage.from(screenshot), state, new HashMap<>());
+            }
+        }
+        throw new IllegalArgumentException("Unknown screen state: " + name);
+    }
+
+    private int distance(RasterImage screen, State state, Map<Rectangle, Long> hashes) {
+        Rectangle bounds = new Rectangle(0, 0, screen.getWidth(), screen.getHeight());
+        Rectangle key = state.region == null ? bounds : state.region;
+        if (!bounds.intersects(key)) {
+            return Long.SIZE;
+        }
+        long hash = hashes.computeIfAbsent(key, region -> algorithm.hash(screen, region));
+        return PerceptualHash.hammingDistance(hash, state.hash);
+    }
+
+    public boolean contains(String name) {
+        return states.stream().anyMatch(state -> state.name.equals(name));
+    }
+
+    /**
+     * Names of the registered states in registration order
+     */
+    public List<String> getStateNames() {
+        List<String> names = new ArrayList<>();
+        for (State state : states) {
+            names.add(state.name);
+        }
+        return names;
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    public PerceptualHash.Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScreenStateIndex{states=%d, algorithm=%s, maxDistance=%d}",
+            size(), algorithm, maxDistance);
+    }
+
+    private static final class State {
+        private final String name;
+        private final long hash;
+        private final Rectangle region;
+
+        private State(String name, long hash, Rectangle region) {
+            this.name = name;
+            this.hash = hash;
+            this.region = region;
+        }
+    }
+
+    /**
+     * A recognized state and how far the screenshot's fingerprint was from it
+     */
+    public static final class Recognition {
+        private final String name;
+        private final int distance;
+
+        public Recognition(String name, int distance) {
+            this.name = name;
+            this.distance = distance;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Recognition{state='%s', distance=%d}", name, distance);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.automation.core.matching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TemplateCache keeps decoded template images in memory so repeated lookups
+ * of the same template file skip the PNG decode and the statistics pass.
+ *
+ * Entries are keyed by absolute path and validated against the modification
+ * times of the file and its sidecar mask, so a template or mask re-saved on
+ * disk is decoded again.
+ * Eviction is least-recently-used against a byte budget.
+ */
+public class TemplateCache {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public TemplateCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the decoded template for a file, decoding it on a miss
+     * @return Template with luminance, statistics and mask precomputed
+     * @throws IOException if the file is missing or it or its mask cannot be decoded
+     */
+    public RasterImage get(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        if (lastModified == 0L) {
+            invalidate(key);
+            throw new IOException("Template file not found: " + key);
+        }
+        long maskModified = TemplateMask.sidecarFor(file).lastModified();
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.lastModified == lastModified && entry.maskModified == maskModified) {
+                hits++;
+                return entry.image;
+            }
+            misses++;
+        }
+
+        BufferedImage decoded = ImageIO.read(file);
+        if (decoded == null) {
+            throw new IOException("Unsupported image format: " + key);
+        }
+        RasterImage image = TemplateMask.applyTo(file, RasterImage.from(decoded)).precompute();
+        put(key, new Entry(lastModified, maskModified, image));
+        return image;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += entry.bytes;
+
+        // Keep the newest entry even when it alone exceeds the budget
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            if (evicted.getValue() == entry) {
+                break;
+            }
+            currentBytes -= evicted.getValue().bytes;
+            eldest.remove();
+            evictions++;
+            logger.debug("Evicted template from cache: {}", evicted.getKey());
+        }
+    }
+
+    /**
+     * Drop a single template from the cache
+     */
+    public synchronized void invalidate(String absolutePath) {
+        Entry removed = entries.remove(absolutePath);
+        if (removed != null) {
+            currentBytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * Drop all templates and reset the counters
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TemplateCache{entries=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d}",
+            entries.size(), currentBytes, maxBytes, hits, misses, evictions);
+    }
+
+    private static final class Entry {
+        final long lastModified;
+        final long maskModified;
+        final RasterImage image;
+        final long bytes;
+
+        Entry(long lastModified, long maskModified, RasterImage image) {
+            this.lastModified = lastModified;
+            this.maskModified = maskModified;
+            this.image = image;
+            this.bytes = image.getMemoryFootprint();
+        }
+    }
+}
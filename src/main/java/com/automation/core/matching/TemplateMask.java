@@ -0,0 +1,273 @@
+package com.automation.core.matching;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * TemplateMask marks the template pixels that take part in scoring; the rest
+ * (background around an icon, a changing label) are "don't care".
+ *
+ * A mask comes from a sidecar image next to the template ({@code name.mask.png},
+ * white = active) or, without one, from the template's own PNG alpha channel
+ * (alpha below 128 = don't care). It is compiled into runs of consecutive active
+ * pixels per row, so the matching engine reads window sums for each run from the
+ * screenshot's summed-area tables and only walks active pixels for the cross term.
+ */
+public final class TemplateMask {
+
+    /**
+     * Alpha (or mask luminance) below this marks a pixel as "don't care"
+     */
+    public static final int ACTIVE_THRESHOLD = 128;
+
+    private static final String SIDECAR_SUFFIX = ".mask.png";
+
+    private final int width;
+    private final int height;
+    private final boolean[] active;
+    private final int activeCount;
+
+    // Runs of active pixels in row-major order
+    private final int[] runX;
+    private final int[] runY;
+    private final int[] runLength;
+
+    public TemplateMask(int width, int height, boolean[] active) {
+        if (active.length != width * height) {
+            throw new IllegalArgumentException("Mask size does not match " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.active = active;
+
+        int count = 0;
+        int runs = 0;
+        for (int i = 0; i < active.length; i++) {
+            if (active[i]) {
+                count++;
+                if (i % width == 0 || !active[i - 1]) {
+                    runs++;
+                }
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("Mask excludes every pixel of the " + width + "x" + height + " template");
+        }
+        this.activeCount = count;
+
+        runX = new int[runs];
+        runY = new int[runs];
+        runLength = new int[runs];
+        int run = -1;
+        for (int i = 0; i < active.length; i++) {
+            if (!active[i]) {
+                continue;
+            }
+            if (i % width == 0 || !active[i - 1]) {
+                run++;
+                runX[run] = i % width;
+                runY[run] = i / width;
+            }
+            runLength[run]++;
+        }
+    }
+
+    /**
+     * Mask from the alpha channel of a template
+     * @return The mask, or null if the template has no alpha or is fully opaque
+     */
+    public static TemplateMask fromAlpha(RasterImage template) {
+        if (!template.hasAlpha()) {
+            return null;
+        }
+        int[] pixels = template.getPixels();
+        boolean[] active = new boolean[template.getPixelCount()];
+        boolean masked = false;
+        for (int i = 0; i < active.length; i++) {
+            active[i] = (pixels[i] >>> 24) >= ACTIVE_THRESHOLD;
+            masked |= !active[i];
+        }
+        return masked ? new TemplateMask(template.getWidth(), template.getHeight(), active) : null;
+    }
+
+    /**
+     * Mask from a mask image: light, opaque pixels are active
+     * @return The mask, or null if every pixel is active
+     */
+    public static TemplateMask fromImage(BufferedImage maskImage) {
+        RasterImage mask = RasterImage.from(maskImage);
+        int[] pixels = mask.getPixels();
+        boolean alpha = mask.hasAlpha();
+        boolean[] active = new boolean[mask.getPixelCount()];
+        boolean masked = false;
+        for (int i = 0; i < active.length; i++) {
+            active[i] = RasterImage.luminance(pixels[i]) >= ACTIVE_THRESHOLD
+                && (!alpha || (pixels[i] >>> 24) >= ACTIVE_THRESHOLD);
+            masked |= !active[i];
+        }
+        return masked ? new TemplateMask(mask.getWidth(), mask.getHeight(), active) : null;
+    }
+
+    /**
+     * Sidecar mask file of a template: "button.png" uses "button.mask.png"
+     */
+    public static File sidecarFor(File template) {
+        String name = template.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new File(template.getParentFile(), base + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Attach the mask of a template file: its sidecar mask if present, else its alpha channel
+     * @return The template with its mask, or the template itself if it has none
+     * @throws IOException if the sidecar cannot be read or does not match the template size
+     */
+    public static RasterImage applyTo(File templateFile, RasterImage template) throws IOException {
+        File sidecar = sidecarFor(templateFile);
+        TemplateMask mask;
+        if (sidecar.isFile()) {
+            BufferedImage maskImage = ImageIO.read(sidecar);
+            if (maskImage == null) {
+                throw new IOException("Unsupported mask image format: " + sidecar);
+            }
+            if (maskImage.getWidth() != template.getWidth() || maskImage.getHeight() != template.getHeight()) {
+                throw new IOException("Mask " + sidecar.getName() + " is " + maskImage.getWidth() + "x"
+                    + maskImage.getHeight() + " but template is " + template.getWidth() + "x" + template.getHeight());
+            }
+            mask = fromImage(maskImage);
+        } else {
+            mask = fromAlpha(template);
+        }
+        return mask != null ? template.withMask(mask) : template;
+    }
+
+    /**
+     * Mask of a sub-rectangle
+     * @return The cropped mask, or null if that part of the template is fully active or
+     *         fully excluded; either way the crop is then scored unmasked
+     */
+    public TemplateMask crop(int x, int y, int cropWidth, int cropHeight) {
+        boolean[] cropped = new boolean[cropWidth * cropHeight];
+        int count = 0;
+        for (int row = 0; row < cropHeight; row++) {
+            System.arraycopy(active, (y + row) * width + x, cropped, row * cropWidth, cropWidth);
+            for (int col = 0; col < cropWidth; col++) {
+                count += cropped[row * cropWidth + col] ? 1 : 0;
+            }
+        }
+        return count > 0 && count < cropped.length ? new TemplateMask(cropWidth, cropHeight, cropped) : null;
+    }
+
+    /**
+     * Mask shrunk so a pixel stays active only if every pixel within the radius is active,
+     * e.g. radius 1 for values computed from a 3x3 neighbourhood such as Sobel edges.
+     * Neighbours past the border are replicated, as the edge filter does.
+     * @return The eroded mask, or null if no active pixel survives
+     */
+    public TemplateMask erode(int radius) {
+        boolean[] eroded = new boolean[active.length];
+        boolean any = false;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean keep = active[y * width + x];
+                for (int dy = -radius; keep && dy <= radius; dy++) {
+                    int row = Math.min(height - 1, Math.max(0, y + dy)) * width;
+                    for (int dx = -radius; keep && dx <= radius; dx++) {
+                        keep = active[row + Math.min(width - 1, Math.max(0, x + dx))];
+                    }
+                }
+                eroded[y * width + x] = keep;
+                any |= keep;
+            }
+        }
+        return any ? new TemplateMask(width, height, eroded) : null;
+    }
+
+    /**
+     * Mask resized to another template size (nearest neighbour)
+     * @return The resized mask, or null if no active pixel survives the resize
+     */
+    public TemplateMask scale(int scaledWidth, int scaledHeight) {
+        boolean[] scaled = new boolean[scaledWidth * scaledHeight];
+        boolean any = false;
+        for (int y = 0; y < scaledHeight; y++) {
+            int sy = Math.min(height - 1, (int) ((y + 0.5) * height / scaledHeight));
+            for (int x = 0; x < scaledWidth; x++) {
+                int sx = Math.min(width - 1, (int) ((x + 0.5) * width / scaledWidth));
+                scaled[y * scaledWidth + x] = active[sy * width + sx];
+                any |= scaled[y * scaledWidth + x];
+            }
+        }
+        return any ? new TemplateMask(scaledWidth, scaledHeight, scaled) : null;
+    }
+
+    /**
+     * Mask for a template halved by {@link RasterImage#downsample()}: a pixel stays
+     * active only if all four pixels it averages are active
+     * @return The halved mask, or null if it would be fully active or fully excluded
+     */
+    public TemplateMask downsample() {
+        int halfWidth = Math.max(1, width / 2);
+        int halfHeight = Math.max(1, height / 2);
+        int dx = width > 1 ? 1 : 0;
+        int dy = height > 1 ? width : 0;
+        boolean[] half = new boolean[halfWidth * halfHeight];
+        int count = 0;
+        for (int y = 0; y < halfHeight; y++) {
+            for (int x = 0; x < halfWidth; x++) {
+                int i = (y * 2) * width + x * 2;
+                half[y * halfWidth + x] = active[i] && active[i + dx] && active[i + dy] && active[i + dy + dx];
+                count += half[y * halfWidth + x] ? 1 : 0;
+            }
+        }
+        return count > 0 && count < half.length ? new TemplateMask(halfWidth, halfHeight, half) : null;
+    }
+
+    public boolean isActive(int x, int y) {
+        return active[y * width + x];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Fraction of template pixels that are scored
+     */
+    public double getCoverage() {
+        return (double) activeCount / active.length;
+    }
+
+    public int getRunCount() {
+        return runX.length;
+    }
+
+    int getRunX(int run) {
+        return runX[run];
+    }
+
+    int getRunY(int run) {
+        return runY[run];
+    }
+
+    int getRunLength(int run) {
+        return runLength[run];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TemplateMask{%dx%d, active=%d (%.1f%%), runs=%d}",
+            width, height, activeCount, getCoverage() * 100, getRunCount());
+    }
+}
@@ -0,0 +1,491 @@
+package com.automation.core.matching;
+
+import com.automation.models.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TemplateMatchEngine scores every candidate offset of a template inside a
+ * screenshot using normalized cross-correlation (NCC) over the luminance plane.
+ *
+ * All arithmetic runs on primitive arrays extracted once per image, so a search
+ * costs no allocations and no virtual calls per pixel. Window sums and sums of
+ * squares come from the screenshot's summed-area tables in O(1), leaving only
+ * the cross term to accumulate per offset. Scores range from -1.0
+ * to 1.0; the best offset is scanned row-major and ties keep the first offset,
+ * which makes results reproducible across runs.
+ *
+ * Templates with a {@link TemplateMask} are scored over their active pixels
+ * only: window sums are read per run of active pixels, and the cross term
+ * skips "don't care" pixels entirely.
+ */
+public class TemplateMatchEngine {
+    private static final Logger logger = LoggerFactory.getLogger(TemplateMatchEngine.class);
+
+    /**
+     * Scores at or above this value are treated as exact and stop the scan
+     */
+    public static final double PERFECT_SCORE = 1.0 - 1e-9;
+
+    /**
+     * Slack on the pruning bound so rounding can never abandon a winning offset
+     */
+    private static final double PRUNE_MARGIN = 1e-9;
+
+    private volatile boolean earlyTermination;
+
+    /**
+     * Find the best match of the template anywhere in the screenshot
+     * @return Best match with score >= threshold, or null if none qualifies
+     */
+    public MatchResult findBestMatch(RasterImage screen, RasterImage template, double threshold) {
+        return findBestMatch(screen, template, null, threshold);
+    }
+
+    /**
+     * Find the best match restricted to a set of candidate top-left offsets
+     * @param searchArea Candidate offsets to score (clipped to valid offsets), or null for all
+     * @return Best match with score >= threshold, or null if none qualifies
+     */
+    public MatchResult findBestMatch(RasterImage screen, RasterImage template, Rectangle searchArea, double threshold) {
+        return findBestMatch(screen, template, searchArea, threshold, null);
+    }
+
+    /**
+     * Find the best match restricted to a set of candidate top-left offsets
+     * @param searchArea Candidate offsets to score (clipped to valid offsets), or null for all
+     * @param stats Receives candidate and pruning counts, or null
+     * @return Best match with score >= threshold, or null if none qualifies
+     */
+    public MatchResult findBestMatch(RasterImage screen, RasterImage template, Rectangle searchArea,
+                                     double threshold, PruningStats stats) {
+        Rectangle offsets = validOffsets(screen, template, searchArea);
+        if (offsets == null) {
+            return null;
+        }
+
+        long startTime = System.nanoTime();
+        MatchResult best = scan(screen, template, offsets.x, offsets.x + offsets.width,
+            offsets.y, offsets.y + offsets.height, threshold, stats);
+        if (stats != null) {
+            stats.recordSearch();
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Scanned {} offsets in {} ms, best: {}", (long) offsets.width * offsets.height,
+                (System.nanoTime() - startTime) / 1_000_000, best);
+        }
+
+        return best != null && best.getScore() >= threshold ? best : null;
+    }
+
+    /**
+     * Find every offset scoring at or above the threshold, before any overlap suppression.
+     * With early termination enabled, offsets are abandoned as soon as they cannot reach
+     * the threshold; there is no best score to prune against.
+     * @param searchArea Candidate offsets to score (clipped to valid offsets), or null for all
+     * @param stats Receives candidate and pruning counts, or null
+     * @return Hits in scan order (row-major)
+     */
+    public List<MatchResult> findAllAbove(RasterImage screen, RasterImage template, Rectangle searchArea,
+                                          double threshold, PruningStats stats) {
+        List<MatchResult> hits = new ArrayList<>();
+        Rectangle offsets = validOffsets(screen, template, searchArea);
+        if (offsets == null) {
+            return hits;
+        }
+
+        int[] s = screen.getGray();
+        IntegralImage integral = screen.getIntegral();
+        int[] t = template.getGray();
+        int sw = screen.getWidth();
+        int tw = template.getWidth();
+        int th = template.getHeight();
+        long n = (long) tw * th;
+        long sumT = template.getGraySum();
+        double varT = n * template.getGraySumSquares() - (double) sumT * sumT;
+        ActivePixels active = ActivePixels.of(template, sw, earlyTermination);
+        long[] tailT = earlyTermination && active == null ? rowSquareTails(t, tw, th) : null;
+        double target = threshold - PRUNE_MARGIN;
+
+        long pruned = 0;
+        for (int y = offsets.y; y < offsets.y + offsets.height; y++) {
+            for (int x = offsets.x; x < offsets.x + offsets.width; x++) {
+                double score = active != null
+                    ? active.score(s, sw, integral, x, y, target)
+                    : tailT == null
+                    ? nccAt(s, sw, integral, t, tw, th, x, y, n, sumT, varT)
+                    : nccAtOrPrune(s, sw, integral, t, tw, th, x, y, n, sumT, varT, tailT, target);
+                if (Double.isNaN(score)) {
+                    pruned++;
+                } else if (score >= threshold) {
+                    hits.add(new MatchResult(x, y, tw, th, score));
+                }
+            }
+        }
+
+        if (stats != null) {
+            stats.record((long) offsets.width * offsets.height, pruned);
+            stats.recordSearch();
+        }
+        return hits;
+    }
+
+    /**
+     * Compute the range of valid top-left offsets, intersected with an optional search area
+     * @return Rectangle of offsets (width/height are offset counts), or null if empty
+     */
+    public static Rectangle validOffsets(RasterImage screen, RasterImage template, Rectangle searchArea) {
+        int maxX = screen.getWidth() - template.getWidth();
+        int maxY = screen.getHeight() - template.getHeight();
+        if (maxX < 0 || maxY < 0) {
+            logger.warn("Template ({}x{}) is larger than screenshot ({}x{})", template.getWidth(),
+                template.getHeight(), screen.getWidth(), screen.getHeight());
+            return null;
+        }
+
+        Rectangle offsets = new Rectangle(0, 0, maxX + 1, maxY + 1);
+        if (searchArea != null) {
+            offsets = offsets.intersection(searchArea);
+        }
+        return offsets.isEmpty() ? null : offsets;
+    }
+
+    /**
+     * Scan a block of offsets [x0, x1) x [y0, y1) and return the best scoring one
+     */
+    MatchResult scan(RasterImage screen, RasterImage template, int x0, int x1, int y0, int y1) {
+        return scan(screen, template, x0, x1, y0, y1, Double.NEGATIVE_INFINITY, null);
+    }
+
+    /**
+     * Scan a block of offsets [x0, x1) x [y0, y1) and return the best scoring one.
+     * With early termination enabled, an offset is abandoned as soon as its score can
+     * no longer reach {@code floor} or beat the best score so far. Abandoned offsets
+     * could not have changed the result, except that the best below {@code floor}
+     * may not be reported.
+     * @param floor Scores below this are of no interest to the caller (usually the threshold)
+     * @param stats Receives candidate and pruning counts, or null
+     */
+    MatchResult scan(RasterImage screen, RasterImage template, int x0, int x1, int y0, int y1,
+                     double floor, PruningStats stats) {
+        int[] s = screen.getGray();
+        IntegralImage integral = screen.getIntegral();
+        int[] t = template.getGray();
+        int sw = screen.getWidth();
+        int tw = template.getWidth();
+        int th = template.getHeight();
+        long n = (long) tw * th;
+        long sumT = template.getGraySum();
+        double varT = n * template.getGraySumSquares() - (double) sumT * sumT;
+        ActivePixels active = ActivePixels.of(template, sw, earlyTermination);
+        long[] tailT = earlyTermination && active == null ? rowSquareTails(t, tw, th) : null;
+
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int bestX = -1;
+        int bestY = -1;
+        long candidates = 0;
+        long pruned = 0;
+
+        scanning:
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                candidates++;
+                double score = active != null
+                    ? active.score(s, sw, integral, x, y, Math.max(floor, bestScore) - PRUNE_MARGIN)
+                    : tailT == null
+                    ? nccAt(s, sw, integral, t, tw, th, x, y, n, sumT, varT)
+                    : nccAtOrPrune(s, sw, integral, t, tw, th, x, y, n, sumT, varT, tailT,
+                        Math.max(floor, bestScore) - PRUNE_MARGIN);
+                if (Double.isNaN(score)) {
+                    pruned++;
+                } else if (score > bestScore) {
+                    bestScore = score;
+                    bestX = x;
+                    bestY = y;
+                    if (score >= PERFECT_SCORE) {
+                        break scanning;
+                    }
+                }
+            }
+        }
+
+        if (stats != null) {
+            stats.record(candidates, pruned);
+        }
+        return bestX < 0 ? null : new MatchResult(bestX, bestY, tw, th, bestScore);
+    }
+
+    /**
+     * Merge two scan results where {@code first} covers offsets scanned before {@code second}.
+     * Mirrors the sequential scan: a perfect first result stops the scan, otherwise the
+     * later result only wins with a strictly higher score.
+     */
+    static MatchResult mergeInScanOrder(MatchResult first, MatchResult second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null || first.getScore() >= PERFECT_SCORE) {
+            return first;
+        }
+        return second.getScore() > first.getScore() ? second : first;
+    }
+
+    /**
+     * Score every offset in the search area and return the scores row-major
+     * @param offsets Offsets to score, as returned by {@link #validOffsets}
+     * @return Scores indexed by (y - offsets.y) * offsets.width + (x - offsets.x)
+     */
+    public float[] scoreMap(RasterImage screen, RasterImage template, Rectangle offsets) {
+        int[] s = screen.getGray();
+        IntegralImage integral = screen.getIntegral();
+        int[] t = template.getGray();
+        int sw = screen.getWidth();
+        int tw = template.getWidth();
+        int th = template.getHeight();
+        long n = (long) tw * th;
+        long sumT = template.getGraySum();
+        double varT = n * template.getGraySumSquares() - (double) sumT * sumT;
+
+        ActivePixels active = ActivePixels.of(template, sw, false);
+
+        float[] scores = new float[offsets.width * offsets.height];
+        int i = 0;
+        for (int y = offsets.y; y < offsets.y + offsets.height; y++) {
+            for (int x = offsets.x; x < offsets.x + offsets.width; x++) {
+                scores[i++] = (float) (active != null
+                    ? active.score(s, sw, integral, x, y, Double.NEGATIVE_INFINITY)
+                    : nccAt(s, sw, integral, t, tw, th, x, y, n, sumT, varT));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Score the template at a single offset
+     */
+    public double scoreAt(RasterImage screen, RasterImage template, int x, int y) {
+        MatchResult result = scan(screen, template, x, x + 1, y, y + 1);
+        return result != null ? result.getScore() : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Correlate the template with the screen window at (x, y)
+     */
+    private static double nccAt(int[] s, int sw, IntegralImage integral, int[] t, int tw, int th, int x, int y,
+                                long n, long sumT, double varT) {
+        long sumS = integral.windowSum(x, y, tw, th);
+        long sumSS = integral.windowSumSquares(x, y, tw, th);
+
+        // Flat windows and templates are scored from the sums alone
+        long sumST = 0;
+        if (varT > 0 && n * sumSS - (double) sumS * sumS > 0) {
+            for (int ty = 0; ty < th; ty++) {
+                int si = (y + ty) * sw + x;
+                int ti = ty * tw;
+                for (int tx = 0; tx < tw; tx++) {
+                    sumST += s[si + tx] * t[ti + tx];
+                }
+            }
+        }
+        return ncc(n, sumS, sumSS, sumST, sumT, varT);
+    }
+
+    /**
+     * Correlate like {@link #nccAt}, but give up once the score cannot reach {@code target}.
+     * After each template row the cross term still to come is bounded by Cauchy-Schwarz:
+     * sum(s*t) over the remaining rows is at most sqrt(sum(s^2) * sum(t^2)) over those rows,
+     * with the screen side read from the summed-area tables.
+     * @return The score, or NaN if the offset was abandoned
+     */
+    private static double nccAtOrPrune(int[] s, int sw, IntegralImage integral, int[] t, int tw, int th,
+                                       int x, int y, long n, long sumT, double varT, long[] tailT, double target) {
+        long sumS = integral.windowSum(x, y, tw, th);
+        long sumSS = integral.windowSumSquares(x, y, tw, th);
+        double varS = n * sumSS - (double) sumS * sumS;
+        if (varT <= 0 || varS <= 0) {
+            double score = ncc(n, sumS, sumSS, 0, sumT, varT);
+            return score < target ? Double.NaN : score;
+        }
+
+        // Smallest cross term that still reaches the target score
+        double needed = (target * Math.sqrt(varS * varT) + (double) sumS * sumT) / n;
+        long sumST = 0;
+        for (int ty = 0; ty < th; ty++) {
+            int si = (y + ty) * sw + x;
+            int ti = ty * tw;
+            for (int tx = 0; tx < tw; tx++) {
+                sumST += s[si + tx] * t[ti + tx];
+            }
+            int rest = th - ty - 1;
+            if (rest > 0) {
+                long restSS = integral.windowSumSquares(x, y + ty + 1, tw, rest);
+                if (sumST + Math.sqrt((double) restSS * tailT[ty + 1]) < needed) {
+                    return Double.NaN;
+                }
+            }
+        }
+        return ncc(n, sumS, sumSS, sumST, sumT, varT);
+    }
+
+    /**
+     * Sums of squared template values from each row to the bottom; entry th is 0
+     */
+    private static long[] rowSquareTails(int[] t, int tw, int th) {
+        long[] tails = new long[th + 1];
+        for (int ty = th - 1; ty >= 0; ty--) {
+            long rowSquares = 0;
+            for (int i = ty * tw; i < (ty + 1) * tw; i++) {
+                rowSquares += (long) t[i] * t[i];
+            }
+            tails[ty] = tails[ty + 1] + rowSquares;
+        }
+        return tails;
+    }
+
+    /**
+     * Enable successive elimination: abandon offsets whose partial correlation can no longer
+     * reach the threshold or beat the best score so far. Results are unchanged.
+     */
+    public void setEarlyTermination(boolean earlyTermination) {
+        this.earlyTermination = earlyTermination;
+    }
+
+    public boolean isEarlyTermination() {
+        return earlyTermination;
+    }
+
+    /**
+     * A masked template's active pixels laid out for one screenshot width.
+     * Built per scan; not shared between threads.
+     */
+    private static final class ActivePixels {
+        private final int runs;
+        private final int[] runX;
+        private final int[] runY;
+        private final int[] runLength;
+        private final int[] runOffset;
+        private final int[] runStart;
+        private final long[] runSquares;
+        private final int[] values;
+        private final long n;
+        private final long sumT;
+        private final double varT;
+        // Template squares from each run to the end (entry runs is 0), or null without early termination
+        private final long[] tailT;
+
+        private ActivePixels(TemplateMask mask, int[] values, int screenWidth, boolean earlyTermination) {
+            runs = mask.getRunCount();
+            runX = new int[runs];
+            runY = new int[runs];
+            runLength = new int[runs];
+            runOffset = new int[runs];
+            runStart = new int[runs];
+            runSquares = new long[runs];
+            for (int r = 0, start = 0; r < runs; r++) {
+                runX[r] = mask.getRunX(r);
+                runY[r] = mask.getRunY(r);
+                runLength[r] = mask.getRunLength(r);
+                runOffset[r] = runY[r] * screenWidth + runX[r];
+                runStart[r] = start;
+                start += runLength[r];
+            }
+            this.values = values;
+
+            long sum = 0;
+            long sumSquares = 0;
+            for (int value : values) {
+                sum += value;
+                sumSquares += (long) value * value;
+            }
+            n = values.length;
+            sumT = sum;
+            varT = n * sumSquares - (double) sum * sum;
+
+            if (earlyTermination) {
+                tailT = new long[runs + 1];
+                int v = values.length;
+                for (int r = runs - 1; r >= 0; r--) {
+                    long squares = 0;
+                    for (int i = 0; i < runLength[r]; i++) {
+                        v--;
+                        squares += (long) values[v] * values[v];
+                    }
+                    tailT[r] = tailT[r + 1] + squares;
+                }
+            } else {
+                tailT = null;
+            }
+        }
+
+        /**
+         * @return Null if the template has no mask
+         */
+        static ActivePixels of(RasterImage template, int screenWidth, boolean earlyTermination) {
+            TemplateMask mask = template.getMask();
+            return mask == null ? null : new ActivePixels(mask, template.getActiveGray(), screenWidth, earlyTermination);
+        }
+
+        /**
+         * Correlate the active pixels with the screen window at (x, y); with early termination,
+         * give up once the score cannot reach {@code target} (bounded after each template row
+         * as in {@link TemplateMatchEngine#nccAtOrPrune})
+         * @return The score, or NaN if the offset was abandoned
+         */
+        double score(int[] s, int sw, IntegralImage integral, int x, int y, double target) {
+            long sumS = 0;
+            long sumSS = 0;
+            for (int r = 0; r < runs; r++) {
+                sumS += integral.windowSum(x + runX[r], y + runY[r], runLength[r], 1);
+                long squares = integral.windowSumSquares(x + runX[r], y + runY[r], runLength[r], 1);
+                runSquares[r] = squares;
+                sumSS += squares;
+            }
+            double varS = n * sumSS - (double) sumS * sumS;
+            if (varT <= 0 || varS <= 0) {
+                double score = ncc(n, sumS, sumSS, 0, sumT, varT);
+                return tailT != null && score < target ? Double.NaN : score;
+            }
+
+            double needed = tailT != null ? (target * Math.sqrt(varS * varT) + (double) sumS * sumT) / n : 0;
+            int base = y * sw + x;
+            long sumST = 0;
+            long restSS = sumSS;
+            for (int r = 0; r < runs; r++) {
+                int si = base + runOffset[r];
+                int vi = runStart[r];
+                int length = runLength[r];
+                for (int i = 0; i < length; i++) {
+                    sumST += s[si + i] * values[vi + i];
+                }
+                restSS -= runSquares[r];
+                if (tailT != null && r + 1 < runs && runY[r + 1] != runY[r]
+                        && sumST + Math.sqrt((double) restSS * tailT[r + 1]) < needed) {
+                    return Double.NaN;
+                }
+            }
+            return ncc(n, sumS, sumSS, sumST, sumT, varT);
+        }
+    }
+
+    /**
+     * Normalized cross-correlation from window sums.
+     * Flat windows or templates have no variance to correlate, so they are
+     * scored by how close their mean brightness is instead.
+     */
+    static double ncc(long n, long sumS, long sumSS, long sumST, long sumT, double varT) {
+        double varS = n * sumSS - (double) sumS * sumS;
+        if (varS <= 0 || varT <= 0) {
+            if (varS <= 0 && varT <= 0) {
+                return 1.0 - Math.abs(sumS - sumT) / (255.0 * n);
+            }
+            return 0.0;
+        }
+        double covariance = n * sumST - (double) sumS * sumT;
+        return covariance / Math.sqrt(varS * varT);
+    }
+}
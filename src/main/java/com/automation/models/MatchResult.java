@@ -0,0 +1,114 @@
+package com.automation.models;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+
+/**
+ * Represents the result of a template match against a screenshot
+ * Contains the matched location, template size, similarity score and the
+ * scale the template was resized by (1.0 unless multi-scale search is used)
+ */
+public class MatchResult {
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final double score;
+    private final double scale;
+
+    public MatchResult(int x, int y, int width, int height, double score) {
+        this(x, y, width, height, score, 1.0);
+    }
+
+    public MatchResult(int x, int y, int width, int height, double score, double scale) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.score = score;
+        this.scale = scale;
+    }
+
+    /**
+     * Get the x coordinate of the match (top-left corner)
+     * @return X coordinate in screenshot pixels
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Get the y coordinate of the match (top-left corner)
+     * @return Y coordinate in screenshot pixels
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Get the width of the matched area
+     * @return Width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the matched area
+     * @return Height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the similarity score of the match
+     * @return Score between -1.0 and 1.0 (1.0 is a perfect match)
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Get the factor the template was resized by before matching
+     * @return Scale factor, e.g. 1.25 for a 100% template found on a 125% desktop
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Copy of this result recording the scale the template was resized by
+     * @param scale Scale factor applied to the template
+     * @return New result with the same location and score
+     */
+    public MatchResult withScale(double scale) {
+        return new MatchResult(x, y, width, height, score, scale);
+    }
+
+    /**
+     * Get the matched area as a rectangle
+     * @return Rectangle covering the matched area
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(x, y, width, height);
+    }
+
+    /**
+     * Get the center point of the matched area
+     * @return Center point, useful as a click target
+     */
+    public Point getCenter() {
+        return new Point(x + width / 2, y + height / 2);
+    }
+
+    @Override
+    public String toString() {
+        if (scale != 1.0) {
+            return String.format("MatchResult{x=%d, y=%d, size=%dx%d, score=%.4f, scale=%.3f}",
+                x, y, width, height, score, scale);
+        }
+        return String.format("MatchResult{x=%d, y=%d, size=%dx%d, score=%.4f}",
+            x, y, width, height, score);
+    }
+}
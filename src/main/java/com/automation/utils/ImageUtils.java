@@ -1,5 +1,7 @@
 package com.automation.utils;
 
+import com.automation.core.ScreenCapture;
+import com.automation.core.matching.PixelKernels;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,6 +25,7 @@ public class ImageUtils {
     public static BufferedImage loadImage(String imagePath) {
         try {
             File imageFile = new File(imagePath);
+            ScreenCapture.awaitScreenshot(imageFile);
             if (!imageFile.exists()) {
                 logger.error("Image file not found: {}", imagePath);
                 return null;
@@ -315,20 +318,7 @@ public class ImageUtils {
             img2 = resizeImage(img2, width, height);
         }
         
-        int width = img1.getWidth();
-        int height = img1.getHeight();
-        long totalPixels = (long) width * height;
-        long matchingPixels = 0;
-        
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (img1.getRGB(x, y) == img2.getRGB(x, y)) {
-                    matchingPixels++;
-                }
-            }
-        }
-        
-        return (double) matchingPixels / totalPixels;
+        return PixelKernels.equalFraction(img1, img2);
     }
     
     /**
@@ -348,32 +338,7 @@ public class ImageUtils {
             img2 = resizeImage(img2, width, height);
         }
         
-        int width = img1.getWidth();
-        int height = img1.getHeight();
-        long totalPixels = (long) width * height;
-        long similarPixels = 0;
-        
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Color c1 = new Color(img1.getRGB(x, y));
-                Color c2 = new Color(img2.getRGB(x, y));
-                
-                if (isColorSimilar(c1, c2, tolerance)) {
-                    similarPixels++;
-                }
-            }
-        }
-        
-        return (double) similarPixels / totalPixels;
-    }
-    
-    /**
-     * Check if two colors are similar within tolerance
-     */
-    private static boolean isColorSimilar(Color c1, Color c2, int tolerance) {
-        return Math.abs(c1.getRed() - c2.getRed()) <= tolerance &&
-               Math.abs(c1.getGreen() - c2.getGreen()) <= tolerance &&
-               Math.abs(c1.getBlue() - c2.getBlue()) <= tolerance;
+        return PixelKernels.toleranceFraction(img1, img2, tolerance);
     }
     
     /**
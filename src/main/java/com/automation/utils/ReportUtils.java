@@ -1,5 +1,6 @@
 package com.automation.utils;
 
+import com.automation.core.ScreenCapture;
 import com.automation.models.TestResult;
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
@@ -175,6 +176,7 @@ public class ReportUtils {
         if (currentTest != null && screenshotPath != null) {
             try {
                 File screenshotFile = new File(screenshotPath);
+                ScreenCapture.awaitScreenshot(screenshotFile);
                 if (screenshotFile.exists()) {
                     currentTest.log(Status.INFO, description, 
                         MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
@@ -176,35 +176,8 @@ public class WaitUtilsStatic {
      * Wait for text to appear in a specific region using OCR
      */
     public static boolean waitForText(String expectedText, java.awt.Rectangle region, int timeoutSeconds) {
-        return waitForCondition(() -> {
-            try {
-                com.automation.core.ScreenCapture screenCapture = new com.automation.core.ScreenCapture();
-                com.automation.core.OCREngine ocrEngine = new com.automation.core.OCREngine();
-                
-                java.io.File regionCapture = screenCapture.captureRegionToFile(region);
-                String extractedText = ocrEngine.extractText(regionCapture);
-                  // Primary check: exact case-insensitive match
-                boolean found = extractedText.toLowerCase().contains(expectedText.toLowerCase());
-                
-                // Enhanced check for common OCR recognition issues
-                if (!found && expectedText.toLowerCase().contains("cmd window opened")) {
-                    // Check for common OCR variations of "CMD Window Opened"
-                    String lowerText = extractedText.toLowerCase();
-                    found = lowerText.contains("md window opened") ||     // Missing 'C'
-                           lowerText.contains("cmd window opened") ||     // Exact match
-                           lowerText.contains("d window opened") ||       // Missing 'CM'
-                           lowerText.contains("window opened");           // Missing CMD entirely
-                }
-                
-                logger.debug("OCR extracted text: '{}', looking for: '{}', found: {}", 
-                    extractedText, expectedText, found);
-                
-                return found;
-            } catch (Exception e) {
-                logger.warn("Error checking for text '{}' in region: {}", expectedText, e.getMessage());
-                return false;
-            }
-        }, timeoutSeconds, String.format("Text '%s' to appear in region", expectedText));
+        return waitForOcrText(expectedText, region, timeoutSeconds,
+            String.format("Text '%s' to appear in region", expectedText));
     }
 
     /**
@@ -212,37 +185,68 @@ public class WaitUtilsStatic {
      * This is more reliable for maximized windows
      */
     public static boolean waitForTextOnScreen(String expectedText, int timeoutSeconds) {
+        return waitForOcrText(expectedText, null, timeoutSeconds,
+            String.format("Text '%s' to appear on screen", expectedText));
+    }
+
+    /**
+     * Poll OCR on a region (or the full screen when null) until it contains the expected text.
+     * Captures are diffed in tiles against the previous one; when no tile changed, the previous
+     * OCR result still holds and OCR is not run again.
+     */
+    private static boolean waitForOcrText(String expectedText, java.awt.Rectangle region, int timeoutSeconds,
+                                          String description) {
+        com.automation.core.ScreenCapture screenCapture;
+        com.automation.core.OCREngine ocrEngine;
+        try {
+            screenCapture = new com.automation.core.ScreenCapture();
+            ocrEngine = new com.automation.core.OCREngine();
+        } catch (Exception e) {
+            logger.warn("Cannot wait for text '{}': {}", expectedText, e.getMessage());
+            return false;
+        }
+        com.automation.core.capture.FrameDiffer differ =
+            new com.automation.core.capture.FrameDiffer(com.automation.core.ScreenCapture.getDiffTileSize());
+        
         return waitForCondition(() -> {
-            try {
-                com.automation.core.ScreenCapture screenCapture = new com.automation.core.ScreenCapture();
-                com.automation.core.OCREngine ocrEngine = new com.automation.core.OCREngine();
-                
-                java.io.File screenshot = screenCapture.captureScreen();
-                String extractedText = ocrEngine.extractText(screenshot);
-                
-                // Primary check: exact case-insensitive match
-                boolean found = extractedText.toLowerCase().contains(expectedText.toLowerCase());
-                
-                // Enhanced check for common OCR recognition issues
-                if (!found && expectedText.toLowerCase().contains("cmd window opened")) {
-                    // Check for common OCR variations of "CMD Window Opened"
-                    String lowerText = extractedText.toLowerCase();
-                    found = lowerText.contains("md window opened") ||     // Missing 'C'
-                           lowerText.contains("cmd window opened") ||     // Exact match
-                           lowerText.contains("d window opened") ||       // Missing 'CM'
-                           lowerText.contains("window opened");           // Missing CMD entirely
+            try (com.automation.core.capture.PooledFrame capture = screenCapture.capturePooled(region)) {
+                com.automation.core.capture.FrameDiff diff = differ.update(capture.getRaster());
+                if (diff.isUnchanged()) {
+                    logger.trace("Screen unchanged since last OCR pass, still waiting for '{}'", expectedText);
+                    return false;
                 }
                 
-                logger.debug("OCR extracted text from full screen: '{}', looking for: '{}', found: {}", 
+                String extractedText = ocrEngine.extractText(capture.getImage());
+                boolean found = containsExpectedText(extractedText, expectedText);
+                
+                logger.debug("OCR extracted text: '{}', looking for: '{}', found: {}", 
                     extractedText.length() > 200 ? extractedText.substring(0, 200) + "..." : extractedText, 
                     expectedText, found);
                 
                 return found;
             } catch (Exception e) {
-                logger.warn("Error checking for text '{}' on screen: {}", expectedText, e.getMessage());
+                // Read the next capture even if it is unchanged
+                differ.reset();
+                logger.warn("Error checking for text '{}': {}", expectedText, e.getMessage());
                 return false;
             }
-        }, timeoutSeconds, String.format("Text '%s' to appear on screen", expectedText));
+        }, timeoutSeconds, description);
+    }
+
+    private static boolean containsExpectedText(String extractedText, String expectedText) {
+        // Primary check: exact case-insensitive match
+        boolean found = extractedText.toLowerCase().contains(expectedText.toLowerCase());
+        
+        // Enhanced check for common OCR recognition issues
+        if (!found && expectedText.toLowerCase().contains("cmd window opened")) {
+            // Check for common OCR variations of "CMD Window Opened"
+            String lowerText = extractedText.toLowerCase();
+            found = lowerText.contains("md window opened") ||     // Missing 'C'
+                   lowerText.contains("cmd window opened") ||     // Exact match
+                   lowerText.contains("d window opened") ||       // Missing 'CM'
+                   lowerText.contains("window opened");           // Missing CMD entirely
+        }
+        return found;
     }
 
     /**
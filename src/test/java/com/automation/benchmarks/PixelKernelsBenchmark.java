@@ -0,0 +1,164 @@
+package com.automation.benchmarks;
+
+import com.automation.core.matching.PixelKernelSet;
+import com.automation.core.matching.PixelKernels;
+import com.automation.core.matching.ScalarPixelKernels;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-screen image comparison: the previous Color-per-pixel, column-first loop
+ * against the shared PixelKernels, and the scalar kernels against the active
+ * implementation (the Vector API kernels when built and run with them).
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.automation.benchmarks.PixelKernelsBenchmark
+ * Add -Pvector-api to compile the Vector API kernels; the forked benchmark JVM
+ * loads the module itself. Add -prof gc to the JMH options to see the
+ * allocation rate of each variant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelKernelsBenchmark {
+
+    @Param({"1920x1080"})
+    public String size;
+
+    private BufferedImage first;
+    private BufferedImage second;
+
+    private final PixelKernelSet scalar = new ScalarPixelKernels();
+    private final PixelKernelSet active = PixelKernels.getImplementation();
+    private int[] firstPixels;
+    private int[] secondPixels;
+    private int[] gray;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+
+        // Second image is the first with mild noise, like two captures of the same screen
+        Random random = new Random(42);
+        first = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        second = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = random.nextInt() & 0xFFFFFF;
+                first.setRGB(x, y, rgb);
+                second.setRGB(x, y, random.nextInt(10) == 0 ? rgb ^ 0x030303 : rgb);
+            }
+        }
+        firstPixels = first.getRGB(0, 0, width, height, null, 0, width);
+        secondPixels = second.getRGB(0, 0, width, height, null, 0, width);
+        gray = new int[firstPixels.length];
+    }
+
+    @Benchmark
+    public double colorPerPixelTolerance() {
+        int width = first.getWidth();
+        int height = first.getHeight();
+        long similarPixels = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Color c1 = new Color(first.getRGB(x, y));
+                Color c2 = new Color(second.getRGB(x, y));
+                if (Math.abs(c1.getRed() - c2.getRed()) <= 5
+                        && Math.abs(c1.getGreen() - c2.getGreen()) <= 5
+                        && Math.abs(c1.getBlue() - c2.getBlue()) <= 5) {
+                    similarPixels++;
+                }
+            }
+        }
+        return (double) similarPixels / ((long) width * height);
+    }
+
+    @Benchmark
+    public double kernelTolerance() {
+        return PixelKernels.toleranceFraction(first, second, 5);
+    }
+
+    @Benchmark
+    public double getRgbColumnFirstEquality() {
+        int width = first.getWidth();
+        int height = first.getHeight();
+        long matchingPixels = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (first.getRGB(x, y) == second.getRGB(x, y)) {
+                    matchingPixels++;
+                }
+            }
+        }
+        return (double) matchingPixels / ((long) width * height);
+    }
+
+    @Benchmark
+    public double kernelEquality() {
+        return PixelKernels.equalFraction(first, second);
+    }
+
+    @Benchmark
+    public long scalarToleranceCount() {
+        return scalar.countWithinTolerance(firstPixels, secondPixels, firstPixels.length, 5);
+    }
+
+    @Benchmark
+    public long activeToleranceCount() {
+        return active.countWithinTolerance(firstPixels, secondPixels, firstPixels.length, 5);
+    }
+
+    @Benchmark
+    public long scalarEqualCount() {
+        return scalar.countEqual(firstPixels, 0, secondPixels, 0, firstPixels.length);
+    }
+
+    @Benchmark
+    public long activeEqualCount() {
+        return active.countEqual(firstPixels, 0, secondPixels, 0, firstPixels.length);
+    }
+
+    @Benchmark
+    public long scalarSumAbsoluteDifference() {
+        return scalar.sumAbsoluteDifference(firstPixels, secondPixels, firstPixels.length);
+    }
+
+    @Benchmark
+    public long activeSumAbsoluteDifference() {
+        return active.sumAbsoluteDifference(firstPixels, secondPixels, firstPixels.length);
+    }
+
+    @Benchmark
+    public int[] scalarLuminance() {
+        scalar.luminance(firstPixels, gray, firstPixels.length);
+        return gray;
+    }
+
+    @Benchmark
+    public int[] activeLuminance() {
+        active.luminance(firstPixels, gray, firstPixels.length);
+        return gray;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(PixelKernelsBenchmark.class.getSimpleName())
+            .jvmArgsAppend("--add-modules", "jdk.incubator.vector")
+            .build();
+        new Runner(options).run();
+    }
+}
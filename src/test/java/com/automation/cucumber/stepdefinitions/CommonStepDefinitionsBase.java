@@ -2,10 +2,13 @@ package com.automation.cucumber.stepdefinitions;
 
 import com.automation.core.*;
 import com.automation.config.ConfigManager;
+import com.automation.core.capture.CapturePlanner;
+import com.automation.models.ManagedApplicationContext;
 import com.automation.models.TestResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -90,8 +93,6 @@ public abstract class CommonStepDefinitionsBase {
         try {
             initializeComponents();
             
-            BufferedImage screenshot = screenCapture.captureFullScreen();
-            File screenshotFile = screenCapture.saveBufferedImageToFile(screenshot, "click_operation");
             File buttonImage = new File(imagePath);
             
             if (!buttonImage.exists()) {
@@ -99,7 +100,7 @@ public abstract class CommonStepDefinitionsBase {
                 return false;
             }
             
-            Rectangle match = imageMatcher.findImage(screenshotFile, buttonImage);
+            Rectangle match = findImageOnScreen(buttonImage, "click_operation");
             if (match != null) {
                 int clickX = match.x + match.width / 2;
                 int clickY = match.y + match.height / 2;
@@ -117,6 +118,86 @@ public abstract class CommonStepDefinitionsBase {
         }
     }
     
+    /**
+     * Find an image on the current screen entirely in memory
+     * Only the template's search area is captured (see {@link #planTemplateSearch}); the
+     * match is returned in screen coordinates. The capture is only written to disk when
+     * image.match.save.evidence is enabled
+     */
+    protected Rectangle findImageOnScreen(File templateImage, String evidencePrefix) {
+        return findImageOnScreen(templateImage, evidencePrefix, false);
+    }
+    
+    /**
+     * Find an image on the current screen entirely in memory, optionally only within the
+     * current application's window
+     */
+    protected Rectangle findImageOnScreen(File templateImage, String evidencePrefix, boolean withinApplicationWindow) {
+        Rectangle plan = planTemplateSearch(templateImage, withinApplicationWindow);
+        BufferedImage screenshot = screenCapture.captureRegion(plan);
+        
+        if (ConfigManager.getBooleanProperty("image.match.save.evidence", false)) {
+            screenCapture.saveBufferedImageToFile(screenshot, evidencePrefix);
+        }
+        
+        Rectangle match = imageMatcher.findImage(screenshot, templateImage);
+        if (match != null) {
+            match.translate(plan.x, plan.y);
+        }
+        return match;
+    }
+    
+    /**
+     * Work out the screen area to capture when looking for a template: the "region" of its
+     * image entry in applications.yml (relative to the application window when one is
+     * running), else the current application's window when asked for, else the full screen,
+     * so dialogs, popup menus and other windows are still searched. A scoped area is grown
+     * by capture.planner.search.margin pixels
+     */
+    protected Rectangle planTemplateSearch(File templateImage, boolean withinApplicationWindow) {
+        CapturePlanner planner = screenCapture.getCapturePlanner();
+        if (!ConfigManager.getBooleanProperty("capture.planner.enabled", true)) {
+            return planner.fullScreen();
+        }
+        Dimension size = imageMatcher.getTemplateSize(templateImage);
+        if (size == null) {
+            return planner.fullScreen();
+        }
+        
+        Rectangle window = getApplicationWindowBounds();
+        Rectangle searchArea = withinApplicationWindow ? window : null;
+        String regionName = ConfigManager.getImageSetting(templateImage.getName(), "region");
+        if (regionName != null) {
+            try {
+                searchArea = new Rectangle(ConfigManager.getCurrentAppRegion(regionName));
+                if (window != null) {
+                    searchArea.translate(window.x, window.y);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring search region '{}' of {}: {}", regionName, templateImage.getName(), e.getMessage());
+            }
+        }
+        return planner.forTemplateSearch(searchArea, size.width, size.height,
+            ConfigManager.getIntProperty("capture.planner.search.margin", 16));
+    }
+    
+    /**
+     * Bounds of the current application's managed window, or null when none is running
+     */
+    protected Rectangle getApplicationWindowBounds() {
+        String application = currentApplicationName != null ? currentApplicationName : ConfigManager.getCurrentApplication();
+        if (application == null) {
+            return null;
+        }
+        for (ManagedApplicationContext context : ProcessManager.getInstance().getAllApplicationContexts(application)) {
+            Rectangle bounds = context.getPrimaryWindowBounds();
+            if (bounds != null && !bounds.isEmpty()) {
+                return bounds;
+            }
+        }
+        return null;
+    }
+    
     /**
      * Set current application context
      */
@@ -143,11 +224,7 @@ public abstract class CommonStepDefinitionsBase {
         
         while (System.currentTimeMillis() - startTime < timeoutMs) {
             try {
-                BufferedImage screenshot = screenCapture.captureFullScreen();
-                File screenshotFile = screenCapture.saveBufferedImageToFile(screenshot, "wait_operation");
-                File elementImage = new File(imagePath);
-                
-                Rectangle match = imageMatcher.findImage(screenshotFile, elementImage);
+                Rectangle match = findImageOnScreen(new File(imagePath), "wait_operation");
                 if (match != null) {
                     return true;
                 }
@@ -27,7 +27,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Attempting to click on image: {}", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -55,6 +55,38 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
             throw new RuntimeException("Failed to click image: " + interpolatedImageName, e);
         }
     }    
+    @When("I click on the image {string} in the application window")
+    public void i_click_on_the_image_in_the_application_window(String imageName) {
+        String interpolatedImageName = VariableManager.interpolate(imageName);
+        logger.info("Attempting to click on image '{}' in the application window", interpolatedImageName);
+        
+        try {
+            // Only the current application's window, or the full screen when it has none on screen
+            File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
+            Rectangle match = findImageOnScreen(templateImage, "click_operation", true);
+            if (match != null) {
+                Point clickPoint = new Point(match.x + match.width/2, match.y + match.height/2);
+                windowController.clickAt(clickPoint.x, clickPoint.y);
+                
+                addVerification("Image Click in Application Window", true, 
+                    String.format("Successfully clicked image '%s' at (%d, %d)", 
+                        interpolatedImageName, clickPoint.x, clickPoint.y));
+                logger.info("Successfully clicked image '{}' in the application window", interpolatedImageName);
+            } else {
+                logger.warn("Image '{}' not found in the application window", interpolatedImageName);
+                addVerification("Image Click in Application Window", false, 
+                    String.format("Image '%s' not found in the application window", interpolatedImageName));
+                throw new RuntimeException("Image not found in the application window: " + interpolatedImageName);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to click image '{}' in the application window: {}", interpolatedImageName, e.getMessage(), e);
+            addVerification("Image Click in Application Window", false, 
+                String.format("Failed to click image '%s' in the application window: %s", 
+                    interpolatedImageName, e.getMessage()));
+            throw new RuntimeException("Failed to click image in the application window: " + interpolatedImageName, e);
+        }
+    }
+    
     @When("I click on the image {string} in region {string}")
     public void i_click_on_the_image_in_region(String imageName, String regionName) {
         String interpolatedImageName = VariableManager.interpolate(imageName);
@@ -66,10 +98,9 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 regionName, region.x, region.y, region.width, region.height);
             
             BufferedImage regionCapture = screenCapture.captureRegion(region);
-            File regionFile = screenCapture.saveBufferedImageToFile(regionCapture, "region_capture");
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
-            Rectangle match = imageMatcher.findImage(regionFile, templateImage);
+            Rectangle match = imageMatcher.findImage(regionCapture, templateImage);
             if (match != null) {
                 // Adjust coordinates to full screen
                 Point clickPoint = new Point(
@@ -105,7 +136,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Attempting to double-click on image: {}", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -139,7 +170,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Attempting to right-click on image: {}", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -173,7 +204,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Validating presence of image: {}", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -212,10 +243,9 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 regionName, region.x, region.y, region.width, region.height);
             
             BufferedImage regionCapture = screenCapture.captureRegion(region);
-            File regionFile = screenCapture.saveBufferedImageToFile(regionCapture, "region_capture");
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
-            Rectangle match = imageMatcher.findImage(regionFile, templateImage);
+            Rectangle match = imageMatcher.findImage(regionCapture, templateImage);
             boolean isFound = (match != null);
             
             if (isFound) {
@@ -249,7 +279,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Validating absence of image: {}", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -284,7 +314,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Attempting to hover over image: {}", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -319,7 +349,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Attempting to drag from image '{}' to image '{}'", interpolatedSourceImage, interpolatedTargetImage);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File sourceImage = new File(ConfigManager.getImagePath(interpolatedSourceImage));
             File targetImage = new File(ConfigManager.getImagePath(interpolatedTargetImage));
             
@@ -361,7 +391,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Attempting to store coordinates of image '{}' in variable '{}'", interpolatedImageName, variableName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -451,7 +481,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Clicking on image '{}' with offset ({}, {})", interpolatedImageName, offsetX, offsetY);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -477,7 +507,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Clicking on {} corner of image '{}'", corner, interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -519,7 +549,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Triple clicking on image '{}'", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -551,7 +581,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Long pressing on image '{}' for {} seconds", interpolatedImageName, seconds);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -579,7 +609,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Scrolling {} on image '{}'", direction, interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -620,7 +650,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         
         try {
             while (System.currentTimeMillis() - startTime < timeoutMs) {
-                File screenshot = screenCapture.captureScreen();
+                BufferedImage screenshot = screenCapture.captureFullScreen();
                 File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
                 
                 Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -657,7 +687,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         
         try {
             while (System.currentTimeMillis() - startTime < timeoutMs) {
-                File screenshot = screenCapture.captureScreen();
+                BufferedImage screenshot = screenCapture.captureFullScreen();
                 File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
                 
                 Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -689,7 +719,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Conditionally clicking on image '{}' if it exists", interpolatedImageName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -716,12 +746,10 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Counting occurrences of image '{}' and storing in variable '{}'", interpolatedImageName, variableName);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
-            // Simple count implementation - find first occurrence
-            Rectangle match = imageMatcher.findImage(screenshot, templateImage);
-            int count = (match != null) ? 1 : 0;
+            int count = imageMatcher.findAllMatches(screenshot, templateImage).size();
             VariableManager.setSessionVariable(variableName, String.valueOf(count));
             
             addVerification("Count Image Occurrences", true, 
@@ -739,7 +767,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         logger.info("Capturing region around image '{}' with {} pixel padding", interpolatedImageName, padding);
         
         try {
-            File screenshot = screenCapture.captureScreen();
+            BufferedImage screenshot = screenCapture.captureFullScreen();
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
             Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -849,7 +877,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
     public void i_should_see_the_image_in_managed_application(String imageName, String applicationName) {
         String interpolatedImageName = VariableManager.interpolate(imageName);
         logger.info("🎯 PID-DRIVEN IMAGE VALIDATION: Looking for image '{}' in managed application '{}'", interpolatedImageName, applicationName);
-        File windowCaptureFile = null;        try {
+        try {
             // Enterprise: Get the managed application's ManagedApplicationContext
             ManagedApplicationContext context = ProcessManager.getInstance().getRunningApplicationContext(applicationName);
             if (context == null) {
@@ -881,10 +909,9 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
             
             // Capture only the application window instead of full screen
             BufferedImage windowCaptureImage = screenCapture.captureWindow(windowBounds);
-            windowCaptureFile = screenCapture.saveBufferedImageToTempFile(windowCaptureImage, "window_capture_" + applicationName);
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
-            Rectangle match = imageMatcher.findImage(windowCaptureFile, templateImage);
+            Rectangle match = imageMatcher.findImage(windowCaptureImage, templateImage);
             boolean isFound = (match != null);
             
             if (isFound) {
@@ -913,12 +940,6 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 String.format("Image validation failed for '%s' in managed application '%s': %s", 
                     interpolatedImageName, applicationName, e.getMessage()));
             throw new RuntimeException("Failed to validate image in managed application: " + interpolatedImageName, e);
-        } finally {
-            if (windowCaptureFile != null && windowCaptureFile.exists()) {
-                if (!windowCaptureFile.delete()) {
-                    logger.warn("Could not delete temporary window capture file: {}", windowCaptureFile.getAbsolutePath());
-                }
-            }
         }
     }
     
@@ -926,7 +947,6 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
     public void i_click_on_the_image_in_managed_application(String imageName, String applicationName) {
         String interpolatedImageName = VariableManager.interpolate(imageName);
         logger.info("Attempting to click on image '{}' in managed application '{}'", interpolatedImageName, applicationName);
-        File windowCaptureFile = null;
         try {            // Enterprise: Get the managed application's ManagedApplicationContext
             ManagedApplicationContext context = ProcessManager.getInstance().getRunningApplicationContext(applicationName);
             if (context == null) {
@@ -947,10 +967,9 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
             
             // Capture only the application window instead of full screen
             BufferedImage windowCaptureImage = screenCapture.captureWindow(windowBounds);
-            windowCaptureFile = screenCapture.saveBufferedImageToTempFile(windowCaptureImage, "window_click_capture_" + applicationName);
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
             
-            Rectangle match = imageMatcher.findImage(windowCaptureFile, templateImage);
+            Rectangle match = imageMatcher.findImage(windowCaptureImage, templateImage);
             if (match != null) {
                 // Adjust coordinates to full screen (relative to window's top-left)
                 Point clickPoint = new Point(
@@ -980,19 +999,12 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 String.format("Failed to click image '%s' in managed application '%s': %s", 
                     interpolatedImageName, applicationName, e.getMessage()));
             throw new RuntimeException("Failed to click image in managed application: " + interpolatedImageName, e);
-        } finally {
-            if (windowCaptureFile != null && windowCaptureFile.exists()) {
-                if (!windowCaptureFile.delete()) {
-                    logger.warn("Could not delete temporary window capture file: {}", windowCaptureFile.getAbsolutePath());
-                }
-            }
         }
     }
       @When("I double click on the image {string} in managed application {string}")
     public void i_double_click_on_the_image_in_managed_application(String imageName, String applicationName) {
         String interpolatedImageName = VariableManager.interpolate(imageName);
         logger.info("Attempting to double-click on image '{}' in managed application '{}'", interpolatedImageName, applicationName);
-        File windowCaptureFile = null;
         try {
             ManagedApplicationContext context = ProcessManager.getInstance().getRunningApplicationContext(applicationName);
             if (context == null) {
@@ -1011,10 +1023,9 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
             }
 
             BufferedImage windowCaptureImage = screenCapture.captureWindow(windowBounds);
-            windowCaptureFile = screenCapture.saveBufferedImageToTempFile(windowCaptureImage, "window_double_click_capture_" + applicationName);
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
 
-            Rectangle match = imageMatcher.findImage(windowCaptureFile, templateImage);
+            Rectangle match = imageMatcher.findImage(windowCaptureImage, templateImage);
             if (match != null) {
                 Point clickPoint = new Point(
                     windowBounds.x + match.x + match.width / 2,
@@ -1043,18 +1054,11 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 String.format("Failed to double-click image '%s' in managed app '%s': %s",
                     interpolatedImageName, applicationName, e.getMessage()));
             throw new RuntimeException("Failed to double-click image in managed application: " + interpolatedImageName, e);
-        } finally {
-            if (windowCaptureFile != null && windowCaptureFile.exists()) {
-                if (!windowCaptureFile.delete()) {
-                    logger.warn("Could not delete temporary window capture file: {}", windowCaptureFile.getAbsolutePath());
-                }
-            }
         }
     }    @When("I right click on the image {string} in managed application {string}")
     public void i_right_click_on_the_image_in_managed_application(String imageName, String applicationName) {
         String interpolatedImageName = VariableManager.interpolate(imageName);
         logger.info("Attempting to right-click on image '{}' in managed application '{}'", interpolatedImageName, applicationName);
-        File windowCaptureFile = null;
         try {
             ManagedApplicationContext context = ProcessManager.getInstance().getRunningApplicationContext(applicationName);
             if (context == null) {
@@ -1073,10 +1077,9 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
             }
 
             BufferedImage windowCaptureImage = screenCapture.captureWindow(windowBounds);
-            windowCaptureFile = screenCapture.saveBufferedImageToTempFile(windowCaptureImage, "window_right_click_capture_" + applicationName);
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
 
-            Rectangle match = imageMatcher.findImage(windowCaptureFile, templateImage);
+            Rectangle match = imageMatcher.findImage(windowCaptureImage, templateImage);
             if (match != null) {
                 Point clickPoint = new Point(
                     windowBounds.x + match.x + match.width / 2,
@@ -1105,18 +1108,11 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 String.format("Failed to right-click image '%s' in managed app '%s': %s",
                     interpolatedImageName, applicationName, e.getMessage()));
             throw new RuntimeException("Failed to right-click image in managed application: " + interpolatedImageName, e);
-        } finally {
-            if (windowCaptureFile != null && windowCaptureFile.exists()) {
-                if (!windowCaptureFile.delete()) {
-                    logger.warn("Could not delete temporary window capture file: {}", windowCaptureFile.getAbsolutePath());
-                }
-            }
         }
     }    @When("I should not see the image {string} in managed application {string}")
     public void i_should_not_see_the_image_in_managed_application(String imageName, String applicationName) {
         String interpolatedImageName = VariableManager.interpolate(imageName);
         logger.info("Validating absence of image '{}' in managed application '{}'", interpolatedImageName, applicationName);
-        File windowCaptureFile = null;
         try {
             ManagedApplicationContext context = ProcessManager.getInstance().getRunningApplicationContext(applicationName);
             if (context == null) {
@@ -1135,10 +1131,9 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
             }
 
             BufferedImage windowCaptureImage = screenCapture.captureWindow(windowBounds);
-            windowCaptureFile = screenCapture.saveBufferedImageToTempFile(windowCaptureImage, "window_not_see_capture_" + applicationName);
             File templateImage = new File(ConfigManager.getImagePath(interpolatedImageName));
 
-            Rectangle match = imageMatcher.findImage(windowCaptureFile, templateImage);
+            Rectangle match = imageMatcher.findImage(windowCaptureImage, templateImage);
             boolean isFound = (match != null);
 
             if (isFound) {
@@ -1167,12 +1162,6 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 String.format("Image absence validation failed for '%s' in managed app '%s': %s",
                     interpolatedImageName, applicationName, e.getMessage()));
             throw new RuntimeException("Failed to validate image absence in managed application: " + interpolatedImageName, e);
-        } finally {
-            if (windowCaptureFile != null && windowCaptureFile.exists()) {
-                if (!windowCaptureFile.delete()) {
-                    logger.warn("Could not delete temporary window capture file: {}", windowCaptureFile.getAbsolutePath());
-                }
-            }
         }
     }
     
@@ -1185,7 +1174,7 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
         long startTime = System.currentTimeMillis();
         long timeoutMs = timeoutSeconds * 1000L;
         boolean found = false;
-        File windowCaptureFile = null;        try {
+        try {
             // Enterprise: Get the managed application's ManagedApplicationContext
             ManagedApplicationContext context = ProcessManager.getInstance().getRunningApplicationContext(appName);
             if (context == null) {
@@ -1207,13 +1196,8 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
 
             while (System.currentTimeMillis() - startTime < timeoutMs) {
                 BufferedImage windowCaptureImage = screenCapture.captureWindow(windowBounds);
-                // Clean up previous temp file if it exists
-                if (windowCaptureFile != null && windowCaptureFile.exists()) {
-                    windowCaptureFile.delete();
-                }
-                windowCaptureFile = screenCapture.saveBufferedImageToTempFile(windowCaptureImage, "window_wait_appear_" + appName + "_" + imageName);
                 
-                Rectangle match = imageMatcher.findImage(windowCaptureFile, templateImage);
+                Rectangle match = imageMatcher.findImage(windowCaptureImage, templateImage);
                 if (match != null) {
                     logger.debug("Image '{}' found in managed application '{}' after {}ms", 
                         interpolatedImageName, appName, System.currentTimeMillis() - startTime);
@@ -1243,12 +1227,6 @@ public class ImageStepDefinitions extends CommonStepDefinitionsBase {
                 interpolatedImageName, appName, e.getMessage(), e);
             addVerification("Wait for Image in Managed App", false, "Failed waiting for image: " + e.getMessage());
             throw new RuntimeException("Failed waiting for image in managed application: " + interpolatedImageName, e);
-        } finally {
-            if (windowCaptureFile != null && windowCaptureFile.exists()) {
-                if (!windowCaptureFile.delete()) {
-                    logger.warn("Could not delete temporary window capture file: {}", windowCaptureFile.getAbsolutePath());
-                }
-            }
         }
     }
 }
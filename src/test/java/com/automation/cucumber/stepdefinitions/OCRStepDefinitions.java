@@ -19,14 +19,30 @@ import java.io.File;
 public class OCRStepDefinitions extends CommonStepDefinitionsBase {
     private static final Logger logger = LoggerFactory.getLogger(OCRStepDefinitions.class);    @Then("I should see the text {string}")
     public void i_should_see_the_text(String expectedText) {
+        // The whole screen, so text in dialogs and other windows is seen too
+        assertTextOnScreen(expectedText, screenCapture.getCapturePlanner().fullScreen());
+    }
+    
+    @Then("I should see the text {string} in the application window")
+    public void i_should_see_the_text_in_the_application_window(String expectedText) {
+        // Only the current application's window, or the full screen when it has none on screen
+        Rectangle plan = ConfigManager.getBooleanProperty("capture.planner.enabled", true)
+            ? screenCapture.getCapturePlanner().forWindow(getApplicationWindowBounds())
+            : screenCapture.getCapturePlanner().fullScreen();
+        assertTextOnScreen(expectedText, plan);
+    }
+    
+    /**
+     * OCR a screen area in memory and fail unless it contains the text, ignoring case
+     */
+    private void assertTextOnScreen(String expectedText, Rectangle area) {
         String interpolatedText = VariableManager.interpolate(expectedText);
         logger.info("Validating presence of text: '{}'", interpolatedText);
         
         try {
-            File screenshot = screenCapture.captureScreen();
-            String extractedText = ocrEngine.extractText(screenshot);
+            String extractedText = ocrEngine.extractText(screenCapture.captureRegion(area));
             
-            logger.debug("OCR extracted text from full screen: '{}'", extractedText.trim());
+            logger.debug("OCR extracted text from {}: '{}'", area, extractedText.trim());
             
             boolean isFound = extractedText.toLowerCase().contains(interpolatedText.toLowerCase());
             addVerification("Text Validation", isFound, 
@@ -966,20 +982,14 @@ public class OCRStepDefinitions extends CommonStepDefinitionsBase {
         // Get region relative to the current application
         Rectangle region = ConfigManager.getCurrentAppRegion(regionName);
         
-        // Convert region to absolute coordinates based on window position
-        Rectangle absoluteRegion = new Rectangle(
-            windowBounds.x + region.x,
-            windowBounds.y + region.y,
-            region.width,
-            region.height
-        );
+        // Convert region to absolute coordinates based on window position, clipped to the screen
+        Rectangle absoluteRegion = screenCapture.getCapturePlanner().forRegion(windowBounds, region);
         
         logger.debug("🎯 PID {} window bounds: {}, Region '{}' relative: {}, Absolute region: {}", 
             context.getProcessId(), windowBounds, regionName, region, absoluteRegion);
         
         // Capture only the specific region within the managed application window
-        File regionCapture = screenCapture.captureRegionToFile(absoluteRegion);
-        String extractedText = ocrEngine.extractText(regionCapture).trim();
+        String extractedText = ocrEngine.extractText(screenCapture.captureRegion(absoluteRegion)).trim();
         
         logger.debug("OCR extracted text from region '{}' in PID {}: '{}'", 
             regionName, context.getProcessId(), extractedText);
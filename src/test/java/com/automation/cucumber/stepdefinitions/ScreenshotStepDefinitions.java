@@ -2,7 +2,12 @@ package com.automation.cucumber.stepdefinitions;
 
 import io.cucumber.java.en.*;
 import com.automation.utils.VariableManager;
+import com.automation.config.ConfigManager;
 import com.automation.core.ProcessManager;
+import com.automation.core.ScreenCapture;
+import com.automation.core.capture.SeriesExporter;
+import com.automation.core.capture.SeriesReader;
+import com.automation.core.capture.SeriesRecorder;
 import com.automation.models.ManagedApplicationContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -308,22 +313,29 @@ public class ScreenshotStepDefinitions extends CommonStepDefinitionsBase {
         try {
             java.util.List<String> screenshotPaths = new java.util.ArrayList<>();
             
-            for (int i = 1; i <= count; i++) {
-                BufferedImage screenshot = screenCapture.captureFullScreen();
-                String timestamp = String.valueOf(System.currentTimeMillis());
-                String fileName = String.format("%s_series_%d_%s", interpolatedPrefix, i, timestamp);
-                String savedPath = screenCapture.saveScreenshotWithTimestamp(screenshot, fileName);
-                
-                screenshotPaths.add(savedPath);
-                logger.debug("Screenshot {} of {} captured: {}", i, count, savedPath);
-                
-                // Small delay between screenshots
-                if (i < count) {
-                    Thread.sleep(500);
+            // All frames go into one series file: a keyframe plus the tiles that changed
+            SeriesRecorder series = screenCapture.openSeriesRecorder(interpolatedPrefix + "_series");
+            try {
+                for (int i = 1; i <= count; i++) {
+                    BufferedImage screenshot = screenCapture.captureFullScreen();
+                    int frame = series.append(screenshot);
+                    String savedPath = ScreenCapture.seriesFrameReference(series.getFile(), frame);
+                    
+                    screenshotPaths.add(savedPath);
+                    logger.debug("Screenshot {} of {} captured: {}", i, count, savedPath);
+                    
+                    // Small delay between screenshots
+                    if (i < count) {
+                        Thread.sleep(500);
+                    }
                 }
+            } finally {
+                series.close();
             }
+            logger.info("Screenshot series recorded: {}", series);
+            VariableManager.setSessionVariable(interpolatedPrefix + "_series_file", series.getFile().getAbsolutePath());
             
-            // Store all paths in variables
+            // Store all frame references in variables (loadable with ScreenCapture.loadImage)
             for (int i = 0; i < screenshotPaths.size(); i++) {
                 String variableName = interpolatedPrefix + "_screenshot_" + (i + 1);
                 VariableManager.setSessionVariable(variableName, screenshotPaths.get(i));
@@ -359,7 +371,10 @@ public class ScreenshotStepDefinitions extends CommonStepDefinitionsBase {
             String savedPath = screenCapture.saveScreenshot(screenshot, fileName + ".png");
             
             // Store metadata in a companion text file
-            String metadataFilePath = savedPath.replace(".png", "_metadata.txt");
+            // The encoder picks the screenshot's extension, so strip whichever one it used
+            int extension = savedPath.lastIndexOf('.');
+            String metadataFilePath = (extension > Math.max(savedPath.lastIndexOf('/'), savedPath.lastIndexOf('\\'))
+                ? savedPath.substring(0, extension) : savedPath) + "_metadata.txt";
             StringBuilder metadataContent = new StringBuilder();
             metadataContent.append("Screenshot Metadata\n");
             metadataContent.append("===================\n");
@@ -662,6 +677,27 @@ public class ScreenshotStepDefinitions extends CommonStepDefinitionsBase {
                 throw new RuntimeException("No count variable found for prefix: " + interpolatedPrefix);
             }
             
+            String seriesFile = VariableManager.getSessionVariable(interpolatedPrefix + "_series_file");
+            if (seriesFile != null) {
+                // Stream the thumbnails from the series file instead of loading every frame
+                BufferedImage contactSheet;
+                int frames;
+                try (SeriesReader series = new SeriesReader(new File(seriesFile))) {
+                    frames = series.getFrameCount();
+                    contactSheet = SeriesExporter.contactSheet(series,
+                        Math.min(200, series.getWidth() / 2), Math.min(150, series.getHeight() / 2));
+                }
+                String fileName = String.format("contact_sheet_%s_%s", interpolatedPrefix, System.currentTimeMillis());
+                String savedPath = screenCapture.saveScreenshot(contactSheet, fileName + ".png");
+                VariableManager.setSessionVariable("last_contact_sheet", savedPath);
+                addVerification("Screenshot Contact Sheet", true, 
+                    String.format("Contact sheet created from %d series frames with prefix '%s' saved: %s", 
+                        frames, interpolatedPrefix, savedPath));
+                logger.info("Successfully created contact sheet from {} series frames with prefix '{}' saved: {}", 
+                    frames, interpolatedPrefix, savedPath);
+                return;
+            }
+            
             int count = Integer.parseInt(countStr);
             java.util.List<BufferedImage> images = new java.util.ArrayList<>();
             
@@ -818,6 +854,27 @@ public class ScreenshotStepDefinitions extends CommonStepDefinitionsBase {
                 throw new RuntimeException("No count variable found for prefix: " + interpolatedPrefix);
             }
             
+            String seriesFile = VariableManager.getSessionVariable(interpolatedPrefix + "_series_file");
+            if (seriesFile != null) {
+                // Real animated GIF, streamed frame by frame from the series file
+                File gifFile = new File(screenCapture.getScreenshotDirectory(), String.format("animated_series_%s_%s.gif",
+                    interpolatedPrefix, System.currentTimeMillis()));
+                int frames;
+                try (SeriesReader series = new SeriesReader(new File(seriesFile))) {
+                    frames = series.getFrameCount();
+                    SeriesExporter.writeGif(series, gifFile,
+                        ConfigManager.getIntProperty("screenshot.series.gif.max.width", 800));
+                }
+                String savedPath = gifFile.getAbsolutePath();
+                VariableManager.setSessionVariable("last_animated_gif", savedPath);
+                addVerification("Animated GIF Creation", true, 
+                    String.format("Animated GIF created from %d series frames with prefix '%s' saved: %s", 
+                        frames, interpolatedPrefix, savedPath));
+                logger.info("Successfully created animated GIF from {} series frames with prefix '{}' saved: {}", 
+                    frames, interpolatedPrefix, savedPath);
+                return;
+            }
+            
             int count = Integer.parseInt(countStr);
             java.util.List<BufferedImage> frames = new java.util.ArrayList<>();
             
@@ -1,6 +1,7 @@
 package com.automation.cucumber.stepdefinitions;
 
 import com.automation.core.ProcessManager;
+import com.automation.core.ScreenCapture;
 import io.cucumber.java.After;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
@@ -28,6 +29,9 @@ public class TestLifecycleManager {
             Thread.currentThread().interrupt();
         }
         
+        // Keep the last seconds of screen in a ring buffer in case the scenario fails
+        ScreenCapture.startScenarioRecording(scenario.getName());
+        
         logger.info("✅ TEST READY: Clean environment prepared");
     }
       @After
@@ -35,6 +39,16 @@ public class TestLifecycleManager {
         logger.info("🧪 TEST END: {} - Status: {}", scenario.getName(), 
             scenario.isFailed() ? "FAILED" : "PASSED");
         
+        // Screenshots are encoded in the background; make sure every file the report links exists
+        if (!ScreenCapture.flushScreenshots()) {
+            logger.warn("Some screenshots of '{}' were still being written at scenario end", scenario.getName());
+        }
+        
+        String recording = ScreenCapture.finishScenarioRecording(scenario.isFailed());
+        if (recording != null) {
+            logger.info("Screen recording of '{}': {}", scenario.getName(), recording);
+        }
+        
         if (scenario.isFailed()) {
             logger.error("❌ TEST FAILED: {}", scenario.getName());
             // Use force cleanup for failed tests to ensure no lingering processes
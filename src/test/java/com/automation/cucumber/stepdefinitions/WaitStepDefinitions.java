@@ -1,8 +1,11 @@
 package com.automation.cucumber.stepdefinitions;
 
 import io.cucumber.java.en.*;
+import com.automation.core.ImageMatcher;
 import com.automation.core.ProcessManager;
+import com.automation.core.matching.ScreenStateIndex;
 import com.automation.models.ManagedApplicationContext;
+import com.automation.models.MatchResult;
 import com.automation.utils.VariableManager;
 import com.automation.utils.WaitUtilsStatic;
 import com.automation.config.ConfigManager;
@@ -10,7 +13,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import javax.imageio.ImageIO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Step definitions for wait operations and timing synchronization
@@ -250,6 +258,56 @@ public class WaitStepDefinitions extends CommonStepDefinitionsBase {
         }
     }
     
+    @When("I register screen state {string} from image {string}")
+    public void i_register_screen_state_from_image(String stateName, String imageName) {
+        String interpolatedStateName = VariableManager.interpolate(stateName);
+        String interpolatedImageName = VariableManager.interpolate(imageName);
+        
+        try {
+            BufferedImage reference = ImageIO.read(new File(ConfigManager.getImagePath(interpolatedImageName)));
+            if (reference == null) {
+                throw new IllegalArgumentException("Not a readable image: " + interpolatedImageName);
+            }
+            ImageMatcher.getScreenStates().register(interpolatedStateName, reference);
+            addVerification("Register Screen State", true,
+                String.format("Screen state '%s' registered from image '%s'", interpolatedStateName, interpolatedImageName));
+        } catch (Exception e) {
+            logger.error("Failed to register screen state '{}': {}", interpolatedStateName, e.getMessage(), e);
+            addVerification("Register Screen State", false, "Screen state registration failed: " + e.getMessage());
+            throw new RuntimeException("Failed to register screen state: " + interpolatedStateName, e);
+        }
+    }
+    
+    @When("I register the current screen as state {string}")
+    public void i_register_current_screen_as_state(String stateName) {
+        String interpolatedStateName = VariableManager.interpolate(stateName);
+        
+        ImageMatcher.getScreenStates().register(interpolatedStateName, screenCapture.captureFullScreen());
+        addVerification("Register Screen State", true,
+            String.format("Current screen registered as state '%s'", interpolatedStateName));
+    }
+    
+    @When("I wait for screen state {string}")
+    public void i_wait_for_screen_state(String stateName) {
+        i_wait_for_screen_state_with_timeout(stateName, 30);
+    }
+    
+    @When("I wait for screen state {string} with timeout {int} seconds")
+    public void i_wait_for_screen_state_with_timeout(String stateName, int timeoutSeconds) {
+        String interpolatedStateName = VariableManager.interpolate(stateName);
+        logger.info("Waiting for screen state '{}' with timeout {}s", interpolatedStateName, timeoutSeconds);
+        
+        boolean reached = waitForScreenState(interpolatedStateName, timeoutSeconds);
+        addVerification("Wait for Screen State", reached,
+            String.format("Screen state '%s' %s within %d seconds",
+                interpolatedStateName, reached ? "reached" : "not reached", timeoutSeconds));
+        
+        if (!reached) {
+            captureScreenshot("wait_screen_state_failed");
+            throw new RuntimeException("Screen state not reached within timeout: " + interpolatedStateName);
+        }
+    }
+    
     @When("I wait for color {string} to appear at coordinates {int}, {int}")
     public void i_wait_for_color_at_coordinates(String colorHex, int x, int y) {
         logger.info("Waiting for color '{}' to appear at coordinates ({}, {})", colorHex, x, y);
@@ -281,21 +339,28 @@ public class WaitStepDefinitions extends CommonStepDefinitionsBase {
         try {
             String[] imageNames = imageSequence.split(",");
             int totalImages = imageNames.length;
+            List<String> interpolatedNames = new ArrayList<>();
+            List<File> templates = new ArrayList<>();
+            for (String imageName : imageNames) {
+                String interpolatedImageName = VariableManager.interpolate(imageName.trim());
+                interpolatedNames.add(interpolatedImageName);
+                templates.add(new File(ConfigManager.getImagePath(interpolatedImageName)));
+            }
             
-            for (int i = 0; i < imageNames.length; i++) {
-                String imageName = imageNames[i].trim();
-                String interpolatedImageName = VariableManager.interpolate(imageName);
-                String imagePath = ConfigManager.getImagePath(interpolatedImageName);
-                
-                logger.debug("Waiting for image {} of {}: '{}'", (i + 1), totalImages, interpolatedImageName);
+            int next = 0;
+            while (next < totalImages) {
+                String interpolatedImageName = interpolatedNames.get(next);
+                logger.debug("Waiting for image {} of {}: '{}'", (next + 1), totalImages, interpolatedImageName);
                 
-                boolean imageAppeared = WaitUtilsStatic.waitForImage(imagePath, 15); // 15 seconds per image
-                if (!imageAppeared) {
+                // One capture checks all remaining images; later images already on screen are taken together
+                int appeared = waitForImagesInOrder(templates.subList(next, totalImages), 15); // 15 seconds per image
+                if (appeared == 0) {
                     captureScreenshot("image_sequence_failed_" + interpolatedImageName);
                     throw new RuntimeException("Image sequence failed at: " + interpolatedImageName);
                 }
                 
-                logger.debug("Image {} of {} appeared: '{}'", (i + 1), totalImages, interpolatedImageName);
+                next += appeared;
+                logger.debug("Images {} of {} appeared, up to: '{}'", next, totalImages, interpolatedNames.get(next - 1));
                 WaitUtilsStatic.waitMilliseconds(500); // Small delay between images
             }
             
@@ -447,7 +512,7 @@ public class WaitStepDefinitions extends CommonStepDefinitionsBase {
         
         while (System.currentTimeMillis() - startTime < timeoutMs) {
             try {
-                File regionCapture = screenCapture.captureRegionToFile(region);
+                BufferedImage regionCapture = screenCapture.captureRegion(region);
                 File templateImage = new File(ConfigManager.getImagePath(imageName));
                 
                 Rectangle match = imageMatcher.findImage(regionCapture, templateImage);
@@ -470,6 +535,45 @@ public class WaitStepDefinitions extends CommonStepDefinitionsBase {
         return false;
     }
     
+    /**
+     * Wait until the first of the given templates is on screen
+     * Returns how many templates, in order from the first, are visible in the same capture, or 0 on timeout
+     */
+    private int waitForImagesInOrder(List<File> templates, int timeoutSeconds) {
+        long startTime = System.currentTimeMillis();
+        long timeoutMs = timeoutSeconds * 1000;
+        
+        while (System.currentTimeMillis() - startTime < timeoutMs) {
+            try {
+                BufferedImage screenshot = screenCapture.captureFullScreen();
+                Map<File, MatchResult> matches = imageMatcher.findAll(screenshot, templates);
+                
+                int visible = 0;
+                while (visible < templates.size() && matches.containsKey(templates.get(visible))) {
+                    visible++;
+                }
+                if (visible > 0) {
+                    return visible;
+                }
+                
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            } catch (Exception e) {
+                logger.warn("Error while waiting for image sequence: {}", e.getMessage());
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return 0;
+                }
+            }
+        }
+        
+        return 0;
+    }
+    
     private boolean waitForTextToDisappear(String text, int timeoutSeconds) {
         long startTime = System.currentTimeMillis();
         long timeoutMs = timeoutSeconds * 1000;
@@ -504,7 +608,7 @@ public class WaitStepDefinitions extends CommonStepDefinitionsBase {
         
         while (System.currentTimeMillis() - startTime < timeoutMs) {
             try {
-                File screenshot = screenCapture.captureScreen();
+                BufferedImage screenshot = screenCapture.captureFullScreen();
                 File templateImage = new File(imagePath);
                 
                 Rectangle match = imageMatcher.findImage(screenshot, templateImage);
@@ -572,6 +676,46 @@ public class WaitStepDefinitions extends CommonStepDefinitionsBase {
         return false;
     }
     
+    /**
+     * Wait until the screen's perceptual hash is within the configured distance of a registered state
+     */
+    private boolean waitForScreenState(String stateName, int timeoutSeconds) {
+        ScreenStateIndex states = ImageMatcher.getScreenStates();
+        if (!states.contains(stateName)) {
+            throw new IllegalArgumentException("Unknown screen state: " + stateName + " (known: " + states.getStateNames() + ")");
+        }
+        
+        long startTime = System.currentTimeMillis();
+        long timeoutMs = timeoutSeconds * 1000L;
+        
+        while (System.currentTimeMillis() - startTime < timeoutMs) {
+            try {
+                BufferedImage screenshot = screenCapture.captureFullScreen();
+                int distance = states.distanceTo(screenshot, stateName);
+                if (distance <= states.getMaxDistance()) {
+                    logger.debug("Screen state '{}' reached at distance {}", stateName, distance);
+                    return true;
+                }
+                logger.debug("Waiting for screen state '{}', distance {}", stateName, distance);
+                
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                logger.warn("Error while waiting for screen state: {}", e.getMessage());
+                try {
+                    Thread.sleep(250);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        
+        return false;
+    }
+    
     private boolean waitForColorAtCoordinates(String colorHex, int x, int y, int timeoutSeconds) {
         long startTime = System.currentTimeMillis();
         long timeoutMs = timeoutSeconds * 1000;
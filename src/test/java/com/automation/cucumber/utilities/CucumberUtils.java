@@ -42,7 +42,7 @@ public class CucumberUtils {
             String screenshotName = String.format("%s_%s_%d", 
                 description, timestamp, screenshotCounter.incrementAndGet());
             
-            scenario.attach(screenshotBytes, "image/png", screenshotName);
+            scenario.attach(screenshotBytes, ScreenCapture.getScreenshotEncoder().getMimeType(), screenshotName);
             
             logger.debug("Screenshot attached to scenario: {} - {}", scenario.getName(), screenshotName);
             
@@ -0,0 +1,79 @@
+package com.automation.tests;
+
+import com.automation.core.ScreenCapture;
+import com.automation.core.capture.CapturePlanner;
+import com.automation.core.capture.ReplayScreenSource;
+import org.junit.jupiter.api.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Capture Planner Tests - region-scoped capture rectangles, clipping and full-screen fallbacks
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CapturePlannerTest {
+
+    private static final Rectangle SCREEN = new Rectangle(0, 0, 1920, 1080);
+
+    @Test @Order(1)
+    public void testWindowsAndRegionsAreClippedToTheScreen() {
+        CapturePlanner planner = new CapturePlanner(SCREEN);
+
+        assertEquals(new Rectangle(100, 50, 800, 600), planner.forWindow(new Rectangle(100, 50, 800, 600)));
+        assertEquals(new Rectangle(1500, 0, 420, 300), planner.forWindow(new Rectangle(1500, -100, 800, 400)),
+            "A window partly off screen should be clipped");
+        assertEquals(SCREEN, planner.forWindow(new Rectangle(-32000, -32000, 160, 28)),
+            "A minimized window should fall back to the full screen");
+        assertEquals(SCREEN, planner.forWindow(null));
+
+        assertEquals(new Rectangle(150, 80, 300, 100),
+            planner.forRegion(new Rectangle(100, 30, 800, 600), new Rectangle(50, 50, 300, 100)),
+            "Regions are relative to the window origin");
+        assertEquals(new Rectangle(50, 50, 300, 100), planner.forRegion(null, new Rectangle(50, 50, 300, 100)));
+
+        assertEquals(6, planner.getPlanCount());
+        assertTrue(planner.getSavedFraction() > 0.5, "Scoped plans should skip most pixels: " + planner);
+    }
+
+    @Test @Order(2)
+    public void testTemplateSearchIsGrownAndMustFitTheTemplate() {
+        CapturePlanner planner = new CapturePlanner(SCREEN);
+
+        assertEquals(new Rectangle(84, 84, 232, 132),
+            planner.forTemplateSearch(new Rectangle(100, 100, 200, 100), 40, 30, 16));
+        assertEquals(new Rectangle(0, 0, 116, 116),
+            planner.forTemplateSearch(new Rectangle(0, 0, 100, 100), 40, 30, 16),
+            "The margin should not reach past the screen");
+        assertEquals(SCREEN, planner.forTemplateSearch(new Rectangle(100, 100, 20, 20), 80, 80, 0),
+            "An area smaller than the template should fall back to the full screen");
+        assertEquals(SCREEN, planner.forTemplateSearch(null, 40, 30, 16));
+
+        assertNull(CapturePlanner.clip(new Rectangle(2000, 0, 10, 10), SCREEN));
+    }
+
+    @Test @Order(3)
+    public void testScreenCaptureGrabsOnlyThePlannedRegion() {
+        BufferedImage desktop = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 240; y++) {
+            for (int x = 0; x < 320; x++) {
+                desktop.setRGB(x, y, x << 8 | y);
+            }
+        }
+        ScreenCapture capture = new ScreenCapture(new ReplayScreenSource(
+            Collections.singletonList(new ReplayScreenSource.Frame(0, desktop)), ReplayScreenSource.Mode.SEQUENTIAL));
+
+        CapturePlanner planner = capture.getCapturePlanner();
+        assertSame(planner, capture.getCapturePlanner(), "The planner is kept while the screen is unchanged");
+        Rectangle plan = planner.forRegion(new Rectangle(200, 100, 400, 400), new Rectangle(10, 20, 200, 200));
+        assertEquals(new Rectangle(210, 120, 110, 120), plan);
+
+        BufferedImage region = capture.captureRegion(plan);
+        assertEquals(110, region.getWidth());
+        assertEquals(120, region.getHeight());
+        assertEquals(desktop.getRGB(215, 125), region.getRGB(5, 5));
+    }
+}
@@ -0,0 +1,234 @@
+package com.automation.tests;
+
+import com.automation.core.ScreenCapture;
+import com.automation.core.capture.EvidenceWriter;
+import com.automation.core.capture.PngEncoder;
+import com.automation.core.capture.ReplayScreenSource;
+import com.automation.core.capture.ScreenshotEncoder;
+import org.junit.jupiter.api.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Evidence Writer Tests - background screenshot encoding, overflow policies and flushing
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class EvidenceWriterTest {
+
+    private static final ScreenshotEncoder PNG = new PngEncoder(1);
+
+    private Path directory;
+
+    @BeforeEach
+    void setupEachTest() throws Exception {
+        directory = Files.createTempDirectory("evidence_writer_test");
+    }
+
+    @AfterEach
+    void cleanupEachTest() {
+        deleteRecursively(directory.toFile());
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * PNG encoder that cannot start before its gate opens, to hold a writer thread busy
+     */
+    private static final class GatedEncoder implements ScreenshotEncoder {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public void encode(BufferedImage image, OutputStream out) throws IOException {
+            started.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            PNG.encode(image, out);
+        }
+
+        @Override
+        public String getExtension() {
+            return "png";
+        }
+
+        @Override
+        public String getName() {
+            return "gated";
+        }
+    }
+
+    private static BufferedImage solid(int rgb) {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    @Test @Order(1)
+    public void testSubmitReturnsTargetAndFlushWritesEveryFile() throws Exception {
+        EvidenceWriter writer = new EvidenceWriter(2, 8, EvidenceWriter.OverflowPolicy.BLOCK);
+        try {
+            File[] targets = new File[6];
+            for (int i = 0; i < targets.length; i++) {
+                File target = directory.resolve("nested/shot_" + i + ".png").toFile();
+                assertEquals(target.getAbsoluteFile(), writer.submit(solid(0x102030 * (i + 1)), target, PNG));
+                targets[i] = target;
+            }
+
+            assertTrue(writer.flush(10_000));
+            assertEquals(0, writer.getPendingCount());
+            assertEquals(6, writer.getWrittenCount());
+            for (int i = 0; i < targets.length; i++) {
+                BufferedImage decoded = ImageIO.read(targets[i]);
+                assertNotNull(decoded, "Written file must decode: " + targets[i]);
+                assertEquals(0x102030 * (i + 1) & 0xFFFFFF, decoded.getRGB(5, 5) & 0xFFFFFF);
+            }
+            assertEquals(6, directory.resolve("nested").toFile().list().length, "No partial file may remain");
+        } finally {
+            writer.close(10_000);
+        }
+    }
+
+    @Test @Order(2)
+    public void testDropOldestDiscardsQueuedWriteWhenFull() throws Exception {
+        EvidenceWriter writer = new EvidenceWriter(1, 2, EvidenceWriter.OverflowPolicy.DROP_OLDEST);
+        GatedEncoder busy = new GatedEncoder();
+        try {
+            writer.submit(solid(0x000000), directory.resolve("busy.png").toFile(), busy);
+            assertTrue(busy.started.await(10, TimeUnit.SECONDS), "Writer thread should pick up the first write");
+
+            File oldest = directory.resolve("oldest.png").toFile();
+            File middle = directory.resolve("middle.png").toFile();
+            File newest = directory.resolve("newest.png").toFile();
+            writer.submit(solid(0xFF0000), oldest, PNG);
+            writer.submit(solid(0x00FF00), middle, PNG);
+            writer.submit(solid(0x0000FF), newest, PNG);
+
+            assertEquals(1, writer.getDroppedCount());
+            assertTrue(writer.await(oldest, 100), "A dropped write no longer counts as pending");
+
+            busy.gate.countDown();
+            assertTrue(writer.flush(10_000));
+            assertFalse(oldest.exists(), "The oldest queued screenshot should have been dropped");
+            assertTrue(middle.exists());
+            assertTrue(newest.exists());
+            assertEquals(3, writer.getWrittenCount());
+        } finally {
+            busy.gate.countDown();
+            writer.close(10_000);
+        }
+    }
+
+    @Test @Order(3)
+    public void testBlockPolicyWaitsForFreeSlot() throws Exception {
+        EvidenceWriter writer = new EvidenceWriter(1, 1, EvidenceWriter.OverflowPolicy.BLOCK);
+        GatedEncoder busy = new GatedEncoder();
+        try {
+            writer.submit(solid(0x000000), directory.resolve("busy.png").toFile(), busy);
+            assertTrue(busy.started.await(10, TimeUnit.SECONDS));
+            writer.submit(solid(0x808080), directory.resolve("queued.png").toFile(), PNG);
+
+            File blocked = directory.resolve("blocked.png").toFile();
+            Thread submitter = new Thread(() -> writer.submit(solid(0x404040), blocked, PNG));
+            submitter.start();
+            submitter.join(200);
+            assertTrue(submitter.isAlive(), "Submission should wait while the queue is full");
+
+            busy.gate.countDown();
+            submitter.join(10_000);
+            assertFalse(submitter.isAlive());
+            assertTrue(writer.await(blocked, 10_000));
+            assertTrue(blocked.exists());
+            assertEquals(0, writer.getDroppedCount());
+            assertEquals(3, writer.getSubmittedCount());
+        } finally {
+            busy.gate.countDown();
+            writer.close(10_000);
+        }
+    }
+
+    @Test @Order(4)
+    public void testWritesToTheSameTargetRunInSubmissionOrder() throws Exception {
+        EvidenceWriter writer = new EvidenceWriter(2, 8, EvidenceWriter.OverflowPolicy.BLOCK);
+        GatedEncoder first = new GatedEncoder();
+        File target = directory.resolve("error_20260101_120000.png").toFile();
+        try {
+            writer.submit(solid(0xFF0000), target, first);
+            assertTrue(first.started.await(10, TimeUnit.SECONDS));
+            // Same second, same name: the idle thread must not write the file alongside the busy one
+            writer.submit(solid(0x0000FF), target, PNG);
+            assertFalse(writer.await(target, 200), "The second write should wait for the first");
+            assertFalse(target.exists());
+
+            first.gate.countDown();
+            assertTrue(writer.await(target, 10_000));
+            assertTrue(writer.flush(10_000));
+            assertEquals(2, writer.getWrittenCount());
+            assertEquals(0x0000FF, ImageIO.read(target).getRGB(5, 5) & 0xFFFFFF, "The last submitted write wins");
+            assertEquals(1, directory.toFile().list().length, "No partial file may remain");
+        } finally {
+            first.gate.countDown();
+            writer.close(10_000);
+        }
+    }
+
+    @Test @Order(5)
+    public void testCapturedScreenFileCanBeReadBackAtOnce() throws Exception {
+        ScreenCapture capture = new ScreenCapture(new ReplayScreenSource(
+            Collections.singletonList(new ReplayScreenSource.Frame(0, solid(0x336699))),
+            ReplayScreenSource.Mode.SEQUENTIAL));
+        capture.setScreenshotDirectory(directory.toString());
+        assertNotNull(ScreenCapture.getEvidenceWriter(), "Screenshots should be written in the background");
+
+        // Hold the background write back, as a slow disk would
+        GatedEncoder slow = new GatedEncoder();
+        Thread opener = new Thread(() -> {
+            try {
+                slow.started.await(10, TimeUnit.SECONDS);
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slow.gate.countDown();
+        });
+        ScreenCapture.setScreenshotEncoders(slow, null);
+        try {
+            opener.start();
+            File screenshot = capture.captureScreen();
+
+            assertTrue(Files.readAllBytes(screenshot.toPath()).length > 0);
+            BufferedImage read = ImageIO.read(screenshot);
+            assertNotNull(read);
+            assertEquals(0x336699, read.getRGB(5, 5) & 0xFFFFFF);
+        } finally {
+            slow.gate.countDown();
+            ScreenCapture.setScreenshotEncoders(null, null);
+            opener.join(10_000);
+        }
+    }
+}
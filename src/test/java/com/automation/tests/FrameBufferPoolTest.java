@@ -0,0 +1,87 @@
+package com.automation.tests;
+
+import com.automation.core.capture.FrameBufferPool;
+import com.automation.core.capture.PooledFrame;
+import com.automation.core.matching.RasterImage;
+import org.junit.jupiter.api.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Frame Buffer Pool Tests - capture buffer reuse, release and reporting
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class FrameBufferPoolTest {
+
+    @Test @Order(1)
+    public void testReleasedBufferIsReusedInAFreshImage() {
+        FrameBufferPool pool = new FrameBufferPool(2);
+        Rectangle bounds = new Rectangle(10, 20, 64, 48);
+
+        int[] firstPixels;
+        BufferedImage firstImage;
+        try (PooledFrame frame = pool.acquire(bounds)) {
+            firstPixels = frame.getPixels();
+            firstImage = frame.getImage();
+            assertEquals(BufferedImage.TYPE_INT_RGB, firstImage.getType());
+            assertEquals(64 * 48, firstPixels.length);
+            assertEquals(bounds, frame.getBounds());
+            assertEquals(1, pool.getInUse());
+
+            // The image and the raster view share the pooled buffer
+            firstImage.setRGB(3, 2, 0x123456);
+            assertEquals(0x123456, firstPixels[2 * 64 + 3] & 0xFFFFFF);
+            assertSame(firstPixels, frame.getRaster().getPixels());
+        }
+        assertEquals(0, pool.getInUse());
+        assertEquals(1, pool.getIdleCount());
+
+        try (PooledFrame frame = pool.acquire(new Rectangle(0, 0, 64, 48))) {
+            assertSame(firstPixels, frame.getPixels(), "Same geometry should reuse the buffer");
+            assertNotSame(firstImage, frame.getImage(), "Each frame gets its own image wrapper");
+        }
+        assertEquals(1, pool.getAllocations());
+        assertEquals(1, pool.getReuses());
+        assertEquals(4L * 64 * 48, pool.getBytesSaved());
+    }
+
+    @Test @Order(2)
+    public void testClosedFrameCannotBeUsedAndClosesOnce() {
+        FrameBufferPool pool = new FrameBufferPool(2);
+        PooledFrame frame = pool.acquire(new Rectangle(0, 0, 8, 8));
+        frame.close();
+        frame.close();
+
+        assertTrue(frame.isClosed());
+        assertThrows(IllegalStateException.class, frame::getImage);
+        assertEquals(0, pool.getInUse());
+        assertEquals(1, pool.getIdleCount(), "A double close must not pool the buffer twice");
+    }
+
+    @Test @Order(3)
+    public void testIdleBuffersAreBoundedPerGeometry() {
+        FrameBufferPool pool = new FrameBufferPool(1);
+        PooledFrame a = pool.acquire(new Rectangle(0, 0, 16, 16));
+        PooledFrame b = pool.acquire(new Rectangle(0, 0, 16, 16));
+        PooledFrame c = pool.acquire(new Rectangle(0, 0, 32, 8));
+        a.close();
+        b.close();
+        c.close();
+
+        assertEquals(2, pool.getIdleCount(), "One idle buffer per geometry");
+        assertEquals(1, pool.getDiscards());
+        assertEquals(4L * (16 * 16 + 32 * 8), pool.getIdleBytes());
+        assertThrows(IllegalArgumentException.class, () -> pool.acquire(new Rectangle(0, 0, 0, 5)));
+
+        RasterImage raster;
+        try (PooledFrame frame = pool.acquire(new Rectangle(0, 0, 32, 8))) {
+            raster = frame.getRaster();
+        }
+        assertEquals(32, raster.getWidth());
+        pool.clear();
+        assertEquals(0, pool.getIdleCount());
+    }
+}
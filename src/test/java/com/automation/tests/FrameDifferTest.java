@@ -0,0 +1,89 @@
+package com.automation.tests;
+
+import com.automation.core.capture.FrameDiff;
+import com.automation.core.capture.FrameDiffer;
+import org.junit.jupiter.api.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Frame Differ Tests - tile-level change detection between consecutive captures
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class FrameDifferTest {
+
+    private BufferedImage frame;
+
+    @BeforeEach
+    void setupEachTest() {
+        frame = TemplateMatchEngineTest.randomImage(200, 100, BufferedImage.TYPE_INT_RGB, 7);
+    }
+
+    @Test @Order(1)
+    public void testFirstFrameAndSizeChangeMarkEveryTileChanged() {
+        FrameDiffer differ = new FrameDiffer(32);
+
+        FrameDiff first = differ.update(frame);
+        assertTrue(first.isFirstFrame());
+        assertEquals(7 * 4, first.getTileCount(), "Partial edge tiles count as tiles");
+        assertEquals(first.getTileCount(), first.getChangedTileCount());
+        assertEquals(1.0, first.getChangedFraction(), 1e-9);
+        assertEquals(Arrays.asList(new Rectangle(0, 0, 200, 100)), first.getChangedRegions());
+
+        assertTrue(differ.update(TemplateMatchEngineTest.convert(frame, BufferedImage.TYPE_INT_RGB)).isUnchanged(),
+            "An identical capture should change nothing");
+        assertTrue(differ.update(frame.getSubimage(0, 0, 100, 100)).isFirstFrame(), "A new size cannot be diffed");
+    }
+
+    @Test @Order(2)
+    public void testSinglePixelChangesMarkOnlyTheirTiles() {
+        FrameDiffer differ = new FrameDiffer(32);
+        differ.update(frame);
+
+        BufferedImage next = TemplateMatchEngineTest.convert(frame, BufferedImage.TYPE_INT_RGB);
+        next.setRGB(40, 10, next.getRGB(40, 10) ^ 1);
+        next.setRGB(199, 99, next.getRGB(199, 99) ^ 0x010000);
+        FrameDiff diff = differ.update(next);
+
+        assertFalse(diff.isFirstFrame());
+        assertEquals(2, diff.getChangedTileCount());
+        assertTrue(diff.isTileChanged(1, 0));
+        assertTrue(diff.isTileChanged(6, 3));
+        assertEquals(Arrays.asList(new Rectangle(32, 0, 32, 32), new Rectangle(192, 96, 8, 4)),
+            diff.getChangedTiles());
+        assertTrue(diff.intersects(new Rectangle(60, 20, 10, 10)));
+        assertFalse(diff.intersects(new Rectangle(100, 40, 60, 40)));
+        assertEquals(2, diff.countChangedPixels(pixels(frame), pixels(next)), "Only the two edited pixels differ");
+        assertTrue(differ.update(next).isUnchanged(), "Diffs are against the latest capture");
+    }
+
+    @Test @Order(3)
+    public void testChangedRegionsMergeAdjacentTiles() {
+        FrameDiffer differ = new FrameDiffer(16);
+        differ.update(frame);
+
+        // A 40x30 block starting at (20, 20) touches tile columns 1-3 and rows 1-3
+        BufferedImage next = TemplateMatchEngineTest.convert(frame, BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = next.createGraphics();
+        g.setColor(java.awt.Color.MAGENTA);
+        g.fillRect(20, 20, 40, 30);
+        g.fillRect(150, 80, 2, 2);
+        g.dispose();
+        FrameDiff diff = differ.update(next);
+
+        assertEquals(9 + 1, diff.getChangedTileCount());
+        assertEquals(Arrays.asList(new Rectangle(16, 16, 48, 48), new Rectangle(144, 80, 16, 16)),
+            diff.getChangedRegions());
+
+        differ.reset();
+        assertTrue(differ.update(next).isFirstFrame());
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
@@ -1,9 +1,20 @@
 package com.automation.tests;
 
 import com.automation.core.*;
+import com.automation.models.MatchResult;
 import com.automation.models.TestResult;
 import org.junit.jupiter.api.*;
+
+import javax.imageio.ImageIO;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 /**
  * Image Matcher Tests
@@ -13,17 +24,32 @@ public class ImageMatcherTest {
     
     private ImageMatcher imageMatcher;
     private TestResult testResult;
+    private File tempDir;
     
     @BeforeEach
-    void setupEachTest() {
+    void setupEachTest() throws Exception {
+        // ImageMatcher opens a SikuliX Screen, which needs a display
+        assumeFalse(GraphicsEnvironment.isHeadless(), "ImageMatcher needs a display");
         imageMatcher = new ImageMatcher();
         testResult = new TestResult();
+        tempDir = Files.createTempDirectory("image_matcher_test").toFile();
         
         testResult.addLog("Image Matcher test setup completed");
         assertNotNull(imageMatcher, "Image Matcher should be initialized");
         testResult.addVerification("Image Matcher initialized", true);
     }
     
+    @AfterEach
+    void cleanupEachTest() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+    
     @Test @Order(1)
     public void testImageMatching() {
         try {
@@ -37,6 +63,160 @@ public class ImageMatcherTest {
         }
     }
     
+    @Test @Order(2)
+    public void testEditedMaskIsNotAnsweredFromTheResultCache() throws Exception {
+        Random random = new Random(17);
+        BufferedImage template = noise(random, 24, 24);
+        BufferedImage screen = noise(random, 200, 120);
+        // One copy keeps only the template's left half, the other only its right half
+        paste(screen, template, 20, 30, 0, 12);
+        paste(screen, template, 140, 70, 12, 24);
+        
+        File templateFile = new File(tempDir, "button.png");
+        ImageIO.write(template, "png", templateFile);
+        File maskFile = new File(tempDir, "button.mask.png");
+        ImageIO.write(halfMask(true), "png", maskFile);
+        
+        imageMatcher.setLocationHintsEnabled(false);
+        MatchResult left = imageMatcher.findBestMatch(screen, templateFile, 0.9);
+        assertNotNull(left, "Left-half mask should match");
+        assertEquals(20, left.getX());
+        assertEquals(30, left.getY());
+        
+        long modified = maskFile.lastModified();
+        ImageIO.write(halfMask(false), "png", maskFile);
+        assertTrue(maskFile.setLastModified(modified + 2000));
+        MatchResult right = imageMatcher.findBestMatch(screen, templateFile, 0.9);
+        assertNotNull(right, "Right-half mask should match");
+        assertEquals(140, right.getX(), "An edited mask must not return the cached result");
+        assertEquals(70, right.getY());
+    }
+    
+    @Test @Order(3)
+    public void testBetterMatchOutsideTheHintWindowIsFound() throws Exception {
+        Random random = new Random(10);
+        BufferedImage template = noise(random, 24, 24);
+        File templateFile = new File(tempDir, "icon.png");
+        ImageIO.write(template, "png", templateFile);
+        
+        BufferedImage first = noise(random, 200, 120);
+        paste(first, template, 20, 30, 0, 24);
+        // The old spot now holds a faded copy; the exact one has moved far outside the probe windows
+        BufferedImage second = noise(random, 200, 120);
+        paste(second, template, 150, 80, 0, 24);
+        for (int y = 0; y < 24; y++) {
+            for (int x = 0; x < 24; x++) {
+                second.setRGB(20 + x, 30 + y, fade(template.getRGB(x, y), random));
+            }
+        }
+        
+        assertFalse(imageMatcher.isLocationHintsEnabled(), "Location hints should be off by default");
+        MatchResult found = imageMatcher.findBestMatch(first, templateFile, 0.9);
+        assertNotNull(found);
+        assertEquals(20, found.getX());
+        MatchResult better = imageMatcher.findBestMatch(second, templateFile, 0.9);
+        assertNotNull(better);
+        assertEquals(150, better.getX(), "The exact match should win over the faded copy at the old spot");
+        assertEquals(80, better.getY());
+        
+        // Opting in trades that for speed: the hit next to the last location is returned as is
+        imageMatcher.setLocationHintsEnabled(true);
+        ImageMatcher.getLocationHints().clear();
+        assertEquals(20, imageMatcher.findBestMatch(first, templateFile, 0.9).getX());
+        MatchResult hinted = imageMatcher.findBestMatch(second, templateFile, 0.9);
+        assertNotNull(hinted);
+        assertEquals(20, hinted.getX());
+        assertTrue(hinted.getScore() < better.getScore());
+        ImageMatcher.getLocationHints().clear();
+    }
+    
+    @Test @Order(4)
+    public void testInMemoryMatchingAgreesWithTheFileRoundTrip() throws Exception {
+        Random random = new Random(5);
+        for (int run = 0; run < 12; run++) {
+            BufferedImage screen = TemplateMatchEngineTest.randomImage(80 + random.nextInt(120),
+                60 + random.nextInt(80), BufferedImage.TYPE_INT_RGB, run);
+            int width = 1 + random.nextInt(24);
+            int height = 1 + random.nextInt(24);
+            BufferedImage cut = screen.getSubimage(random.nextInt(screen.getWidth() - width),
+                random.nextInt(screen.getHeight() - height), width, height);
+            BufferedImage template = TemplateMatchEngineTest.randomNoise(cut, 6, run);
+            assertNotNull(assertSameMatch("random " + run, screen, template),
+                "Run " + run + " should find its " + width + "x" + height + " template");
+        }
+    
+        // Edge sizes: templates at the corners, as large as the screen, a single row or column,
+        // larger than the screen, and absent from a screen stored with alpha
+        BufferedImage screen = TemplateMatchEngineTest.randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 99);
+        assertEquals(new Rectangle(0, 0, 16, 12),
+            assertSameMatch("top left", screen, screen.getSubimage(0, 0, 16, 12)));
+        assertEquals(new Rectangle(48, 36, 16, 12),
+            assertSameMatch("bottom right", screen, screen.getSubimage(48, 36, 16, 12)));
+        assertEquals(new Rectangle(0, 0, 64, 48),
+            assertSameMatch("whole screen", screen, screen.getSubimage(0, 0, 64, 48)));
+        assertEquals(new Rectangle(10, 47, 30, 1),
+            assertSameMatch("one row", screen, screen.getSubimage(10, 47, 30, 1)));
+        assertEquals(new Rectangle(63, 5, 1, 30),
+            assertSameMatch("one column", screen, screen.getSubimage(63, 5, 1, 30)));
+        assertNull(assertSameMatch("too large", screen,
+            TemplateMatchEngineTest.randomImage(65, 20, BufferedImage.TYPE_INT_RGB, 1)));
+        assertNull(assertSameMatch("absent", TemplateMatchEngineTest.convert(screen, BufferedImage.TYPE_INT_ARGB),
+            TemplateMatchEngineTest.randomImage(20, 20, BufferedImage.TYPE_INT_RGB, 7)));
+    }
+    
+    /**
+     * The in-memory overloads must find what the screenshot and template written to PNG and read back find
+     * @return The agreed match bounds, or null if none of them found the template
+     */
+    private Rectangle assertSameMatch(String name, BufferedImage screen, BufferedImage template) throws Exception {
+        File screenFile = new File(tempDir, name.replace(' ', '_') + "_screen.png");
+        File templateFile = new File(tempDir, name.replace(' ', '_') + "_template.png");
+        ImageIO.write(screen, "png", screenFile);
+        ImageIO.write(template, "png", templateFile);
+    
+        Rectangle roundTrip = imageMatcher.findImage(screenFile, templateFile);
+        assertEquals(roundTrip, imageMatcher.findImage(screen, templateFile), name + ": template file");
+        assertEquals(roundTrip, imageMatcher.findImage(screen, template), name + ": template image");
+        return roundTrip;
+    }
+    
+    private static BufferedImage noise(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+    
+    private static int fade(int rgb, Random random) {
+        int faded = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int channel = Math.max(0, Math.min(255, (rgb >> shift & 0xFF) + random.nextInt(25) - 12));
+            faded |= channel << shift;
+        }
+        return faded;
+    }
+    
+    private static void paste(BufferedImage screen, BufferedImage template, int x, int y, int fromColumn, int toColumn) {
+        for (int row = 0; row < template.getHeight(); row++) {
+            for (int column = fromColumn; column < toColumn; column++) {
+                screen.setRGB(x + column, y + row, template.getRGB(column, row));
+            }
+        }
+    }
+    
+    private static BufferedImage halfMask(boolean leftActive) {
+        BufferedImage mask = new BufferedImage(24, 24, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 24; y++) {
+            for (int x = 0; x < 24; x++) {
+                mask.setRGB(x, y, (x < 12) == leftActive ? 0xFFFFFF : 0);
+            }
+        }
+        return mask;
+    }
+    
     public TestResult getTestResult() {
         return testResult;
     }
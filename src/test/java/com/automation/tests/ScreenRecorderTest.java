@@ -0,0 +1,194 @@
+package com.automation.tests;
+
+import com.automation.config.ConfigManager;
+import com.automation.core.ScreenCapture;
+import com.automation.core.capture.FrameBufferPool;
+import com.automation.core.capture.FrameRing;
+import com.automation.core.capture.ReplayScreenSource;
+import com.automation.core.capture.ScreenRecorder;
+import com.automation.core.capture.SeriesReader;
+import com.automation.core.capture.SeriesRecorder;
+import org.junit.jupiter.api.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Screen Recorder Tests - memory-mapped frame ring and background recording with export
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ScreenRecorderTest {
+
+    private static final int[] COLORS = new int[10];
+
+    static {
+        for (int i = 0; i < COLORS.length; i++) {
+            COLORS[i] = 0x101010 * i;
+        }
+    }
+
+    private File tempDir;
+
+    @BeforeEach
+    void setupEachTest() throws Exception {
+        tempDir = Files.createTempDirectory("screen_recorder_test").toFile();
+    }
+
+    @AfterEach
+    void cleanupEachTest() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Test @Order(1)
+    public void testRingKeepsNewestFramesOldestFirst() throws Exception {
+        File file = new File(tempDir, "frames.ring");
+        try (FrameRing ring = new FrameRing(file, 3, 4, 2)) {
+            int[] frame = new int[8];
+            for (int i = 0; i < 5; i++) {
+                Arrays.fill(frame, i);
+                ring.write(frame, 100L + i);
+            }
+            assertEquals(3, ring.size());
+            assertEquals(5, ring.getWrittenCount());
+
+            int[] read = new int[8];
+            for (int i = 0; i < 3; i++) {
+                ring.read(i, read);
+                assertEquals(i + 2, read[7], "Frame " + i + " should be the " + (i + 2) + "th written");
+                assertEquals(102L + i, ring.getTimestamp(i));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> ring.read(3, read));
+            assertThrows(IllegalArgumentException.class, () -> ring.write(new int[7], 0));
+        }
+        assertFalse(file.exists(), "Closing the ring should delete its file");
+    }
+
+    @Test @Order(2)
+    public void testRecorderFillsRingAndExportsSeries() throws Exception {
+        List<ReplayScreenSource.Frame> frames = new ArrayList<>();
+        for (int color : COLORS) {
+            BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < 48; y++) {
+                for (int x = 0; x < 64; x++) {
+                    image.setRGB(x, y, color);
+                }
+            }
+            frames.add(new ReplayScreenSource.Frame(0, image));
+        }
+        ReplayScreenSource source = new ReplayScreenSource(frames, ReplayScreenSource.Mode.SEQUENTIAL);
+        FrameRing ring = new FrameRing(new File(tempDir, "recording.ring"), 8, 32, 24);
+        File series = new File(tempDir, "recording." + SeriesRecorder.EXTENSION);
+
+        try (ScreenRecorder recorder = new ScreenRecorder(source, new Rectangle(0, 0, 64, 48), ring, 100,
+                new FrameBufferPool(2))) {
+            recorder.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (recorder.getCapturedFrames() < 12 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            recorder.export(series, 16, 4);
+
+            long captured = recorder.getCapturedFrames();
+            assertTrue(captured >= 12, "Recorder should keep capturing: " + recorder);
+            Thread.sleep(50);
+            assertEquals(captured, recorder.getCapturedFrames(), "Export should freeze the recording");
+            assertEquals(0, recorder.getFailedCaptures());
+            assertTrue(recorder.getAverageCaptureMillis() > 0);
+        }
+
+        try (SeriesReader reader = new SeriesReader(series)) {
+            assertEquals(8, reader.getFrameCount());
+            assertEquals(32, reader.getWidth());
+            assertEquals(24, reader.getHeight());
+            // Consecutive captures of a sequential replay step through the colors, then hold the last
+            int previous = indexOf(reader.readFrame(0).getRGB(10, 10) & 0xFFFFFF);
+            for (int i = 1; i < 8; i++) {
+                int current = indexOf(reader.readFrame(i).getRGB(10, 10) & 0xFFFFFF);
+                assertEquals(Math.min(previous + 1, COLORS.length - 1), current, "Frame " + i + " out of order");
+                assertTrue(reader.getTimestamp(i) >= reader.getTimestamp(i - 1));
+                previous = current;
+            }
+        }
+    }
+
+    @Test @Order(3)
+    public void testResetRingIsReusedForTheNextRecording() throws Exception {
+        try (FrameRing ring = new FrameRing(new File(tempDir, "reused.ring"), 3, 4, 2)) {
+            int[] frame = new int[8];
+            for (int i = 0; i < 5; i++) {
+                Arrays.fill(frame, i);
+                ring.write(frame, i);
+            }
+            ring.reset();
+            assertEquals(0, ring.size());
+            assertEquals(0, ring.getWrittenCount());
+            assertThrows(IndexOutOfBoundsException.class, () -> ring.read(0, new int[8]));
+
+            Arrays.fill(frame, 42);
+            ring.write(frame, 500L);
+            int[] read = new int[8];
+            ring.read(0, read);
+            assertEquals(42, read[0]);
+            assertEquals(500L, ring.getTimestamp(0));
+        }
+    }
+
+    @Test @Order(4)
+    public void testScenarioRecordingsShareOneRingFile() throws Exception {
+        BufferedImage screen = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        ScreenCapture.setDefaultScreenSource(new ReplayScreenSource(
+            Collections.singletonList(new ReplayScreenSource.Frame(0, screen)), ReplayScreenSource.Mode.SEQUENTIAL));
+        ConfigManager.setProperty("screen.recorder.enabled", "true");
+        ConfigManager.setProperty("screen.recorder.ring.dir", tempDir.getPath());
+        try {
+            ScreenRecorder first = ScreenCapture.startScenarioRecording("first scenario");
+            assertNotNull(first);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (first.getCapturedFrames() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertNull(ScreenCapture.finishScenarioRecording(false));
+
+            ScreenRecorder second = ScreenCapture.startScenarioRecording("second scenario");
+            assertNotNull(second);
+            assertSame(first.getRing(), second.getRing(), "The ring should be reused across scenarios");
+            assertEquals(1, tempDir.list().length, "Only one ring file per run");
+            assertNull(ScreenCapture.finishScenarioRecording(false));
+            assertEquals(second.getCapturedFrames(), second.getRing().getWrittenCount(),
+                "A reused ring starts empty");
+
+            File ringFile = second.getRing().getFile();
+            ScreenCapture.closeRecordingRing();
+            assertFalse(ringFile.exists(), "Closing the ring should delete its file");
+        } finally {
+            ScreenCapture.closeRecordingRing();
+            ConfigManager.setProperty("screen.recorder.enabled", "false");
+            ConfigManager.setProperty("screen.recorder.ring.dir", "");
+            ScreenCapture.setDefaultScreenSource(null);
+        }
+    }
+
+    private static int indexOf(int color) {
+        for (int i = 0; i < COLORS.length; i++) {
+            if (COLORS[i] == color) {
+                return i;
+            }
+        }
+        fail("Unexpected frame color " + Integer.toHexString(color));
+        return -1;
+    }
+}
@@ -0,0 +1,158 @@
+package com.automation.tests;
+
+import com.automation.core.ScreenCapture;
+import com.automation.core.capture.FrameBufferPool;
+import com.automation.core.capture.PooledFrame;
+import com.automation.core.capture.ReplayScreenSource;
+import org.junit.jupiter.api.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Screen Source Tests - replayed captures without a display
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ScreenSourceTest {
+
+    private Path tempDir;
+
+    @BeforeEach
+    void setupEachTest() throws Exception {
+        tempDir = Files.createTempDirectory("screen_source_test");
+    }
+
+    @AfterEach
+    void cleanupEachTest() {
+        File[] files = tempDir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.toFile().delete();
+    }
+
+    @Test @Order(1)
+    public void testSequentialReplayAdvancesPerCaptureAndRepeatsLastFrame() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            ImageIO.write(solid(40, 30, 0x102030 * (i + 1)), "PNG", tempDir.resolve("frame_" + i + ".png").toFile());
+        }
+        ReplayScreenSource source = ReplayScreenSource.fromDirectory(tempDir, ReplayScreenSource.Mode.SEQUENTIAL);
+
+        assertEquals(3, source.getFrameCount());
+        assertEquals(new Rectangle(0, 0, 40, 30), source.getScreenBounds());
+        int[] expected = {0x102030, 0x204060, 0x306090, 0x306090};
+        for (int color : expected) {
+            assertEquals(color, source.capture(new Rectangle(5, 5, 10, 10)).getRGB(0, 0) & 0xFFFFFF);
+        }
+        assertEquals(2, source.getPosition());
+
+        source.rewind();
+        BufferedImage edge = source.capture(new Rectangle(35, 25, 10, 10));
+        assertEquals(0x102030, edge.getRGB(4, 4) & 0xFFFFFF);
+        assertEquals(0, edge.getRGB(5, 5) & 0xFFFFFF, "Area outside the recorded screen is black");
+    }
+
+    @Test @Order(2)
+    public void testTimedReplayFollowsManifestOffsets() throws Exception {
+        ImageIO.write(solid(20, 20, 0xFF0000), "PNG", tempDir.resolve("red.png").toFile());
+        ImageIO.write(solid(20, 20, 0x00FF00), "PNG", tempDir.resolve("green.png").toFile());
+        Files.write(tempDir.resolve(ReplayScreenSource.MANIFEST),
+            Arrays.asList("# offset file", "0 red.png", "500 green.png"), StandardCharsets.UTF_8);
+
+        AtomicLong now = new AtomicLong(10_000);
+        List<ReplayScreenSource.Frame> frames = Arrays.asList(
+            new ReplayScreenSource.Frame(500, solid(20, 20, 0x00FF00)),
+            new ReplayScreenSource.Frame(0, solid(20, 20, 0xFF0000)));
+        ReplayScreenSource source = new ReplayScreenSource(frames, ReplayScreenSource.Mode.TIMED, now::get);
+        Rectangle all = source.getScreenBounds();
+
+        assertEquals(0xFF0000, source.capture(all).getRGB(0, 0) & 0xFFFFFF);
+        now.addAndGet(499);
+        assertEquals(0xFF0000, source.capture(all).getRGB(0, 0) & 0xFFFFFF);
+        now.addAndGet(1);
+        assertEquals(0x00FF00, source.capture(all).getRGB(0, 0) & 0xFFFFFF);
+
+        ReplayScreenSource manifest = ReplayScreenSource.fromDirectory(tempDir, ReplayScreenSource.Mode.TIMED);
+        assertEquals(2, manifest.getFrameCount());
+    }
+
+    @Test @Order(3)
+    public void testPooledReplayCaptureCopiesTheRegion() {
+        BufferedImage screen = TemplateMatchEngineTest.randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 5);
+        ReplayScreenSource source = new ReplayScreenSource(
+            Arrays.asList(new ReplayScreenSource.Frame(0, screen)), ReplayScreenSource.Mode.SEQUENTIAL);
+        FrameBufferPool pool = new FrameBufferPool(1);
+
+        try (PooledFrame frame = source.capturePooled(new Rectangle(50, 40, 20, 10), pool)) {
+            BufferedImage image = frame.getImage();
+            assertEquals(screen.getRGB(50, 40) & 0xFFFFFF, image.getRGB(0, 0) & 0xFFFFFF);
+            assertEquals(screen.getRGB(63, 47) & 0xFFFFFF, image.getRGB(13, 7) & 0xFFFFFF);
+            assertEquals(0, image.getRGB(14, 8) & 0xFFFFFF);
+        }
+    }
+
+    @Test @Order(4)
+    public void testScreenCaptureWaitsForStabilityOnReplayedFrames() {
+        // Three changing frames, then the screen settles on the last one
+        List<ReplayScreenSource.Frame> frames = Arrays.asList(
+            new ReplayScreenSource.Frame(0, TemplateMatchEngineTest.randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 1)),
+            new ReplayScreenSource.Frame(1, TemplateMatchEngineTest.randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 2)),
+            new ReplayScreenSource.Frame(2, TemplateMatchEngineTest.randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 3)));
+        ReplayScreenSource source = new ReplayScreenSource(frames, ReplayScreenSource.Mode.SEQUENTIAL);
+        ScreenCapture capture = new ScreenCapture(source);
+
+        assertTrue(capture.waitForScreenStability(new Rectangle(0, 0, 64, 48), 250, 5000));
+        assertTrue(source.getCaptureCount() >= 5, "Stability needs unchanged captures after the last change");
+        assertEquals(64, capture.captureFullScreen().getWidth());
+    }
+
+    @Test @Order(5)
+    public void testBlinkingCaretDoesNotKeepSmallRegionUnstable() {
+        // A 100x30 text field whose 1x14 caret blinks on every capture: under 2% of its pixels
+        BufferedImage off = solid(100, 30, 0xFFFFFF);
+        BufferedImage on = solid(100, 30, 0xFFFFFF);
+        for (int y = 8; y < 22; y++) {
+            on.setRGB(40, y, 0);
+        }
+        List<ReplayScreenSource.Frame> frames = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            frames.add(new ReplayScreenSource.Frame(i, i % 2 == 0 ? off : on));
+        }
+        ScreenCapture capture = new ScreenCapture(new ReplayScreenSource(frames, ReplayScreenSource.Mode.SEQUENTIAL));
+
+        assertTrue(capture.waitForScreenStability(new Rectangle(0, 0, 100, 30), 250, 3000),
+            "A caret blinking inside one tile should not count as a screen change");
+
+        // A repaint covering far more than 2% of the region still counts
+        BufferedImage repainted = solid(100, 30, 0x000000);
+        frames = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            frames.add(new ReplayScreenSource.Frame(i, i % 2 == 0 ? off : repainted));
+        }
+        capture = new ScreenCapture(new ReplayScreenSource(frames, ReplayScreenSource.Mode.SEQUENTIAL));
+        assertFalse(capture.waitForScreenStability(new Rectangle(0, 0, 100, 30), 250, 1000));
+    }
+
+    private static BufferedImage solid(int width, int height, int rgb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,110 @@
+package com.automation.tests;
+
+import com.automation.core.capture.JpegEncoder;
+import com.automation.core.capture.PngEncoder;
+import com.automation.core.capture.RawFrameCodec;
+import com.automation.core.capture.ScreenshotEncoder;
+import org.junit.jupiter.api.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Screenshot Encoder Tests - encoder specs, lossless round trips and size trade-offs
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ScreenshotEncoderTest {
+
+    /**
+     * Flat panels with a few noisy rows, roughly like a desktop with text
+     */
+    private static BufferedImage screenLike(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = (x / 50 + y / 40) % 2 == 0 ? 0xF0F0F0 : 0x2050A0;
+                if (y % 17 < 3) {
+                    rgb ^= (x * 31 + y * 7) & 0x3F3F3F;
+                }
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(ScreenshotEncoder encoder, BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(image, out);
+        return out.toByteArray();
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF,
+                    "Pixel mismatch at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test @Order(1)
+    public void testEncoderSpecsApplyDefaults() {
+        ScreenshotEncoder png = ScreenshotEncoder.fromSpec("png", 4, 0.8f);
+        assertEquals(4, ((PngEncoder) png).getLevel());
+        assertEquals("png", png.getExtension());
+        assertEquals(1, ((PngEncoder) ScreenshotEncoder.fromSpec(" PNG:1 ", 4, 0.8f)).getLevel());
+
+        assertEquals(0.8f, ((JpegEncoder) ScreenshotEncoder.fromSpec("jpeg", 4, 0.8f)).getQuality());
+        assertEquals(0.5f, ((JpegEncoder) ScreenshotEncoder.fromSpec("jpg:0.5", 4, 0.8f)).getQuality());
+        assertEquals("jpg", ScreenshotEncoder.fromSpec("jpeg", 4, 0.8f).getExtension());
+        assertEquals("image/png", png.getMimeType());
+        assertEquals("image/jpeg", ScreenshotEncoder.fromSpec("jpeg", 4, 0.8f).getMimeType());
+
+        assertFalse(((RawFrameCodec) ScreenshotEncoder.fromSpec("raw", 4, 0.8f)).isDeflate());
+        assertTrue(((RawFrameCodec) ScreenshotEncoder.fromSpec("raw:deflate", 4, 0.8f)).isDeflate());
+
+        assertThrows(IllegalArgumentException.class, () -> ScreenshotEncoder.fromSpec("webp", 4, 0.8f));
+        assertThrows(IllegalArgumentException.class, () -> ScreenshotEncoder.fromSpec("png:12", 4, 0.8f));
+        assertThrows(IllegalArgumentException.class, () -> ScreenshotEncoder.fromSpec("jpeg:high", 4, 0.8f));
+    }
+
+    @Test @Order(2)
+    public void testPngLevelsAreLosslessAndTradeSizeForTime() throws Exception {
+        BufferedImage image = screenLike(320, 200);
+        byte[] stored = encode(new PngEncoder(0), image);
+        byte[] fast = encode(new PngEncoder(1), image);
+        byte[] smallest = encode(new PngEncoder(9), image);
+
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(stored)));
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(fast)));
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(smallest)));
+        assertTrue(stored.length > fast.length, "Level 0 stores the data uncompressed");
+        assertTrue(fast.length >= smallest.length, "Level 9 should not be larger than level 1");
+
+        byte[] lowQuality = encode(new JpegEncoder(0.2f), image);
+        byte[] highQuality = encode(new JpegEncoder(0.95f), image);
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(lowQuality)));
+        assertTrue(lowQuality.length < highQuality.length, "Lower JPEG quality should give a smaller file");
+    }
+
+    @Test @Order(3)
+    public void testRawFramesRoundTrip() throws Exception {
+        BufferedImage image = screenLike(123, 77);
+        byte[] plain = encode(new RawFrameCodec(false), image);
+        byte[] deflated = encode(new RawFrameCodec(true), image);
+
+        assertEquals(14 + 123 * 77 * 3, plain.length);
+        assertTrue(deflated.length < plain.length / 4, "Flat screen content should deflate well");
+        assertSamePixels(image, RawFrameCodec.read(new ByteArrayInputStream(plain)));
+        assertSamePixels(image, RawFrameCodec.read(new ByteArrayInputStream(deflated)));
+
+        assertThrows(IOException.class, () -> RawFrameCodec.read(new ByteArrayInputStream(encode(new PngEncoder(1), image))));
+    }
+}
@@ -0,0 +1,157 @@
+package com.automation.tests;
+
+import com.automation.core.capture.SeriesExporter;
+import com.automation.core.capture.SeriesReader;
+import com.automation.core.capture.SeriesRecorder;
+import org.junit.jupiter.api.*;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Screenshot Series Tests - delta-encoded series files, random access, crash recovery and export
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ScreenshotSeriesTest {
+
+    private File tempDir;
+
+    @BeforeEach
+    void setupEachTest() throws Exception {
+        tempDir = Files.createTempDirectory("screenshot_series_test").toFile();
+    }
+
+    @AfterEach
+    void cleanupEachTest() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    /**
+     * A desktop-like frame where a small "cursor" block moves and a counter region changes
+     */
+    private static BufferedImage frame(int index) {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 240; y++) {
+            for (int x = 0; x < 320; x++) {
+                int rgb = y < 20 ? 0x204080 : ((x / 16 + y / 16) % 2 == 0 ? 0xEEEEEE : 0xDDDDDD);
+                image.setRGB(x, y, rgb);
+            }
+        }
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                image.setRGB(20 + index * 7 + x, 100 + y, 0xFF0000);
+            }
+        }
+        image.setRGB(300, 5, 0x010101 * index);
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF,
+                    "Pixel mismatch at " + x + "," + y);
+            }
+        }
+    }
+
+    private static List<BufferedImage> record(File file, int count, int keyframeInterval) throws Exception {
+        List<BufferedImage> frames = new ArrayList<>();
+        try (SeriesRecorder recorder = new SeriesRecorder(file, 32, keyframeInterval)) {
+            for (int i = 0; i < count; i++) {
+                BufferedImage frame = frame(i);
+                frames.add(frame);
+                assertEquals(i, recorder.append(frame, 1000L + i * 250));
+            }
+            assertEquals(count, recorder.getFrameCount());
+            assertTrue(recorder.getBytesWritten() * 10 < recorder.getRawBytes(),
+                "Deltas should take an order of magnitude less than raw frames: " + recorder);
+        }
+        return frames;
+    }
+
+    @Test @Order(1)
+    public void testFramesRoundTripWithRandomAccess() throws Exception {
+        File file = new File(tempDir, "series." + SeriesRecorder.EXTENSION);
+        List<BufferedImage> frames = record(file, 12, 5);
+
+        try (SeriesReader reader = new SeriesReader(file)) {
+            assertEquals(12, reader.getFrameCount());
+            assertEquals(320, reader.getWidth());
+            assertEquals(240, reader.getHeight());
+            assertTrue(reader.isKeyframe(0));
+            assertTrue(reader.isKeyframe(5));
+            assertFalse(reader.isKeyframe(6));
+            assertEquals(1000L + 7 * 250, reader.getTimestamp(7));
+
+            for (int index : new int[] {7, 3, 11, 0, 4, 5, 6, 9}) {
+                assertSamePixels(frames.get(index), reader.readFrame(index));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.readFrame(12));
+        }
+    }
+
+    @Test @Order(2)
+    public void testUnclosedSeriesIsRecoveredByScanning() throws Exception {
+        File file = new File(tempDir, "crashed." + SeriesRecorder.EXTENSION);
+        List<BufferedImage> frames = record(file, 6, 30);
+
+        // Drop the index and the tail of the last record, as if the recorder died mid-write
+        try (SeriesReader reader = new SeriesReader(file);
+             RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(raw.length() - 12);
+            long indexOffset = raw.readLong();
+            raw.setLength(indexOffset - 5);
+            assertEquals(6, reader.getFrameCount());
+        }
+
+        try (SeriesReader reader = new SeriesReader(file)) {
+            assertEquals(5, reader.getFrameCount(), "The cut record must be ignored");
+            assertSamePixels(frames.get(4), reader.readFrame(4));
+        }
+    }
+
+    @Test @Order(3)
+    public void testContactSheetAndGifStreamFromSeries() throws Exception {
+        File file = new File(tempDir, "export." + SeriesRecorder.EXTENSION);
+        record(file, 5, 30);
+        File gif = new File(tempDir, "export.gif");
+
+        try (SeriesReader reader = new SeriesReader(file)) {
+            BufferedImage sheet = SeriesExporter.contactSheet(reader, 80, 60);
+            // 5 frames -> 3 columns, 2 rows, 10 px spacing and margins
+            assertEquals(3 * 80 + 2 * 10 + 20, sheet.getWidth());
+            assertEquals(2 * 60 + 10 + 20, sheet.getHeight());
+
+            SeriesExporter.writeGif(reader, gif, 160);
+        }
+
+        ImageReader gifReader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(gif)) {
+            gifReader.setInput(in);
+            assertEquals(5, gifReader.getNumImages(true));
+            BufferedImage first = gifReader.read(0);
+            assertEquals(160, first.getWidth());
+            assertEquals(120, first.getHeight());
+        } finally {
+            gifReader.dispose();
+        }
+    }
+}
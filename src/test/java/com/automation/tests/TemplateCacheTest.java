@@ -0,0 +1,104 @@
+package com.automation.tests;
+
+import com.automation.core.matching.RasterImage;
+import com.automation.core.matching.TemplateCache;
+import org.junit.jupiter.api.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Template Cache Tests - decoded template reuse, invalidation and LRU eviction
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TemplateCacheTest {
+
+    private File tempDir;
+
+    @BeforeEach
+    void setupEachTest() throws Exception {
+        tempDir = Files.createTempDirectory("template_cache_test").toFile();
+    }
+
+    @AfterEach
+    void cleanupEachTest() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Test @Order(1)
+    public void testRepeatedLookupIsServedFromCache() throws Exception {
+        TemplateCache cache = new TemplateCache(1024 * 1024);
+        File template = writeTemplate("button.png", 32, 16);
+
+        RasterImage first = cache.get(template);
+        RasterImage second = cache.get(template);
+
+        assertSame(first, second, "Second lookup should return the cached raster");
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertTrue(first.getGrayNorm() >= 0.0);
+    }
+
+    @Test @Order(2)
+    public void testModifiedFileIsDecodedAgain() throws Exception {
+        TemplateCache cache = new TemplateCache(1024 * 1024);
+        File template = writeTemplate("icon.png", 16, 16);
+
+        RasterImage first = cache.get(template);
+        assertTrue(template.setLastModified(template.lastModified() + 5000));
+        RasterImage second = cache.get(template);
+
+        assertNotSame(first, second, "A newer file should not be served from cache");
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test @Order(3)
+    public void testLeastRecentlyUsedEntryIsEvictedOverBudget() throws Exception {
+        // Each 32x32 template costs 8 KB (packed pixels plus luminance plane)
+        TemplateCache cache = new TemplateCache(20 * 1024);
+        File a = writeTemplate("a.png", 32, 32);
+        File b = writeTemplate("b.png", 32, 32);
+        File c = writeTemplate("c.png", 32, 32);
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getCurrentBytes() <= cache.getMaxBytes());
+
+        cache.get(a);
+        assertEquals(2, cache.getHits(), "Recently used entry should have survived eviction");
+    }
+
+    @Test @Order(4)
+    public void testMissingFileThrows() {
+        TemplateCache cache = new TemplateCache(1024);
+
+        assertThrows(java.io.IOException.class, () -> cache.get(new File(tempDir, "missing.png")));
+    }
+
+    private File writeTemplate(String name, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 8) << 16 | (y * 8) << 8 | name.charAt(0));
+            }
+        }
+        File file = new File(tempDir, name);
+        ImageIO.write(image, "PNG", file);
+        return file;
+    }
+}
@@ -0,0 +1,635 @@
+package com.automation.tests;
+
+import com.automation.core.matching.BatchTemplateSearch;
+import com.automation.core.matching.IntegralImage;
+import com.automation.core.matching.LocationHints;
+import com.automation.core.matching.MatchDomain;
+import com.automation.core.matching.MatchResultCache;
+import com.automation.core.matching.MultiScaleSearch;
+import com.automation.core.matching.NonMaximumSuppression;
+import com.automation.core.matching.ParallelTemplateSearch;
+import com.automation.core.matching.PerceptualHash;
+import com.automation.core.matching.PixelKernelSet;
+import com.automation.core.matching.PixelKernels;
+import com.automation.core.matching.PruningStats;
+import com.automation.core.matching.PyramidSearch;
+import com.automation.core.matching.RasterImage;
+import com.automation.core.matching.ScalarPixelKernels;
+import com.automation.core.matching.ScreenStateIndex;
+import com.automation.core.matching.TemplateMask;
+import com.automation.core.matching.TemplateMatchEngine;
+import com.automation.models.MatchResult;
+import org.junit.jupiter.api.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Template Match Engine Tests - run headless on synthetic images
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TemplateMatchEngineTest {
+
+    private TemplateMatchEngine engine;
+    private BufferedImage screenshot;
+
+    @BeforeEach
+    void setupEachTest() {
+        engine = new TemplateMatchEngine();
+        screenshot = randomImage(320, 200, BufferedImage.TYPE_INT_RGB, 42);
+    }
+
+    @Test @Order(1)
+    public void testFindsExactOffsetOffTheOldFivePixelGrid() {
+        BufferedImage template = screenshot.getSubimage(123, 77, 24, 18);
+
+        MatchResult match = engine.findBestMatch(
+            RasterImage.from(screenshot), RasterImage.from(template), 0.8);
+
+        assertNotNull(match, "Template cut from the screenshot should be found");
+        assertEquals(123, match.getX());
+        assertEquals(77, match.getY());
+        assertEquals(24, match.getWidth());
+        assertEquals(18, match.getHeight());
+        assertTrue(match.getScore() >= TemplateMatchEngine.PERFECT_SCORE, "Exact copy should score 1.0");
+    }
+
+    @Test @Order(2)
+    public void testByteBackedImagesMatchIntBackedImages() {
+        BufferedImage template = screenshot.getSubimage(10, 150, 30, 30);
+        BufferedImage bgrScreenshot = convert(screenshot, BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage abgrTemplate = convert(template, BufferedImage.TYPE_4BYTE_ABGR);
+
+        MatchResult match = engine.findBestMatch(
+            RasterImage.from(bgrScreenshot), RasterImage.from(abgrTemplate), 0.8);
+
+        assertNotNull(match);
+        assertEquals(10, match.getX());
+        assertEquals(150, match.getY());
+    }
+
+    @Test @Order(3)
+    public void testReturnsNullBelowThreshold() {
+        BufferedImage unrelated = randomImage(20, 20, BufferedImage.TYPE_INT_RGB, 7);
+
+        MatchResult match = engine.findBestMatch(
+            RasterImage.from(screenshot), RasterImage.from(unrelated), 0.8);
+
+        assertNull(match, "Random template should not reach 0.8 correlation");
+    }
+
+    @Test @Order(4)
+    public void testTemplateLargerThanScreenshot() {
+        BufferedImage large = randomImage(400, 10, BufferedImage.TYPE_INT_RGB, 1);
+
+        assertNull(engine.findBestMatch(RasterImage.from(screenshot), RasterImage.from(large), 0.0));
+    }
+
+    @Test @Order(5)
+    public void testPyramidSearchAgreesWithFullScan() {
+        BufferedImage desktop = blockImage(400, 300, 6, 99);
+        BufferedImage template = desktop.getSubimage(131, 67, 48, 40);
+        RasterImage screen = RasterImage.from(desktop);
+        RasterImage templateRaster = RasterImage.from(template);
+
+        MatchResult fullScan = engine.findBestMatch(screen, templateRaster, 0.8);
+        MatchResult pyramid = new PyramidSearch(engine, 2, 5).findBestMatch(screen, templateRaster, 0.8);
+
+        assertNotNull(pyramid, "Pyramid search should find the template");
+        assertEquals(fullScan.getX(), pyramid.getX());
+        assertEquals(fullScan.getY(), pyramid.getY());
+        assertEquals(fullScan.getScore(), pyramid.getScore(), 1e-9);
+    }
+
+    @Test @Order(6)
+    public void testParallelSearchIsIdenticalToSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelTemplateSearch parallel = new ParallelTemplateSearch(engine, pool);
+            RasterImage screen = RasterImage.from(blockImage(300, 240, 6, 5));
+
+            // Flat template ties across many offsets; the first one must win in both modes
+            RasterImage flat = RasterImage.from(blockImage(300, 240, 300, 5).getSubimage(0, 0, 5, 5));
+            RasterImage cut = RasterImage.from(blockImage(300, 240, 6, 5).getSubimage(201, 177, 20, 20));
+
+            for (RasterImage template : new RasterImage[] {flat, cut}) {
+                MatchResult sequential = engine.findBestMatch(screen, template, -1.0);
+                MatchResult banded = parallel.findBestMatch(screen, template, -1.0);
+                assertEquals(sequential.toString(), banded.toString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test @Order(7)
+    public void testBatchSearchMatchesIndividualSearches() {
+        RasterImage screen = RasterImage.from(screenshot);
+        List<RasterImage> templates = Arrays.asList(
+            RasterImage.from(screenshot.getSubimage(5, 180, 16, 16)),
+            RasterImage.from(randomImage(20, 20, BufferedImage.TYPE_INT_RGB, 7)),
+            RasterImage.from(screenshot.getSubimage(250, 3, 40, 12)),
+            RasterImage.from(randomImage(400, 10, BufferedImage.TYPE_INT_RGB, 1)));
+
+        MatchResult[] batch = new BatchTemplateSearch(engine).findAll(screen, templates, 0.8);
+
+        assertEquals(templates.size(), batch.length);
+        for (int i = 0; i < templates.size(); i++) {
+            MatchResult single = engine.findBestMatch(screen, templates.get(i), 0.8);
+            assertEquals(String.valueOf(single), String.valueOf(batch[i]), "Template " + i);
+        }
+        assertEquals(5, batch[0].getX());
+        assertEquals(180, batch[0].getY());
+        assertNull(batch[1]);
+        assertEquals(250, batch[2].getX());
+        assertNull(batch[3], "Template larger than the screenshot cannot match");
+    }
+
+    @Test @Order(8)
+    public void testIntegralImageWindowSumsMatchDirectSums() {
+        RasterImage screen = RasterImage.from(screenshot);
+        int[] gray = screen.getGray();
+        IntegralImage integral = screen.getIntegral();
+
+        int[][] windows = {{0, 0, 1, 1}, {0, 0, 320, 200}, {17, 33, 40, 25}, {319, 199, 1, 1}, {100, 0, 9, 200}};
+        for (int[] w : windows) {
+            long sum = 0;
+            long sumSquares = 0;
+            for (int y = w[1]; y < w[1] + w[3]; y++) {
+                for (int x = w[0]; x < w[0] + w[2]; x++) {
+                    int v = gray[y * 320 + x];
+                    sum += v;
+                    sumSquares += (long) v * v;
+                }
+            }
+            assertEquals(sum, integral.windowSum(w[0], w[1], w[2], w[3]));
+            assertEquals(sumSquares, integral.windowSumSquares(w[0], w[1], w[2], w[3]));
+        }
+        assertSame(integral, screen.getIntegral(), "Tables should be built once per screenshot");
+    }
+
+    @Test @Order(9)
+    public void testSearchAreaRestrictsOffsets() {
+        BufferedImage template = screenshot.getSubimage(200, 120, 16, 16);
+        RasterImage screen = RasterImage.from(screenshot);
+        RasterImage templateRaster = RasterImage.from(template);
+
+        MatchResult inside = engine.findBestMatch(screen, templateRaster, new Rectangle(190, 110, 30, 30), 0.8);
+        MatchResult outside = engine.findBestMatch(screen, templateRaster, new Rectangle(0, 0, 100, 100), 0.8);
+
+        assertNotNull(inside);
+        assertEquals(200, inside.getX());
+        assertEquals(120, inside.getY());
+        assertNull(outside, "Offsets outside the search area should not be scored");
+    }
+
+    @Test @Order(10)
+    public void testEarlyTerminationPrunesWithoutChangingResults() {
+        RasterImage screen = RasterImage.from(blockImage(320, 240, 6, 11));
+        RasterImage cut = RasterImage.from(blockImage(320, 240, 6, 11).getSubimage(143, 91, 24, 24));
+        RasterImage unrelated = RasterImage.from(randomImage(24, 24, BufferedImage.TYPE_INT_RGB, 3));
+
+        TemplateMatchEngine pruning = new TemplateMatchEngine();
+        pruning.setEarlyTermination(true);
+
+        for (RasterImage template : new RasterImage[] {cut, unrelated}) {
+            for (double threshold : new double[] {-1.0, 0.8}) {
+                PruningStats stats = new PruningStats();
+                MatchResult exhaustive = engine.findBestMatch(screen, template, threshold);
+                MatchResult pruned = pruning.findBestMatch(screen, template, null, threshold, stats);
+                assertEquals(String.valueOf(exhaustive), String.valueOf(pruned));
+                assertEquals(1, stats.getSearches());
+                assertTrue(stats.getPruned() > 0, "Some offsets should be abandoned: " + stats);
+            }
+        }
+    }
+
+    @Test @Order(11)
+    public void testFindAllCountsEveryGridCellOnce() {
+        BufferedImage sheet = gridImage(800, 300, 50, 40, 60, 20, 10, 5);
+        BufferedImage cell = sheet.getSubimage(50, 40, 61, 21);
+        engine.setEarlyTermination(true);
+
+        List<MatchResult> hits = engine.findAllAbove(RasterImage.from(sheet), RasterImage.from(cell), null, 0.8, null);
+        List<MatchResult> cells = NonMaximumSuppression.apply(hits, NonMaximumSuppression.DEFAULT_MAX_OVERLAP);
+
+        assertEquals(50, cells.size(), "Each of the 10x5 cells should be counted once");
+        assertEquals(50, cells.get(0).getX(), "Results should be in reading order");
+        assertEquals(40, cells.get(0).getY());
+        assertEquals(110, cells.get(1).getX());
+        assertEquals(40, cells.get(1).getY());
+    }
+
+    @Test @Order(12)
+    public void testLocationHintProbesNearLastHit() {
+        BufferedImage icon = randomImage(20, 20, BufferedImage.TYPE_INT_RGB, 77);
+        LocationHints hints = new LocationHints();
+        RasterImage template = RasterImage.from(icon);
+
+        assertNull(hints.probe("icon", engine, RasterImage.from(withIcon(icon, 100, 60)), template, 0.8, null),
+            "No hint before the first hit");
+        hints.record("icon", new MatchResult(100, 60, 20, 20, 1.0));
+
+        MatchResult nearby = hints.probe("icon", engine, RasterImage.from(withIcon(icon, 110, 57)), template, 0.8, null);
+        assertNotNull(nearby, "Icon moved by a few pixels should be found by the probe");
+        assertEquals(110, nearby.getX());
+        assertEquals(57, nearby.getY());
+
+        assertNull(hints.probe("icon", engine, RasterImage.from(withIcon(icon, 280, 170)), template, 0.8, null),
+            "Icon far from the last hit should fall back to a full scan");
+        assertEquals(1, hints.getHits());
+        assertEquals(1, hints.getMisses());
+        assertEquals(0.5, hints.getHitRate(), 1e-9);
+    }
+
+    @Test @Order(13)
+    public void testMultiScaleFindsTemplateCapturedAtOtherScaling() {
+        // Desktop at 125%: the template was captured at 100%, so it must be enlarged by 1.25
+        BufferedImage desktop = blockImage(400, 300, 10, 21);
+        RasterImage screen = RasterImage.from(desktop);
+        RasterImage template = RasterImage.from(desktop.getSubimage(150, 100, 60, 50)).scale(0.8);
+        MultiScaleSearch scaleSearch = new MultiScaleSearch(new double[] {1.25, 1.5});
+
+        MatchResult match = scaleSearch.findBestMatch("button", template,
+            scaled -> engine.findBestMatch(screen, scaled, 0.8));
+
+        assertNotNull(match, "Template should be found once resized to the desktop scaling");
+        assertEquals(1.25, match.getScale(), 1e-9);
+        assertEquals(150, match.getX(), 1);
+        assertEquals(100, match.getY(), 1);
+        assertEquals(1.25, scaleSearch.getPreferredScale("button"), 1e-9, "Winning scale should be remembered");
+    }
+
+    @Test @Order(14)
+    public void testPixelKernelsAgreeWithGetRgbAcrossImageTypes() {
+        BufferedImage noisy = randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 4);
+        BufferedImage shifted = randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 4);
+        for (int y = 0; y < 48; y += 3) {
+            for (int x = 0; x < 64; x += 2) {
+                shifted.setRGB(x, y, shifted.getRGB(x, y) ^ (y % 2 == 0 ? 0x040404 : 0x100000));
+            }
+        }
+        BufferedImage bgr = convert(shifted, BufferedImage.TYPE_3BYTE_BGR);
+
+        long equal = 0;
+        long within = 0;
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 64; x++) {
+                int p = noisy.getRGB(x, y);
+                int q = shifted.getRGB(x, y);
+                equal += p == q ? 1 : 0;
+                java.awt.Color c1 = new java.awt.Color(p);
+                java.awt.Color c2 = new java.awt.Color(q);
+                within += Math.abs(c1.getRed() - c2.getRed()) <= 5 && Math.abs(c1.getGreen() - c2.getGreen()) <= 5
+                    && Math.abs(c1.getBlue() - c2.getBlue()) <= 5 ? 1 : 0;
+            }
+        }
+
+        assertEquals(equal / 3072.0, PixelKernels.equalFraction(noisy, shifted), 1e-12);
+        assertEquals(equal / 3072.0, PixelKernels.equalFraction(noisy, bgr), 1e-12, "Int and byte rasters compare alike");
+        assertEquals(within / 3072.0, PixelKernels.toleranceFraction(noisy, bgr, 5), 1e-12);
+        assertEquals(0.0, PixelKernels.equalFraction(noisy, screenshot), "Different sizes do not compare");
+    }
+
+    @Test @Order(15)
+    public void testActiveKernelsMatchScalarKernels() {
+        PixelKernelSet scalar = new ScalarPixelKernels();
+        PixelKernelSet active = PixelKernels.getImplementation();
+
+        // Odd length so vector implementations also run their scalar tail
+        int length = 1000 * 7 + 3;
+        Random random = new Random(13);
+        int[] a = new int[length];
+        int[] b = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = random.nextInt();
+            int noise = random.nextInt(4) == 0 ? random.nextInt() & 0x0F0F0F : 0;
+            b[i] = a[i] ^ noise ^ (i % 5 == 0 ? 0xFF000000 : 0);
+        }
+
+        String name = active.getName();
+        assertEquals(scalar.countEqual(a, 0, b, 0, length), active.countEqual(a, 0, b, 0, length), name);
+        assertEquals(scalar.countEqual(a, 0xFF000000, b, 0xFF000000, length),
+            active.countEqual(a, 0xFF000000, b, 0xFF000000, length), name);
+        for (int tolerance : new int[] {-1, 0, 5, 255}) {
+            assertEquals(scalar.countWithinTolerance(a, b, length, tolerance),
+                active.countWithinTolerance(a, b, length, tolerance), name + " tolerance " + tolerance);
+        }
+        assertEquals(scalar.sumAbsoluteDifference(a, b, length), active.sumAbsoluteDifference(a, b, length), name);
+        assertEquals(0, active.sumAbsoluteDifference(a, a, length));
+
+        int[] expected = new int[length];
+        int[] actual = new int[length];
+        scalar.luminance(a, expected, length);
+        active.luminance(a, actual, length);
+        assertArrayEquals(expected, actual, name);
+        assertEquals(RasterImage.luminance(a[17]), actual[17]);
+    }
+
+    @Test @Order(16)
+    public void testScreenStateIndexRecognizesKnownScreens() {
+        BufferedImage login = blockImage(320, 200, 40, 1);
+        BufferedImage menu = blockImage(320, 200, 40, 2);
+        BufferedImage loginWithNoise = randomNoise(login, 8, 3);
+
+        for (PerceptualHash.Algorithm algorithm : PerceptualHash.Algorithm.values()) {
+            ScreenStateIndex states = new ScreenStateIndex(algorithm, 10);
+            states.register("login", login);
+            states.register("menu", menu);
+
+            ScreenStateIndex.Recognition recognized = states.identify(loginWithNoise);
+            assertNotNull(recognized, algorithm + " should recognize a noisy capture");
+            assertEquals("login", recognized.getName());
+            assertTrue(states.isInState(loginWithNoise, "login"));
+            assertFalse(states.isInState(loginWithNoise, "menu"), algorithm + " should tell the screens apart");
+            assertNull(states.identify(randomImage(320, 200, BufferedImage.TYPE_INT_RGB, 9)));
+        }
+
+        // A region-only state ignores changes elsewhere on screen
+        ScreenStateIndex states = new ScreenStateIndex(PerceptualHash.Algorithm.DHASH, 4);
+        Rectangle titleBar = new Rectangle(0, 0, 320, 40);
+        states.register("login-title", login, titleBar);
+        BufferedImage sameTitle = convert(menu, BufferedImage.TYPE_INT_RGB);
+        sameTitle.getGraphics().drawImage(login.getSubimage(0, 0, 320, 40), 0, 0, null);
+        assertEquals(0, states.distanceTo(sameTitle, "login-title"));
+        assertThrows(IllegalArgumentException.class, () -> states.distanceTo(login, "missing"));
+    }
+
+    @Test @Order(17)
+    public void testEdgeDomainMatchesAcrossThemesAndRgbDomainChecksColor() {
+        // Light theme: dark outlines on white; dark theme: the same screen inverted
+        BufferedImage light = new BufferedImage(320, 200, BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = light.createGraphics();
+        g.setColor(java.awt.Color.WHITE);
+        g.fillRect(0, 0, 320, 200);
+        Random random = new Random(21);
+        for (int i = 0; i < 25; i++) {
+            g.setColor(new java.awt.Color(random.nextInt(128), random.nextInt(128), random.nextInt(128)));
+            g.drawRect(random.nextInt(300), random.nextInt(180), 5 + random.nextInt(40), 5 + random.nextInt(30));
+        }
+        g.dispose();
+        BufferedImage dark = new BufferedImage(320, 200, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 320; x++) {
+                dark.setRGB(x, y, ~light.getRGB(x, y));
+            }
+        }
+
+        RasterImage template = RasterImage.from(light.getSubimage(120, 70, 48, 36));
+        RasterImage darkScreen = RasterImage.from(dark);
+        assertNull(engine.findBestMatch(darkScreen, template, 0.8), "Luminance should miss the inverted theme");
+
+        MatchDomain edges = MatchDomain.EDGES;
+        MatchResult edgeMatch = edges.finish(darkScreen, template,
+            engine.findBestMatch(edges.prepareScreen(darkScreen), edges.prepareTemplate(template), 0.8), 0.8);
+        assertNotNull(edgeMatch, "Edges should match across themes");
+        assertEquals(new Rectangle(120, 70, 48, 36), edgeMatch.getBounds());
+        assertSame(edges.prepareScreen(darkScreen), edges.prepareScreen(darkScreen), "Edge plane built once per capture");
+
+        // Red and green blocks of equal luminance: luminance cannot tell them apart, RGB can
+        BufferedImage buttons = blockImage(320, 200, 40, 5);
+        java.awt.Graphics2D bg = buttons.createGraphics();
+        bg.setColor(new java.awt.Color(200, 60, 60));
+        bg.fillRect(40, 40, 30, 20);
+        bg.setColor(new java.awt.Color(60, 132, 60));
+        bg.fillRect(200, 120, 30, 20);
+        bg.dispose();
+        RasterImage screen = RasterImage.from(buttons);
+        RasterImage green = RasterImage.from(buttons.getSubimage(198, 118, 34, 24));
+        RasterImage red = RasterImage.from(buttons.getSubimage(38, 38, 34, 24));
+        assertEquals(RasterImage.luminance(0xC83C3C), RasterImage.luminance(0x3C843C), "Test colors share a luminance");
+
+        MatchResult onRed = new MatchResult(38, 38, 34, 24, 0.99);
+        assertNull(MatchDomain.RGB.finish(screen, green, onRed, 0.9), "Green template should reject the red button");
+        assertNotNull(MatchDomain.RGB.finish(screen, red, onRed, 0.9));
+        assertSame(onRed, MatchDomain.LUMINANCE.finish(screen, green, onRed, 0.9));
+    }
+
+    @Test @Order(18)
+    public void testMaskedTemplateIgnoresTransparentBackground() {
+        // Round icon with a transparent background, pasted onto different desktops
+        BufferedImage icon = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(8);
+        for (int y = 0; y < 32; y++) {
+            for (int x = 0; x < 32; x++) {
+                boolean inside = (x - 15.5) * (x - 15.5) + (y - 15.5) * (y - 15.5) < 14 * 14;
+                icon.setRGB(x, y, inside ? random.nextInt() | 0xFF000000 : 0);
+            }
+        }
+        RasterImage plain = RasterImage.from(icon);
+        TemplateMask mask = TemplateMask.fromAlpha(plain);
+        assertNotNull(mask);
+        assertTrue(mask.getCoverage() < 0.7, "Corners should be excluded: " + mask);
+        RasterImage masked = plain.withMask(mask);
+
+        TemplateMatchEngine pruning = new TemplateMatchEngine();
+        pruning.setEarlyTermination(true);
+        for (long seed = 1; seed <= 3; seed++) {
+            BufferedImage desktop = blockImage(320, 200, 10, seed);
+            int x = 37 * (int) seed;
+            int y = 23 * (int) seed;
+            desktop.getGraphics().drawImage(icon, x, y, null);
+            RasterImage screen = RasterImage.from(desktop);
+
+            MatchResult match = engine.findBestMatch(screen, masked, 0.95);
+            assertNotNull(match, "Masked icon should be found on desktop " + seed);
+            assertEquals(new Rectangle(x, y, 32, 32), match.getBounds());
+            assertTrue(match.getScore() >= TemplateMatchEngine.PERFECT_SCORE);
+            assertEquals(String.valueOf(match), String.valueOf(pruning.findBestMatch(screen, masked, 0.95)));
+            assertNull(engine.findBestMatch(screen, plain, 0.95), "Unmasked icon carries its background");
+        }
+
+        // Downsampled masks keep pixels only where all four sources are active
+        TemplateMask half = mask.downsample();
+        assertNotNull(half);
+        assertEquals(16, half.getWidth());
+        assertTrue(half.getActiveCount() * 4 <= mask.getActiveCount());
+    }
+
+    @Test @Order(19)
+    public void testMatchResultCacheKeysOnScreenContent() throws Exception {
+        MatchResultCache cache = new MatchResultCache(2, 60_000);
+        RasterImage screen = RasterImage.from(screenshot);
+        RasterImage sameContent = RasterImage.from(convert(screenshot, BufferedImage.TYPE_INT_RGB));
+        Rectangle region = new Rectangle(100, 50, 80, 60);
+        MatchResult found = new MatchResult(110, 60, 24, 18, 0.97);
+
+        cache.put(MatchResultCache.key("button.png", screen, region), found);
+        cache.put(MatchResultCache.key("missing.png", screen, null), null);
+        assertSame(found, cache.get(MatchResultCache.key("button.png", sameContent, region)).getMatch(),
+            "An identical capture should hit");
+        MatchResultCache.Hit notFound = cache.get(MatchResultCache.key("missing.png", sameContent, null));
+        assertNotNull(notFound, "Not-found lookups are cached too");
+        assertNull(notFound.getMatch());
+
+        // One changed pixel inside the region misses; outside the region it still hits
+        BufferedImage changed = convert(screenshot, BufferedImage.TYPE_INT_RGB);
+        changed.setRGB(300, 190, ~changed.getRGB(300, 190));
+        assertNotNull(cache.get(MatchResultCache.key("button.png", RasterImage.from(changed), region)));
+        changed.setRGB(150, 80, ~changed.getRGB(150, 80));
+        assertNull(cache.get(MatchResultCache.key("button.png", RasterImage.from(changed), region)));
+        assertNull(cache.get(MatchResultCache.key("button.png", screen, new Rectangle(100, 50, 80, 61))));
+
+        // Least recently used entries go first, and entries expire
+        cache.put(MatchResultCache.key("other.png", screen, null), found);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(MatchResultCache.key("missing.png", screen, null)), "Least recent entry was evicted");
+        assertNotNull(cache.get(MatchResultCache.key("button.png", screen, region)));
+        MatchResultCache expiring = new MatchResultCache(8, 20);
+        expiring.put(MatchResultCache.key("button.png", screen, null), found);
+        Thread.sleep(40);
+        assertNull(expiring.get(MatchResultCache.key("button.png", screen, null)));
+        assertEquals(1, expiring.getExpirations());
+    }
+
+    @Test @Order(20)
+    public void testMaskedEdgeTemplateIgnoresBackgroundNextToTheMask() {
+        BufferedImage icon = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(8);
+        for (int y = 0; y < 32; y++) {
+            for (int x = 0; x < 32; x++) {
+                boolean inside = (x - 15.5) * (x - 15.5) + (y - 15.5) * (y - 15.5) < 14 * 14;
+                icon.setRGB(x, y, inside ? random.nextInt() | 0xFF000000 : 0);
+            }
+        }
+        RasterImage masked = RasterImage.from(icon).withMask(TemplateMask.fromAlpha(RasterImage.from(icon)));
+        TemplateMask edgeMask = masked.getEdges().getMask();
+        assertNotNull(edgeMask);
+        assertTrue(edgeMask.getActiveCount() < masked.getMask().getActiveCount(),
+            "Edge pixels computed from excluded neighbours should be dropped");
+        assertFalse(edgeMask.isActive(16, 2), "Just inside the circle the 3x3 neighbourhood reaches outside");
+        assertTrue(edgeMask.isActive(16, 16));
+
+        RasterImage template = MatchDomain.EDGES.prepareTemplate(masked);
+        int inset = MatchDomain.EDGES.templateInset(masked);
+        for (long seed = 1; seed <= 3; seed++) {
+            BufferedImage desktop = blockImage(320, 200, 10, seed);
+            int x = 41 * (int) seed;
+            int y = 29 * (int) seed;
+            desktop.getGraphics().drawImage(icon, x, y, null);
+
+            MatchResult match = engine.findBestMatch(MatchDomain.EDGES.prepareScreen(RasterImage.from(desktop)),
+                template, 0.95);
+            assertNotNull(match, "Masked edge template should be found on desktop " + seed);
+            assertEquals(x + inset, match.getX());
+            assertEquals(y + inset, match.getY());
+            assertTrue(match.getScore() >= TemplateMatchEngine.PERFECT_SCORE,
+                "The background behind the mask must not change the edge score: " + match);
+        }
+    }
+
+    @Test @Order(21)
+    public void testEdgeTemplateWithMaskOnlyOnItsBorderIsScoredUnmasked() {
+        // Only the outer ring is active, so the inset edge template has no active pixel left
+        boolean[] ring = new boolean[12 * 12];
+        for (int i = 0; i < ring.length; i++) {
+            int x = i % 12;
+            int y = i / 12;
+            ring[i] = x == 0 || y == 0 || x == 11 || y == 11;
+        }
+        TemplateMask mask = new TemplateMask(12, 12, ring);
+        assertNull(mask.crop(1, 1, 10, 10), "A crop without active pixels is scored unmasked");
+        assertNull(mask.erode(1));
+
+        RasterImage screen = RasterImage.from(blockImage(120, 80, 6, 4));
+        RasterImage template = RasterImage.from(blockImage(120, 80, 6, 4).getSubimage(30, 18, 12, 12)).withMask(mask);
+        RasterImage prepared = MatchDomain.EDGES.prepareTemplate(template);
+        assertNull(prepared.getMask());
+        assertEquals(10, prepared.getWidth());
+
+        MatchResult match = engine.findBestMatch(MatchDomain.EDGES.prepareScreen(screen), prepared, 0.9);
+        assertNotNull(match);
+        assertEquals(new Rectangle(31, 19, 10, 10), match.getBounds());
+    }
+
+    static BufferedImage randomImage(int width, int height, int type, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt() | 0xFF000000);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Copy of an image with each channel shifted by up to +/- amplitude
+     */
+    static BufferedImage randomNoise(BufferedImage source, int amplitude, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                int rgb = source.getRGB(x, y);
+                int noisy = 0;
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    int channel = ((rgb >> shift) & 0xFF) + random.nextInt(amplitude * 2 + 1) - amplitude;
+                    noisy |= Math.max(0, Math.min(255, channel)) << shift;
+                }
+                image.setRGB(x, y, noisy);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Desktop-like image made of flat colored blocks rather than pixel noise
+     */
+    static BufferedImage blockImage(int width, int height, int blockSize, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int by = 0; by < height; by += blockSize) {
+            for (int bx = 0; bx < width; bx += blockSize) {
+                int rgb = random.nextInt() | 0xFF000000;
+                for (int y = by; y < Math.min(height, by + blockSize); y++) {
+                    for (int x = bx; x < Math.min(width, bx + blockSize); x++) {
+                        image.setRGB(x, y, rgb);
+                    }
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Spreadsheet-like image: white background with a grid of gray cell borders
+     */
+    static BufferedImage gridImage(int width, int height, int left, int top, int cellWidth, int cellHeight,
+                                   int columns, int rows) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = image.createGraphics();
+        g.setColor(java.awt.Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(java.awt.Color.GRAY);
+        for (int c = 0; c <= columns; c++) {
+            g.drawLine(left + c * cellWidth, top, left + c * cellWidth, top + rows * cellHeight);
+        }
+        for (int r = 0; r <= rows; r++) {
+            g.drawLine(left, top + r * cellHeight, left + columns * cellWidth, top + r * cellHeight);
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Desktop-like background with a copy of the icon drawn at (x, y)
+     */
+    private static BufferedImage withIcon(BufferedImage icon, int x, int y) {
+        BufferedImage image = blockImage(320, 200, 10, 13);
+        image.getGraphics().drawImage(icon, x, y, null);
+        return image;
+    }
+
+    static BufferedImage convert(BufferedImage source, int type) {
+        BufferedImage converted = new BufferedImage(source.getWidth(), source.getHeight(), type);
+        converted.getGraphics().drawImage(source, 0, 0, null);
+        return converted;
+    }
+}